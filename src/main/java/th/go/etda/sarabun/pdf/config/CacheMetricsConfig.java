@@ -0,0 +1,27 @@
+package th.go.etda.sarabun.pdf.config;
+
+import java.util.Collections;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import th.go.etda.sarabun.pdf.service.HtmlTextCache;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+
+/**
+ * ลงทะเบียน metrics ของ cache ภายใน service (ดูได้ที่ /actuator/metrics)
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder signatureImageCacheMetrics(SignatureImageCache signatureImageCache) {
+        return new LruCacheMetrics(signatureImageCache.cache(), SignatureImageCache.CACHE_NAME, Collections.emptyList());
+    }
+
+    @Bean
+    public MeterBinder htmlTextCacheMetrics(HtmlTextCache htmlTextCache) {
+        return new LruCacheMetrics(htmlTextCache.cache(), HtmlTextCache.CACHE_NAME, Collections.emptyList());
+    }
+}
@@ -0,0 +1,75 @@
+package th.go.etda.sarabun.pdf.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import th.go.etda.sarabun.pdf.util.LruCache;
+
+/**
+ * ผูก LruCache เข้ากับ Micrometer ในรูปแบบ metrics มาตรฐานของ cache
+ *
+ * - cache.gets{result=hit|miss}
+ * - cache.puts
+ * - cache.evictions
+ * - cache.size
+ * - cache.max.entries (เฉพาะ LruCache)
+ * - cache.weight, cache.max.weight (เฉพาะ LruCache ที่จำกัดน้ำหนัก เช่น bytes)
+ */
+public class LruCacheMetrics extends CacheMeterBinder<LruCache<?, ?>> {
+
+    public LruCacheMetrics(LruCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, Tags.of(tags));
+    }
+
+    @Override
+    protected Long size() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        Gauge.builder("cache.max.entries", getCache(), cache -> cache == null ? 0 : cache.maxEntries())
+            .tags(getTagsWithCacheName())
+            .description("The maximum number of entries the cache can hold")
+            .register(registry);
+
+        LruCache<?, ?> cache = getCache();
+        if (cache != null && cache.maxWeight() != Long.MAX_VALUE) {
+            Gauge.builder("cache.weight", cache, LruCache::weight)
+                .tags(getTagsWithCacheName())
+                .description("The total weight (approximate bytes) of entries in the cache")
+                .register(registry);
+            Gauge.builder("cache.max.weight", cache, LruCache::maxWeight)
+                .tags(getTagsWithCacheName())
+                .description("The maximum total weight the cache can hold")
+                .register(registry);
+        }
+    }
+}
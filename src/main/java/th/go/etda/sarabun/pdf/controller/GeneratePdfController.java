@@ -1,7 +1,14 @@
 package th.go.etda.sarabun.pdf.controller;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -12,11 +19,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import th.go.etda.sarabun.pdf.model.ApiResponse;
+import th.go.etda.sarabun.pdf.model.Base64Pdf;
 import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.service.BatchPdfService;
 import th.go.etda.sarabun.pdf.service.GeneratePdfService;
 
 /**
@@ -31,8 +47,14 @@ import th.go.etda.sarabun.pdf.service.GeneratePdfService;
  * 
  * Endpoints:
  * - POST /api/pdf/preview - สร้าง PDF preview พร้อมลายเซ็น
+ * - POST /api/pdf/download - สร้าง PDF แล้วส่งเป็น application/pdf โดยตรง (ไม่ใช้ Base64)
+ * - POST /api/pdf/batch - สร้าง PDF หลายฉบับ (JSON array หรือ NDJSON) ส่งผลกลับเป็น NDJSON ทีละฉบับ
+ * - POST /api/pdf/export - สร้าง PDF หลายฉบับ (JSON array หรือ NDJSON) ส่งกลับเป็นไฟล์ ZIP
  * - GET /api/pdf/health - Health check
  * 
+ * /batch และ /export ใช้เวลาของตัวเอง (pdf.batch.request-timeout) แทน spring.mvc.async.request-timeout
+ * ถ้าเกินเวลาจะตัดการเชื่อมต่อ (client เห็นเป็น response ที่ไม่ครบ) ไม่จบ response ที่ถูกตัดกลางทางด้วย 200
+ * 
  * @author Migrated from .NET to Java
  */
 @Slf4j
@@ -42,7 +64,17 @@ import th.go.etda.sarabun.pdf.service.GeneratePdfService;
 @RequiredArgsConstructor
 public class GeneratePdfController {
     
+    private static final String APPLICATION_ZIP_VALUE = "application/zip";
+    
+    /** เมื่อเกินเวลา รอให้ writer หยุด (เขียนบรรทัดสุดท้ายของ NDJSON) ได้ไม่เกินนี้ ก่อนตัดการเชื่อมต่อ */
+    private static final long TIMEOUT_GRACE_SECONDS = 10;
+    
     private final GeneratePdfService generatePdfService;
+    private final BatchPdfService batchPdfService;
+    
+    // เวลาสูงสุดของ /batch และ /export (0 = ไม่จำกัด)
+    @Value("${pdf.batch.request-timeout:1h}")
+    private Duration batchRequestTimeout;
     
     /**
      * สร้าง PDF Preview
@@ -56,7 +88,7 @@ public class GeneratePdfController {
      * @return ApiResponse ที่มี PDF Base64
      */
     @PostMapping("/preview")
-    public ResponseEntity<ApiResponse<String>> previewPdf(@RequestBody GeneratePdfRequest request) {
+    public ResponseEntity<ApiResponse<Base64Pdf>> previewPdf(@RequestBody GeneratePdfRequest request) {
         log.info("============ RECEIVED REQUEST ============");
         log.info("Raw Request Object: {}", request);
         log.info("bookNameId: {}", request.getBookNameId());
@@ -76,7 +108,7 @@ public class GeneratePdfController {
         log.info("==========================================");
         
         try {
-            ApiResponse<String> response = generatePdfService.previewPdf(request);
+            ApiResponse<Base64Pdf> response = generatePdfService.previewPdf(request);
             
             if (response.getIsOk()) {
                 return ResponseEntity.ok(response);
@@ -94,6 +126,169 @@ public class GeneratePdfController {
         }
     }
     
+    /**
+     * สร้าง PDF แล้วส่งเป็น application/pdf (binary, พักเป็น byte[] ทั้งไฟล์, มี Content-Length)
+     * 
+     * รับ request body เดียวกับ /preview แต่ไม่ห่อเป็น Base64 ใน JSON (เล็กกว่า 33% และ client ไม่ต้อง decode)
+     * 
+     * render, ลายเซ็น และ save ทำเสร็จบน MemoRenderPool ก่อนส่ง header
+     * (ไม่ save ลง response stream โดยตรง เพราะ save ต้องอยู่บน pool และ PDF ที่รวมหลายไฟล์ได้มาเป็น bytes อยู่แล้ว)
+     * ถ้าล้มเหลวจะได้ 500 ตามปกติ ไม่มี PDF ที่ถูกตัดกลางทางพร้อม 200 และไม่มี document ค้างถ้า client ตัดการเชื่อมต่อ
+     * 
+     * @param request ข้อมูลสำหรับสร้าง PDF
+     * @return PDF (application/pdf)
+     */
+    @PostMapping(value = "/download", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<byte[]> downloadPdf(@RequestBody GeneratePdfRequest request) {
+        log.info("Download PDF request - bookNameId: {}", request.getBookNameId());
+        
+        try {
+            byte[] pdfBytes = generatePdfService.generatePdfBytes(request);
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdfBytes.length);
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=memo.pdf");
+            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            
+        } catch (Exception e) {
+            log.error("Error in downloadPdf endpoint: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * สร้าง PDF หลายฉบับในการเรียกครั้งเดียว (body เป็น JSON array ของ request แบบเดียวกับ /preview)
+     * 
+     * ผลลัพธ์เป็น NDJSON หนึ่งบรรทัดต่อหนึ่งฉบับ ส่งทันทีที่แต่ละฉบับเสร็จ (ลำดับอาจไม่ตรงกับที่ส่งมา ดู index)
+     * ฉบับที่ล้มเหลวได้บรรทัด isOK=false ของตัวเอง
+     * 
+     * @param requests รายการข้อมูลสำหรับสร้าง PDF
+     * @return NDJSON ของ BatchPdfResult
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchPdf(@RequestBody List<GeneratePdfRequest> requests,
+                                                          HttpServletRequest httpRequest) {
+        log.info("Batch PDF request - {} items", requests.size());
+        return ndjsonResponse(httpRequest, output -> batchPdfService.render(requests, output));
+    }
+    
+    /**
+     * สร้าง PDF หลายฉบับจาก NDJSON (หนึ่ง request ต่อบรรทัด) - อ่านทีละบรรทัดระหว่างสร้าง ไม่โหลดทั้ง batch
+     * 
+     * @param httpRequest request ที่มี body เป็น NDJSON
+     * @return NDJSON ของ BatchPdfResult
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchPdfNdjson(HttpServletRequest httpRequest) {
+        log.info("Batch PDF request - NDJSON stream");
+        return ndjsonResponse(httpRequest, output -> batchPdfService.renderNdjson(httpRequest.getInputStream(), output));
+    }
+    
+    /**
+     * สร้าง PDF หลายฉบับแล้วส่งกลับเป็นไฟล์ ZIP (body เป็น JSON array ของ request แบบเดียวกับ /preview)
+     * 
+     * แต่ละ PDF ถูกเขียนลง ZIP บน response ทันทีที่สร้างเสร็จ ไม่ต้องรวม Base64 ฝั่ง client
+     * ชื่อไฟล์ใน ZIP มาจาก bookNo (หรือ guid) รายการที่ล้มเหลวอยู่ใน errors.ndjson
+     * 
+     * @param requests รายการข้อมูลสำหรับสร้าง PDF
+     * @return ZIP (application/zip)
+     */
+    @PostMapping(value = "/export", consumes = MediaType.APPLICATION_JSON_VALUE, produces = APPLICATION_ZIP_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportZip(@RequestBody List<GeneratePdfRequest> requests,
+                                                           HttpServletRequest httpRequest) {
+        log.info("Export PDF request - {} items", requests.size());
+        return zipResponse(httpRequest, output -> batchPdfService.exportZip(requests, output));
+    }
+    
+    /**
+     * สร้าง PDF หลายฉบับจาก NDJSON (หนึ่ง request ต่อบรรทัด) แล้วส่งกลับเป็นไฟล์ ZIP
+     * 
+     * @param httpRequest request ที่มี body เป็น NDJSON
+     * @return ZIP (application/zip)
+     */
+    @PostMapping(value = "/export", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = APPLICATION_ZIP_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportZipNdjson(HttpServletRequest httpRequest) {
+        log.info("Export PDF request - NDJSON stream");
+        return zipResponse(httpRequest, output -> batchPdfService.exportZipNdjson(httpRequest.getInputStream(), output));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> ndjsonResponse(HttpServletRequest httpRequest, BatchWriter writer) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(streamingBody(httpRequest, writer));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> zipResponse(HttpServletRequest httpRequest, BatchWriter writer) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(APPLICATION_ZIP_VALUE))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=memos.zip")
+            .body(streamingBody(httpRequest, writer));
+    }
+    
+    /**
+     * ห่อ writer เป็น StreamingResponseBody พร้อมเวลาสูงสุดของ batch
+     * 
+     * เดิม: ใช้ spring.mvc.async.request-timeout (120s) ร่วมกับทุก endpoint
+     *       เมื่อเกินเวลา header 200 ถูกส่งไปแล้ว DefaultHandlerExceptionResolver แค่ log แล้วจบ response ตามปกติ
+     *       client ได้ ZIP/NDJSON ที่ถูกตัดกลางทางโดยไม่รู้ตัว
+     * ใหม่: ตั้งเวลาของ request นี้เป็น pdf.batch.request-timeout ก่อนเริ่ม async
+     *       เมื่อเกินเวลา Spring interrupt writer (BatchPdfService เขียนบรรทัด error สุดท้ายของ NDJSON / ไม่ปิด ZIP)
+     *       แล้ว interceptor คืน exception เป็นผลของ request - container ตัดการเชื่อมต่อแทนการจบ chunked response
+     */
+    private StreamingResponseBody streamingBody(HttpServletRequest httpRequest, BatchWriter writer) {
+        CountDownLatch finished = new CountDownLatch(1);
+        applyBatchTimeout(httpRequest, finished);
+        return output -> {
+            try {
+                writer.write(output);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error in batch endpoint: ", e);
+                throw new IOException("ไม่สามารถสร้าง PDF แบบ batch ได้: " + e.getMessage(), e);
+            } finally {
+                finished.countDown();
+            }
+        };
+    }
+    
+    private void applyBatchTimeout(HttpServletRequest httpRequest, CountDownLatch finished) {
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(httpRequest);
+        AsyncWebRequest asyncWebRequest = asyncManager.getAsyncWebRequest();
+        if (asyncWebRequest == null) {
+            return;
+        }
+        // async ยังไม่เริ่ม (เริ่มหลัง handler คืน StreamingResponseBody) จึงเปลี่ยนเวลาได้ - 0 = ไม่จำกัด
+        asyncWebRequest.setTimeout(Math.max(0, batchRequestTimeout.toMillis()));
+        asyncManager.registerCallableInterceptor(BatchTimeoutInterceptor.class.getName(),
+                                                 new BatchTimeoutInterceptor(finished));
+    }
+    
+    /**
+     * เมื่อเกินเวลา: Spring interrupt writer ก่อนเรียก handleTimeout (cancel task)
+     * รอให้ writer หยุดแล้วคืน IOException - ไม่ใช่ AsyncRequestTimeoutException
+     * ซึ่ง DefaultHandlerExceptionResolver จะกลืนไว้เมื่อ response commit แล้ว
+     */
+    @RequiredArgsConstructor
+    private final class BatchTimeoutInterceptor implements CallableProcessingInterceptor {
+        
+        private final CountDownLatch finished;
+        
+        @Override
+        public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) throws Exception {
+            boolean stopped = finished.await(TIMEOUT_GRACE_SECONDS, TimeUnit.SECONDS);
+            log.warn("Batch request exceeded pdf.batch.request-timeout ({}), aborting response (writer stopped: {})",
+                     batchRequestTimeout, stopped);
+            return new IOException("สร้าง PDF แบบ batch เกินเวลาที่กำหนด (" + batchRequestTimeout + ")");
+        }
+    }
+    
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(OutputStream output) throws Exception;
+    }
+    
     /**
      * Health check endpoint - ตรวจสอบสถานะ PDF service
      */
@@ -116,31 +311,17 @@ public class GeneratePdfController {
             // สร้าง request ตัวอย่างสำหรับทดสอบ
             GeneratePdfRequest request = createTestRequest();
             
-            // สร้าง PDF
-            ApiResponse<String> response = generatePdfService.previewPdf(request);
+            // สร้าง PDF เป็น bytes โดยตรง (ไม่ต้องแปลง Base64 ไปกลับ)
+            byte[] pdfBytes = generatePdfService.generatePdfBytes(request);
             
-            if (response.getIsOk() && response.getData() != null) {
-                // ลบ prefix "data:application/pdf;base64," ถ้ามี
-                String base64Data = response.getData();
-                if (base64Data.startsWith("data:application/pdf;base64,")) {
-                    base64Data = base64Data.substring("data:application/pdf;base64,".length());
-                }
-                
-                // แปลง Base64 เป็น byte array
-                byte[] pdfBytes = Base64.getDecoder().decode(base64Data);
-                
-                // ตั้งค่า headers สำหรับแสดง PDF
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_PDF);
-                headers.setContentLength(pdfBytes.length);
-                headers.set("Content-Disposition", "inline; filename=test.pdf");
-                
-                log.info("PDF generated successfully, size: {} bytes", pdfBytes.length);
-                return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-            } else {
-                log.error("Failed to generate PDF: {}", response.getMessage());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
+            // ตั้งค่า headers สำหรับแสดง PDF
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdfBytes.length);
+            headers.set("Content-Disposition", "inline; filename=test.pdf");
+            
+            log.info("PDF generated successfully, size: {} bytes", pdfBytes.length);
+            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
             
         } catch (Exception e) {
             log.error("Error viewing PDF: ", e);
@@ -0,0 +1,106 @@
+package th.go.etda.sarabun.pdf.controller;
+
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.model.ApiResponse;
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.model.PdfJobStatus;
+import th.go.etda.sarabun.pdf.service.PdfJobService;
+
+/**
+ * PDF Job REST API Controller - สร้าง PDF แบบ asynchronous
+ *
+ * Endpoints:
+ * - POST /api/pdf/jobs - ส่งงาน (body เดียวกับ /api/pdf/preview) ได้ 202 พร้อม jobId
+ *   ถ้าคิวเต็ม (หรือที่เก็บงานเต็มด้วยงานที่ยังไม่เสร็จ) ได้ 429 พร้อม Retry-After
+ * - GET /api/pdf/jobs/{jobId} - ถามสถานะ (QUEUED, RUNNING, DONE, FAILED)
+ *   ได้ 404 เมื่องานหมดอายุ (pdf.jobs.result-ttl) หรือถูกลบก่อนเพราะที่เก็บผลลัพธ์เต็ม
+ * - GET /api/pdf/jobs/{jobId}/result - ดึง PDF (application/pdf) เมื่อสถานะเป็น DONE
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/pdf/jobs")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class PdfJobController {
+
+    private final PdfJobService pdfJobService;
+
+    /**
+     * ส่งงานสร้าง PDF เข้าคิว
+     *
+     * @param request ข้อมูลสำหรับสร้าง PDF
+     * @return 202 พร้อมสถานะงาน (Location = URL สำหรับถามสถานะ) หรือ 429 ถ้าคิวเต็ม
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<PdfJobStatus>> submitJob(@RequestBody GeneratePdfRequest request) {
+        log.info("PDF job request - bookNameId: {}", request.getBookNameId());
+
+        try {
+            PdfJobStatus status = pdfJobService.submit(request);
+            return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/pdf/jobs/" + status.getJobId()))
+                .body(ApiResponse.success(HttpStatus.ACCEPTED, status, "รับงานสร้าง PDF แล้ว"));
+
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(pdfJobService.getRetryAfter().toSeconds()))
+                .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS, "คิวงานสร้าง PDF เต็ม กรุณาลองใหม่ภายหลัง"));
+        }
+    }
+
+    /**
+     * ถามสถานะงาน
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<PdfJobStatus>> getJob(@PathVariable String jobId) {
+        PdfJobStatus status = pdfJobService.getStatus(jobId);
+        if (status == null) {
+            return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(HttpStatus.NOT_FOUND, "ไม่พบงาน: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.success(status));
+    }
+
+    /**
+     * ดึง PDF ของงานที่เสร็จแล้ว
+     *
+     * @return 200 application/pdf, 409 ถ้างานยังไม่เสร็จหรือไม่สำเร็จ, 404 ถ้าไม่พบงาน
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<byte[]> getJobResult(@PathVariable String jobId) {
+        PdfJobStatus status = pdfJobService.getStatus(jobId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        byte[] pdfBytes = pdfJobService.getResult(jobId);
+        if (pdfBytes == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentLength(pdfBytes.length);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=memo.pdf");
+        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    }
+}
@@ -56,6 +56,18 @@ public class ApiResponse<T> {
                 .build();
     }
     
+    /**
+     * สร้าง Response สำเร็จพร้อม status code (เช่น 202 ของงานที่รับเข้าคิว) ให้ตรงกับ HTTP status
+     */
+    public static <T> ApiResponse<T> success(HttpStatus status, T data, String message) {
+        return ApiResponse.<T>builder()
+                .isOk(true)
+                .statusCode(status.value())
+                .message(message)
+                .data(data)
+                .build();
+    }
+    
     /**
      * สร้าง Response ที่มี error
      */
@@ -0,0 +1,109 @@
+package th.go.etda.sarabun.pdf.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * PDF ที่ส่งใน JSON เป็น Base64 string (ค่า data ของ /api/pdf/preview)
+ *
+ * เดิม: Base64.getEncoder().encodeToString สร้าง string ทั้งก้อน แล้ว Jackson copy ลง buffer อีกรอบ
+ *       heap ต่อ response จึงเป็น PDF + Base64 string + JSON buffer
+ * ใหม่: ถือเฉพาะ PDF bytes ที่ save เสร็จแล้ว (save ใน service ก่อนสร้าง response - ถ้าล้มเหลวยังส่ง error ได้ตามปกติ)
+ *       Serializer encode ทีละช่วง 6144 bytes (หาร 3 ลงตัว จึงไม่มี padding กลางทาง) ลง buffer ที่ใช้ซ้ำ
+ *       แล้วเขียนเป็น raw JSON string ไม่สร้าง Base64 ทั้งก้อน หน่วยความจำเพิ่มจาก PDF จึงคงที่ต่อ response
+ *       ผลลัพธ์ใน JSON เหมือนเดิมทุก byte
+ *       (PDF ที่ผ่านขั้นลายเซ็นหรือรวมไฟล์มี prefix "data:application/pdf;base64," เหมือนเดิม)
+ *
+ * Instance เป็น immutable ไม่ถือ resource ใดๆ (serialize ซ้ำได้ ไม่ต้องปิด)
+ */
+@Schema(type = "string", description = "PDF ในรูปแบบ Base64")
+@JsonSerialize(using = Base64Pdf.Serializer.class)
+public final class Base64Pdf {
+
+    public static final String DATA_URI_PREFIX = "data:application/pdf;base64,";
+
+    private final byte[] pdfBytes;
+    private final boolean signed;
+
+    private Base64Pdf(byte[] pdfBytes, boolean signed) {
+        this.pdfBytes = pdfBytes;
+        this.signed = signed;
+    }
+
+    /**
+     * ห่อ PDF ที่ serialize แล้ว (encode Base64 ตอนเขียน JSON)
+     */
+    public static Base64Pdf encode(PdfResult pdf) {
+        return new Base64Pdf(pdf.getPdfBytes(), pdf.isSigned());
+    }
+
+    /**
+     * ขนาดของ Base64 (ไม่รวม prefix)
+     */
+    public int length() {
+        return 4 * ((pdfBytes.length + 2) / 3);
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    @Override
+    public String toString() {
+        // ไม่พิมพ์ทั้งก้อนใน log (ApiResponse.toString)
+        byte[] head = Base64.getEncoder().encode(Arrays.copyOf(pdfBytes, Math.min(pdfBytes.length, 24)));
+        return (signed ? DATA_URI_PREFIX : "") + new String(head, StandardCharsets.US_ASCII)
+            + (pdfBytes.length > 24 ? "... (" + length() + " chars)" : "");
+    }
+
+    /**
+     * เขียน Base64 เป็น JSON string โดยตรงลง generator
+     *
+     * ตัวอักษร Base64 และ prefix ไม่ต้อง escape ใน JSON จึงเขียนแบบ raw ได้
+     */
+    public static final class Serializer extends StdSerializer<Base64Pdf> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** bytes ของ PDF ต่อรอบ ต้องหาร 3 ลงตัว (ได้ Base64 8192 ตัวอักษรพอดี) */
+        private static final int CHUNK = 6144;
+
+        public Serializer() {
+            super(Base64Pdf.class);
+        }
+
+        @Override
+        public void serialize(Base64Pdf value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // writeRawValue จัดการ separator (':' / ',') ของ value ให้ ส่วนที่เหลือต่อด้วย writeRaw
+            gen.writeRawValue(value.signed ? "\"" + DATA_URI_PREFIX : "\"");
+            byte[] pdf = value.pdfBytes;
+            Base64.Encoder encoder = Base64.getEncoder();
+            // encoder ไม่มี overload ที่รับ offset จึง copy ทีละช่วงลง slice ที่ใช้ซ้ำ (ช่วงสุดท้ายที่สั้นกว่าใช้ array ใหม่)
+            byte[] slice = new byte[CHUNK];
+            byte[] encoded = new byte[4 * CHUNK / 3];
+            char[] buffer = new char[encoded.length];
+            for (int off = 0; off < pdf.length; off += CHUNK) {
+                int len = Math.min(CHUNK, pdf.length - off);
+                if (len < CHUNK) {
+                    slice = new byte[len];
+                }
+                System.arraycopy(pdf, off, slice, 0, len);
+                int n = encoder.encode(slice, encoded);
+                for (int i = 0; i < n; i++) {
+                    buffer[i] = (char) encoded[i];
+                }
+                gen.writeRaw(buffer, 0, n);
+            }
+            gen.writeRaw('"');
+        }
+    }
+}
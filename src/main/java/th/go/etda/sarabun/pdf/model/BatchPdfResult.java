@@ -0,0 +1,42 @@
+package th.go.etda.sarabun.pdf.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ผลลัพธ์ของ request หนึ่งรายการใน /api/pdf/batch (หนึ่งบรรทัดของ NDJSON)
+ *
+ * ฟิลด์ isOK, statusCode, message, data เหมือน ApiResponse ของ /api/pdf/preview
+ * เพิ่ม index (ลำดับใน batch เริ่มที่ 0) และ guid/bookNo ของ request เพื่อจับคู่ผลลัพธ์
+ * เพราะผลลัพธ์ส่งตามลำดับที่สร้างเสร็จ ไม่ใช่ลำดับที่ส่งมา
+ *
+ * statusCode ของรายการที่ล้มเหลว: 400 = request ผิด (parse ไม่ได้ หรือ HTML เกินขีดจำกัด)
+ * 500 = ข้อผิดพลาดภายในระหว่างสร้าง PDF (ส่งซ้ำได้)
+ *
+ * บรรทัดที่ไม่มี index คือบรรทัดสุดท้ายเมื่อ batch ถูกหยุดก่อนครบ (เช่น เกิน pdf.batch.request-timeout)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPdfResult {
+
+    private Integer index;
+
+    private String guid;
+
+    private String bookNo;
+
+    @JsonProperty("isOK")
+    private Boolean isOk;
+
+    private Integer statusCode;
+
+    private String message;
+
+    private Base64Pdf data;
+}
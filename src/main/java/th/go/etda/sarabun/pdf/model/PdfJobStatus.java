@@ -0,0 +1,46 @@
+package th.go.etda.sarabun.pdf.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * สถานะของงานสร้าง PDF แบบ asynchronous (/api/pdf/jobs)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfJobStatus {
+
+    /**
+     * สถานะของงาน
+     * - QUEUED = รอในคิว
+     * - RUNNING = กำลังสร้าง PDF
+     * - DONE = สร้างเสร็จ ดึงผลได้ที่ /api/pdf/jobs/{jobId}/result
+     * - FAILED = สร้างไม่สำเร็จ (ดู message)
+     */
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private String jobId;
+
+    private State state;
+
+    private String message;
+
+    private Instant submittedAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    /**
+     * ขนาดของ PDF (bytes) เมื่อสร้างเสร็จ
+     */
+    private Integer pdfSize;
+}
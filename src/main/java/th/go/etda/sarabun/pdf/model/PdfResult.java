@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
  * การเปลี่ยนแปลง:
  * - แปลงจาก internal class เป็น standalone model
  * - ใช้ Lombok เพื่อลด boilerplate code
+ * - เก็บ PDF เป็น bytes แทน Base64 string (ลดการ encode/decode ซ้ำระหว่างขั้นตอน)
  */
 @Data
 @Builder
@@ -20,10 +21,16 @@ import lombok.NoArgsConstructor;
 public class PdfResult {
     
     /**
-     * PDF ในรูปแบบ Base64 string
-     * รูปแบบ: "data:application/pdf;base64,..." หรือ plain base64
+     * PDF bytes (ส่งต่อระหว่างขั้นตอน สร้าง → ลายเซ็น → รวม โดยไม่แปลงเป็น Base64)
+     * Base64 ทำครั้งเดียวตอนส่งผลลัพธ์ออก
      */
-    private String pdfBase64;
+    private byte[] pdfBytes;
+    
+    /**
+     * ผ่านขั้นเพิ่มฟิลด์ลายเซ็นแล้วหรือไม่
+     * (ผลลัพธ์ที่ผ่านขั้นลายเซ็นหรือถูกรวมไฟล์ จะส่งออกเป็น "data:application/pdf;base64,...")
+     */
+    private boolean signed;
     
     /**
      * ประเภทของ PDF
@@ -0,0 +1,370 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.model.Base64Pdf;
+import th.go.etda.sarabun.pdf.model.BatchPdfResult;
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.model.PdfResult;
+
+/**
+ * สร้าง PDF หลายฉบับในการเรียกครั้งเดียว (/api/pdf/batch, /api/pdf/export)
+ *
+ * เดิม: ระบบต้นทางเรียก /api/pdf/preview หนึ่งครั้งต่อหนึ่งฉบับ
+ * ใหม่: ส่งรายการ request มาครั้งเดียว (JSON array หรือ NDJSON)
+ *       - สร้างพร้อมกันบน MemoRenderPool (ใช้ font/image cache ร่วมกัน) ไม่เกิน max-per-request ฉบับ
+ *       - ส่งผลกลับทันทีที่แต่ละฉบับเสร็จ เป็น NDJSON ทีละบรรทัด (ดู BatchPdfResult)
+ *         หรือเป็น entry ใน ZIP ทีละไฟล์
+ *       - ฉบับที่ล้มเหลวไม่ทำให้ทั้ง batch ล้ม
+ *
+ * NDJSON input ถูก parse ทีละบรรทัดระหว่างทำงาน จึงไม่ต้องโหลดทั้ง batch เข้าหน่วยความจำ
+ * ถ้าบรรทัดใด parse ไม่ได้ จะรายงานเป็น error ของรายการนั้นแล้วหยุดอ่านรายการถัดไป
+ *
+ * ถ้าถูกหยุดกลางคัน (เกินเวลาของ request - thread ถูก interrupt, หรือเขียน response ไม่ได้) จะโยน exception ออกไป
+ * - NDJSON: เขียนบรรทัดสุดท้ายที่ไม่มี index (isOK=false) ก่อน ผู้รับจึงรู้ว่าผลไม่ครบ
+ * - ZIP: ไม่เขียน central directory (archive เปิดไม่ได้ ไม่ถูกอ่านเป็นผลที่ครบ)
+ * controller ปล่อย exception ให้ container ตัดการเชื่อมต่อ แทนการจบ response ปกติด้วย 200
+ */
+@Slf4j
+@Service
+public class BatchPdfService {
+
+    /**
+     * ชื่อ entry ใน ZIP ที่รวมรายการที่ล้มเหลว (มีเฉพาะเมื่อมีรายการล้มเหลว)
+     */
+    public static final String ZIP_ERRORS_ENTRY = "errors.ndjson";
+
+    /**
+     * อักขระที่ใช้ในชื่อไฟล์ไม่ได้ (bookNo มักมี '/' เช่น "ดศ ๕๑๑.๐๕/ ๑๒๓๔")
+     */
+    private static final Pattern UNSAFE_FILE_NAME_CHARS = Pattern.compile("[\\\\/:*?\"<>|\\p{Cntrl}]+");
+
+    private final GeneratePdfService generatePdfService;
+    private final MemoRenderPool renderPool;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
+
+    public BatchPdfService(GeneratePdfService generatePdfService, MemoRenderPool renderPool, ObjectMapper objectMapper) {
+        this.generatePdfService = generatePdfService;
+        this.renderPool = renderPool;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writerFor(BatchPdfResult.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * สร้าง PDF จาก NDJSON (หนึ่ง GeneratePdfRequest ต่อบรรทัด) แล้วเขียนผลเป็น NDJSON
+     *
+     * @param input request body (ไม่ปิด)
+     * @param output response body (ไม่ปิด)
+     */
+    public void renderNdjson(InputStream input, OutputStream output) throws Exception {
+        writeNdjson(readNdjson(input), output);
+    }
+
+    /**
+     * สร้าง PDF จากรายการ request แล้วเขียนผลเป็น NDJSON
+     *
+     * @param requests รายการ request
+     * @param output response body (ไม่ปิด)
+     */
+    public void render(Iterable<GeneratePdfRequest> requests, OutputStream output) throws Exception {
+        writeNdjson(items(requests), output);
+    }
+
+    /**
+     * สร้าง PDF จาก NDJSON แล้วเขียนเป็นไฟล์ ZIP
+     *
+     * @param input request body (ไม่ปิด)
+     * @param output response body (ไม่ปิด)
+     */
+    public void exportZipNdjson(InputStream input, OutputStream output) throws Exception {
+        writeZip(readNdjson(input), output);
+    }
+
+    /**
+     * สร้าง PDF จากรายการ request แล้วเขียนเป็นไฟล์ ZIP
+     *
+     * แต่ละฉบับเป็นหนึ่ง entry ชื่อตาม bookNo (หรือ guid ถ้าไม่มี bookNo, หรือ memo-{ลำดับ})
+     * ชื่อซ้ำจะต่อท้ายด้วย "-2", "-3", ... รายการที่ล้มเหลวรวมไว้ใน errors.ndjson ท้าย archive
+     *
+     * PDF เขียนลง ZipOutputStream ทันทีที่สร้างเสร็จ หน่วยความจำจึงขึ้นกับจำนวนฉบับที่ทำพร้อมกัน
+     * (pdf.render-pool.max-per-request) ไม่ขึ้นกับขนาด archive
+     *
+     * @param requests รายการ request
+     * @param output response body (ไม่ปิด)
+     */
+    public void exportZip(Iterable<GeneratePdfRequest> requests, OutputStream output) throws Exception {
+        writeZip(items(requests), output);
+    }
+
+    private void writeNdjson(Iterator<BatchItem> items, OutputStream output) throws Exception {
+        int[] counts = new int[2];
+
+        try {
+            writeNdjsonLines(items, output, counts);
+        } catch (Exception e) {
+            log.warn("Batch aborted after {} succeeded, {} failed: {}", counts[0], counts[1], e.toString());
+            writeAbortedLine(output, counts, e);
+            throw e;
+        }
+
+        log.info("Batch completed: {} succeeded, {} failed", counts[0], counts[1]);
+    }
+
+    private void writeNdjsonLines(Iterator<BatchItem> items, OutputStream output, int[] counts) throws Exception {
+        renderPool.renderEach(items, this::renderItem, (index, item, pdf, error) -> {
+            BatchPdfResult.BatchPdfResultBuilder line = resultLine(index, item);
+            if (error == null) {
+                counts[0]++;
+                line.isOk(true)
+                    .statusCode(HttpStatus.OK.value())
+                    .message("สร้าง PDF สำเร็จ")
+                    .data(Base64Pdf.encode(pdf));
+            } else {
+                counts[1]++;
+                log.warn("Batch item {} failed: {}", index, error.getMessage());
+                failed(line, item, error);
+            }
+            lineWriter.writeValue(output, line.build());
+            output.write('\n');
+            output.flush();
+        });
+    }
+
+    /**
+     * บรรทัดสุดท้ายเมื่อ batch ถูกหยุดก่อนครบ (ไม่มี index) - เขียนไม่ได้ก็ข้าม (เช่น client ตัดการเชื่อมต่อไปแล้ว)
+     */
+    private void writeAbortedLine(OutputStream output, int[] counts, Exception cause) {
+        // thread ถูก interrupt เมื่อเกินเวลา ล้างไว้ก่อนเพื่อให้เขียนบรรทัดนี้ได้ แล้วตั้งคืน
+        boolean interrupted = Thread.interrupted();
+        boolean timedOut = interrupted || cause instanceof InterruptedException;
+        try {
+            BatchPdfResult line = BatchPdfResult.builder()
+                .isOk(false)
+                .statusCode(timedOut ? HttpStatus.SERVICE_UNAVAILABLE.value() : HttpStatus.INTERNAL_SERVER_ERROR.value())
+                .message(String.format("batch ถูกหยุดก่อนครบทุกรายการ (สำเร็จ %d, ล้มเหลว %d): %s",
+                                       counts[0], counts[1], timedOut ? "เกินเวลาที่กำหนด" : cause.getMessage()))
+                .build();
+            lineWriter.writeValue(output, line);
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeZip(Iterator<BatchItem> items, OutputStream output) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+        Set<String> entryNames = new HashSet<>();
+        List<BatchPdfResult> failures = new ArrayList<>();
+        int[] succeeded = new int[1];
+
+        // ถ้าถูกหยุดกลางคัน exception ออกจากตรงนี้โดยไม่ finish() - ไม่มี central directory
+        renderPool.renderEach(items, this::renderItem, (index, item, pdf, error) -> {
+            if (error != null) {
+                log.warn("Export item {} failed: {}", index, error.getMessage());
+                failures.add(failed(resultLine(index, item), item, error).build());
+                return;
+            }
+            succeeded[0]++;
+            writeStoredEntry(zip, entryName(index, item.request, entryNames), pdf.getPdfBytes());
+            zip.flush();
+        });
+
+        if (!failures.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ZIP_ERRORS_ENTRY));
+            for (BatchPdfResult failure : failures) {
+                lineWriter.writeValue(zip, failure);
+                zip.write('\n');
+            }
+            zip.closeEntry();
+        }
+        // finish() เขียน central directory โดยไม่ปิด response stream
+        zip.finish();
+        zip.flush();
+
+        log.info("Export completed: {} PDFs, {} failed", succeeded[0], failures.size());
+    }
+
+    private PdfResult renderItem(BatchItem item, int index) throws Exception {
+        if (item.parseError != null) {
+            throw item.parseError;
+        }
+        return generatePdfService.generatePdf(item.request);
+    }
+
+    private static BatchPdfResult.BatchPdfResultBuilder resultLine(int index, BatchItem item) {
+        BatchPdfResult.BatchPdfResultBuilder line = BatchPdfResult.builder().index(index);
+        if (item.request != null) {
+            line.guid(item.request.getGuid()).bookNo(item.request.getBookNo());
+        }
+        return line;
+    }
+
+    /**
+     * บรรทัดของรายการที่ล้มเหลว - statusCode แยกว่าส่งซ้ำแล้วมีโอกาสสำเร็จหรือไม่
+     *
+     * 400: request ผิด (parse ไม่ได้ หรือ HTML เกิน pdf.html.max-length / pdf.html.max-depth) ส่งซ้ำก็ล้มเหมือนเดิม
+     * 500: ข้อผิดพลาดระหว่างสร้าง PDF (render, PDFBox, ลายเซ็น)
+     */
+    private static BatchPdfResult.BatchPdfResultBuilder failed(BatchPdfResult.BatchPdfResultBuilder line,
+                                                               BatchItem item, Exception error) {
+        boolean badRequest = item.parseError != null || error instanceof IllegalArgumentException;
+        return line.isOk(false)
+            .statusCode(badRequest ? HttpStatus.BAD_REQUEST.value() : HttpStatus.INTERNAL_SERVER_ERROR.value())
+            .message("เกิดข้อผิดพลาดในการสร้าง PDF: " + error.getMessage());
+    }
+
+    /**
+     * เขียน PDF เป็น entry แบบ STORED
+     *
+     * stream ใน PDF ถูก Flate ไว้แล้ว (และ object streams ตาม PdfOutputProfile) การ deflate ซ้ำได้ขนาดลดลงน้อย
+     * แต่เสีย CPU ต่อทุก byte - ขนาดและ CRC คำนวณจาก bytes ที่มีอยู่แล้ว
+     */
+    private static void writeStoredEntry(ZipOutputStream zip, String name, byte[] pdfBytes) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(pdfBytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(pdfBytes.length);
+        entry.setCompressedSize(pdfBytes.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(pdfBytes);
+        zip.closeEntry();
+    }
+
+    /**
+     * ชื่อ entry จาก bookNo หรือ guid (ตัดอักขระที่ใช้ในชื่อไฟล์ไม่ได้) ไม่ซ้ำกันภายใน archive
+     */
+    private static String entryName(int index, GeneratePdfRequest request, Set<String> usedNames) {
+        String base = null;
+        if (request != null) {
+            base = sanitizeFileName(request.getBookNo());
+            if (base == null) {
+                base = sanitizeFileName(request.getGuid());
+            }
+        }
+        if (base == null) {
+            base = "memo-" + (index + 1);
+        }
+
+        String name = base + ".pdf";
+        for (int n = 2; !usedNames.add(name); n++) {
+            name = base + "-" + n + ".pdf";
+        }
+        return name;
+    }
+
+    private static String sanitizeFileName(String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = UNSAFE_FILE_NAME_CHARS.matcher(value).replaceAll("_").trim();
+        // ไม่ให้ขึ้นต้นด้วย '.' (ไฟล์ซ่อน หรือ "..")
+        while (name.startsWith(".")) {
+            name = name.substring(1);
+        }
+        return name.isEmpty() ? null : name;
+    }
+
+    private Iterator<BatchItem> readNdjson(InputStream input) throws IOException {
+        MappingIterator<GeneratePdfRequest> requests = objectMapper.readerFor(GeneratePdfRequest.class)
+            .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .readValues(input);
+        return new ParsedRequests(requests);
+    }
+
+    private static Iterator<BatchItem> items(Iterable<GeneratePdfRequest> requests) {
+        Iterator<GeneratePdfRequest> iterator = requests.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public BatchItem next() {
+                return new BatchItem(iterator.next(), null);
+            }
+        };
+    }
+
+    /**
+     * รายการหนึ่งใน batch (request ที่ parse แล้ว หรือ error ของการ parse)
+     */
+    private record BatchItem(GeneratePdfRequest request, Exception parseError) {
+    }
+
+    /**
+     * อ่าน NDJSON ทีละบรรทัด ถ้า parse ไม่ได้จะคืน error เป็นรายการสุดท้าย
+     */
+    private static final class ParsedRequests implements Iterator<BatchItem> {
+
+        private final MappingIterator<GeneratePdfRequest> requests;
+        private boolean failed;
+
+        ParsedRequests(MappingIterator<GeneratePdfRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failed) {
+                return false;
+            }
+            try {
+                return requests.hasNextValue();
+            } catch (IOException e) {
+                // ให้ next() รายงาน error นี้เป็นรายการหนึ่ง
+                return true;
+            }
+        }
+
+        @Override
+        public BatchItem next() {
+            if (failed) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return new BatchItem(requests.nextValue(), null);
+            } catch (IOException e) {
+                failed = true;
+                return new BatchItem(null, new IOException("อ่าน request ไม่ได้: " + originalMessage(e), e));
+            }
+        }
+
+        private static String originalMessage(IOException e) {
+            return e instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.GlyphWidthTable;
+
+/**
+ * Registry สำหรับเก็บ TrueType fonts ที่ parse แล้ว (ใช้ร่วมกันทั้ง process)
+ *
+ * เดิม: ทุก request อ่านไฟล์ .ttf จาก classpath และเรียก PDType0Font.load ซึ่ง parse font ใหม่ทุกครั้ง
+ * ใหม่: parse แต่ละ font ครั้งเดียวตอน startup แล้ว bind เข้ากับ PDDocument ใหม่แต่ละฉบับ
+ *       ต้นทุนต่อ request จึงเหลือเพียงการ subset ตอน save
+ *
+ * Thread-safety:
+ * - TrueTypeFont ของ FontBox ล็อกการอ่าน table/glyph ภายในเองอยู่แล้ว
+ * - registry อ่าน table ที่ใช้บ่อยล่วงหน้า (warm up) เพื่อไม่ให้เกิด lazy read ระหว่าง request
+ * - PDType0Font ที่ได้จาก bind() เป็นของ document นั้นๆ เท่านั้น ห้ามใช้ข้าม document
+ *
+ * นอกจากนี้ยังสร้าง GlyphWidthTable ของแต่ละ font ไว้ล่วงหน้า สำหรับวัดความกว้างข้อความแบบเร็ว
+ */
+@Slf4j
+@Service
+public class FontRegistry {
+
+    public static final String FONT_REGULAR = "fonts/THSarabunNew.ttf";
+    public static final String FONT_BOLD = "fonts/THSarabunNew Bold.ttf";
+    public static final String FONT_ITALIC = "fonts/THSarabunNew Italic.ttf";
+    public static final String FONT_BOLD_ITALIC = "fonts/THSarabunNew BoldItalic.ttf";
+
+    // fonts ที่โหลดล่วงหน้าตอน startup (italic ใช้กับเนื้อหาที่มีตัวเน้นจาก editor)
+    private static final List<String> PRELOAD_FONTS = List.of(FONT_REGULAR, FONT_BOLD, FONT_ITALIC, FONT_BOLD_ITALIC);
+
+    private final Map<String, TrueTypeFont> fonts = new ConcurrentHashMap<>();
+    
+    // ตารางความกว้าง key ด้วยชื่อ font (BaseFont) เพื่อให้หาได้จาก PDFont โดยตรง
+    private final Map<String, GlyphWidthTable> widthTables = new ConcurrentHashMap<>();
+
+    /**
+     * โหลด fonts หลักล่วงหน้าตอน startup
+     */
+    @PostConstruct
+    public void preload() throws IOException {
+        for (String fontPath : PRELOAD_FONTS) {
+            getTrueTypeFont(fontPath);
+        }
+        log.info("Font registry ready: {} fonts parsed", fonts.size());
+    }
+
+    /**
+     * Bind font ที่ parse แล้วเข้ากับ document (ไม่ parse ใหม่)
+     *
+     * @param document PDF document ที่จะใช้ font
+     * @param fontPath path ของ font ใน classpath
+     * @return PDFont สำหรับ document นี้ (embed แบบ subset)
+     */
+    public PDFont bind(PDDocument document, String fontPath) throws IOException {
+        return PDType0Font.load(document, getTrueTypeFont(fontPath), true);
+    }
+
+    /**
+     * ดึงตารางความกว้างของ font ที่ bind จาก registry นี้
+     *
+     * @param font font ที่ได้จาก bind()
+     * @return ตารางความกว้าง หรือ null ถ้าไม่ใช่ font จาก registry
+     */
+    public GlyphWidthTable widthsOf(PDFont font) {
+        String name = font.getName();
+        if (name == null) {
+            return null;
+        }
+        // หลัง save ชื่อ font จะมี subset tag นำหน้า เช่น "ABCDEF+THSarabunNew"
+        int plus = name.indexOf('+');
+        if (plus == 6) {
+            name = name.substring(plus + 1);
+        }
+        return widthTables.get(name);
+    }
+    
+    /**
+     * ดึง TrueTypeFont ที่ parse แล้ว (parse ครั้งแรกถ้ายังไม่มีใน registry)
+     */
+    public TrueTypeFont getTrueTypeFont(String fontPath) throws IOException {
+        TrueTypeFont ttf = fonts.get(fontPath);
+        if (ttf != null) {
+            return ttf;
+        }
+        synchronized (fonts) {
+            ttf = fonts.get(fontPath);
+            if (ttf == null) {
+                ttf = parse(fontPath);
+                buildWidthTable(ttf);
+                fonts.put(fontPath, ttf);
+            }
+            return ttf;
+        }
+    }
+
+    /**
+     * ปิด fonts ทั้งหมดตอน shutdown
+     */
+    @PreDestroy
+    public void close() {
+        for (TrueTypeFont ttf : fonts.values()) {
+            try {
+                ttf.close();
+            } catch (IOException e) {
+                log.warn("Failed to close font: {}", e.getMessage());
+            }
+        }
+        fonts.clear();
+        widthTables.clear();
+    }
+
+    private TrueTypeFont parse(String fontPath) throws IOException {
+        log.debug("Parsing Thai font from: {}", fontPath);
+        ClassPathResource resource = new ClassPathResource(fontPath);
+        if (!resource.exists()) {
+            log.error("Font file not found in classpath: {}", fontPath);
+            throw new IOException("ไม่พบไฟล์ฟอนต์: " + fontPath);
+        }
+
+        byte[] fontBytes;
+        try (InputStream is = resource.getInputStream()) {
+            fontBytes = is.readAllBytes();
+        }
+
+        TrueTypeFont ttf = new TTFParser().parse(new RandomAccessReadBuffer(fontBytes));
+        warmUp(ttf);
+        log.info("Font parsed: {} ({} glyphs, {} bytes)", fontPath, ttf.getNumberOfGlyphs(), fontBytes.length);
+        return ttf;
+    }
+
+    /**
+     * สร้างตารางความกว้างจาก font ที่ bind กับ document ชั่วคราว
+     * (ค่าที่ได้ตรงกับ PDFont.getStringWidth ของ font ที่ใช้จริงในแต่ละ request)
+     */
+    private void buildWidthTable(TrueTypeFont ttf) throws IOException {
+        try (PDDocument scratch = new PDDocument()) {
+            PDFont font = PDType0Font.load(scratch, ttf, true);
+            widthTables.put(font.getName(), GlyphWidthTable.build(font));
+        }
+    }
+    
+    /**
+     * อ่าน tables ที่ PDType0Font และ subsetter ใช้ล่วงหน้า
+     * เพื่อให้การใช้งานระหว่าง request เป็น read-only
+     */
+    private void warmUp(TrueTypeFont ttf) throws IOException {
+        ttf.getHeader();
+        ttf.getHorizontalHeader();
+        ttf.getHorizontalMetrics();
+        ttf.getMaximumProfile();
+        ttf.getNaming();
+        ttf.getOS2Windows();
+        ttf.getPostScript();
+        ttf.getIndexToLocation();
+        ttf.getGlyph();
+        ttf.getCmap();
+        ttf.getUnicodeCmapLookup();
+        ttf.getGsubData();
+    }
+}
@@ -1,25 +1,23 @@
 package th.go.etda.sarabun.pdf.service;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import th.go.etda.sarabun.pdf.model.ApiResponse;
+import th.go.etda.sarabun.pdf.model.Base64Pdf;
 import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
 import th.go.etda.sarabun.pdf.model.PdfResult;
 import th.go.etda.sarabun.pdf.util.HtmlUtils;
+import th.go.etda.sarabun.pdf.util.StyledText;
 
 /**
  * PDF Generation Service
@@ -48,6 +46,27 @@ import th.go.etda.sarabun.pdf.util.HtmlUtils;
 public class GeneratePdfService {
     
     private final PdfService pdfService;
+    private final MemoRenderPool renderPool;
+    private final PdfMerger pdfMerger;
+    
+    // ผลแปลง HTML ของ BookContent (preview ซ้ำโดยไม่แก้เนื้อหาไม่ต้อง parse ใหม่)
+    private final HtmlTextCache htmlTextCache;
+    
+    // true = สร้างทุกฉบับใน PDDocument เดียว, false = สร้างแยกฉบับแล้วรวมด้วย mergePdfFiles (แบบเดิม)
+    // ฉบับรองสร้างพร้อมกันบน MemoRenderPool เฉพาะเมื่อเป็น false (ดู assembleSingleDocument)
+    @Value("${pdf.single-document-assembly:true}")
+    private boolean singleDocumentAssembly;
+    
+    // HTML ที่ยาวเกินนี้ (ตัวอักษร) แปลงแบบ stream ไม่สร้าง DOM ทั้งก้อน (-1 = ใช้ DOM เสมอ)
+    @Value("${pdf.html.streaming-threshold:65536}")
+    private int htmlStreamingThreshold;
+    
+    // ขีดจำกัดของ HTML จาก editor ตรวจก่อน parse (ตัวอักษร / ชั้นของ tag, -1 = ไม่จำกัด)
+    @Value("${pdf.html.max-length:1000000}")
+    private int htmlMaxLength;
+    
+    @Value("${pdf.html.max-depth:256}")
+    private int htmlMaxDepth;
     
     // Constants จากโค้ดเดิม - BookNameId ที่ต้องจัดการพิเศษ
     private static final Set<String> SPECIAL_BOOK_NAME_IDS = Set.of(
@@ -79,37 +98,17 @@ public class GeneratePdfService {
      * 2. เพิ่มลายเซ็น (ถ้าต้องการ)
      * 3. รวม PDF ทั้งหมด
      * 4. ส่งกลับเป็น Base64
+     * 
+     * ระหว่างขั้นตอน 1-3 ส่งต่อ PDF เป็น bytes (ไม่ encode/decode Base64 ซ้ำ)
+     * ทุกขั้นตอนรวมถึง save เสร็จก่อนสร้าง response ถ้าล้มเหลวจึงได้ ApiResponse.error (400)
+     * Base64Pdf encode Base64 ทีละช่วงตอนเขียน JSON ไม่สร้าง Base64 ทั้งก้อน (ผลลัพธ์ใน JSON เหมือนเดิมทุก byte)
      */
-    public ApiResponse<String> previewPdf(GeneratePdfRequest request) {
+    public ApiResponse<Base64Pdf> previewPdf(GeneratePdfRequest request) {
         try {
-            log.info("Starting PDF generation for BookNameId: {}", request.getBookNameId());
-            
-            // 1. สร้าง PDF array
-            List<PdfResult> pdfArray;
-            
-            if (!isSkipMainPdfGeneration(request.getBookNameId())) {
-                pdfArray = generatePdfArray(request);
-            } else {
-                // กรณีพิเศษ: เอกสารบันทึกข้อความรองอย่างเดียว
-                pdfArray = new ArrayList<>();
-                pdfArray.add(PdfResult.builder()
-                    .pdfBase64("")
-                    .type("Other")
-                    .description("บันทึกข้อความรอง")
-                    .build());
-            }
-            
-            // 2. เพิ่มลายเซ็น (ถ้ามี)
-            if (hasSignatureData(request)) {
-                log.info("Adding signatures to PDF");
-                pdfArray = addSignaturesToPdfs(pdfArray, request);
-            }
-            
-            // 3. รวม PDF
-            String finalPdfBase64 = mergePdfArray(pdfArray, request);
+            Base64Pdf finalPdf = Base64Pdf.encode(generatePdf(request));
             
             log.info("PDF generation completed successfully");
-            return ApiResponse.success(finalPdfBase64, "สร้าง PDF สำเร็จ");
+            return ApiResponse.success(finalPdf, "สร้าง PDF สำเร็จ");
             
         } catch (Exception e) {
             log.error("Error generating PDF: ", e);
@@ -117,6 +116,62 @@ public class GeneratePdfService {
         }
     }
     
+    /**
+     * สร้าง PDF และคืนเป็น bytes (สำหรับ endpoint ที่ส่ง application/pdf โดยตรง)
+     * 
+     * @param request ข้อมูลสำหรับสร้าง PDF
+     * @return PDF bytes
+     */
+    public byte[] generatePdfBytes(GeneratePdfRequest request) throws Exception {
+        return generatePdf(request).getPdfBytes();
+    }
+    
+    /**
+     * ขั้นตอน 1-3 ของ previewPdf: สร้าง → เพิ่มลายเซ็น → รวม (ส่งต่อเป็น bytes)
+     * 
+     * ทั้ง render, save (font subset) และการรวมไฟล์อยู่ใน MemoRenderPool.render
+     * โหมด offload จึงทำงาน CPU ทั้งหมดบน pool ส่วน thread ของ request เหลือแค่เขียน bytes ลง response
+     * 
+     * @return PDF ที่ serialize แล้ว (signed = ส่งออก Base64 แบบมี prefix)
+     */
+    public PdfResult generatePdf(GeneratePdfRequest request) throws Exception {
+        return renderPool.render(() -> mergePdfArray(generatePdfParts(request), request));
+    }
+    
+    /**
+     * ขั้นตอน 1-2: สร้าง → เพิ่มลายเซ็น (ยังไม่รวมไฟล์)
+     */
+    private List<PdfResult> generatePdfParts(GeneratePdfRequest request) throws Exception {
+        log.info("Starting PDF generation for BookNameId: {}", request.getBookNameId());
+        
+        // 1. สร้าง PDF array
+        List<PdfResult> pdfArray;
+        
+        if (!isSkipMainPdfGeneration(request.getBookNameId())) {
+            if (singleDocumentAssembly) {
+                // ทุกฉบับอยู่ใน PDDocument เดียว (ลายเซ็นวาดในขั้นตอนเดียวกัน ไม่ต้องรวมไฟล์)
+                return List.of(generateSingleDocument(request));
+            }
+            pdfArray = generatePdfArray(request);
+        } else {
+            // กรณีพิเศษ: เอกสารบันทึกข้อความรองอย่างเดียว
+            pdfArray = new ArrayList<>();
+            pdfArray.add(PdfResult.builder()
+                .pdfBytes(new byte[0])
+                .type("Other")
+                .description("บันทึกข้อความรอง")
+                .build());
+        }
+        
+        // 2. เพิ่มลายเซ็น (ถ้ามี)
+        if (hasSignatureData(request)) {
+            log.info("Adding signatures to PDF");
+            pdfArray = addSignaturesToPdfs(pdfArray, request);
+        }
+        
+        return pdfArray;
+    }
+    
     /**
      * ตรวจสอบว่าควรข้าม PDF หลักหรือไม่
      */
@@ -143,9 +198,9 @@ public class GeneratePdfService {
         List<PdfResult> results = new ArrayList<>();
         
         // สร้าง PDF หลัก (บันทึกข้อความ)
-        String mainPdfBase64 = generateMainPdf(request);
+        byte[] mainPdf = generateMainPdf(request);
         results.add(PdfResult.builder()
-            .pdfBase64(mainPdfBase64)
+            .pdfBytes(mainPdf)
             .type("Main")
             .description("หนังสือบันทึกข้อความหลัก")
             .build());
@@ -159,6 +214,70 @@ public class GeneratePdfService {
         return results;
     }
     
+    /**
+     * สร้างบันทึกข้อความหลักและรองทั้งหมดใน PDDocument เดียว (single-document assembly)
+     * 
+     * เดิม: แต่ละฉบับเป็น PDF แยก (embed font subset ซ้ำทุกฉบับ) แล้ว mergePdfFiles parse ใหม่เพื่อรวม
+     * ใหม่: ทุกฉบับเป็นช่วงหน้าของ document เดียวกัน ใช้ font resource ร่วมกัน และ save ครั้งเดียว
+     * 
+     * ลำดับหน้า การเพิ่มลายเซ็นต่อฉบับ และรูปแบบผลลัพธ์ (prefix) เหมือนแบบเดิม
+     */
+    private PdfResult generateSingleDocument(GeneratePdfRequest request) throws Exception {
+        try (MemoDocument memoDocument = pdfService.createMemoDocument()) {
+            boolean signed = assembleSingleDocument(request, memoDocument);
+            return PdfResult.builder()
+                .pdfBytes(memoDocument.toBytes())
+                .signed(signed)
+                .type("Main")
+                .description("หนังสือบันทึกข้อความหลัก")
+                .build();
+        }
+    }
+    
+    /**
+     * ต่อบันทึกข้อความหลัก รอง และลายเซ็นทั้งหมดลงใน memoDocument
+     * 
+     * @return true ถ้าผลลัพธ์ต้องมี prefix (เพิ่มลายเซ็นแล้วหรือมีมากกว่าหนึ่งฉบับ) ดู PdfResult.signed
+     */
+    private boolean assembleSingleDocument(GeneratePdfRequest request, MemoDocument memoDocument) throws Exception {
+        List<MemoDocument.PageRange> ranges = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        
+        // บันทึกข้อความหลัก
+        ranges.add(appendMemo(memoDocument, buildMainMemo(request)));
+        types.add("Main");
+        
+        // บันทึกข้อความรอง (ถ้ามี) - ทีละฉบับ เพราะ PDDocument และ font subset ที่ใช้ร่วมกันไม่ thread-safe
+        // ไม่แยก document ต่อฉบับเพื่อสร้างพร้อมกัน: แต่ละฉบับต้อง embed font subset และ save เอง
+        // (วัดที่ 50 ฉบับ: document เดียว 292 ms / 0.72 MB, แยกแล้วรวม 2,019 ms / 2.8 MB)
+        // จึงต้องใช้ราว 7 core ขึ้นไปจึงจะเร็วกว่า และไฟล์ใหญ่ขึ้น 4 เท่า
+        // ต้องการสร้างพร้อมกันให้ตั้ง pdf.single-document-assembly=false
+        if (needsSecondaryPdfs(request)) {
+            for (var learner : request.getSubDetail().getSubDetailLearner()) {
+                ranges.add(appendMemo(memoDocument, buildSecondaryMemo(request, learner)));
+                types.add("Other");
+            }
+        }
+        
+        // เพิ่มลายเซ็น (ถ้ามี) - จากฉบับสุดท้ายย้อนขึ้นมา เพราะหน้าที่เพิ่มจะเลื่อนช่วงหน้าของฉบับถัดไป
+        boolean signed = false;
+        if (hasSignatureData(request)) {
+            log.info("Adding signatures to PDF");
+            for (int i = ranges.size() - 1; i >= 0; i--) {
+                try {
+                    pdfService.addSignatureFields(memoDocument, ranges.get(i),
+                                                  buildSignatureFields(request, types.get(i)));
+                    signed = true;
+                } catch (Exception e) {
+                    log.warn("Failed to add signature to PDF {}: {}", i, e.getMessage());
+                }
+            }
+        }
+        
+        log.info("Assembled {} memos into one document ({} pages)", ranges.size(), memoDocument.getNumberOfPages());
+        return signed || ranges.size() > 1;
+    }
+    
     /**
      * ตรวจสอบว่าต้องการ PDF รองหรือไม่
      */
@@ -174,8 +293,15 @@ public class GeneratePdfService {
     /**
      * สร้าง PDF หลัก
      */
-    private String generateMainPdf(GeneratePdfRequest request) throws Exception {
+    private byte[] generateMainPdf(GeneratePdfRequest request) throws Exception {
         log.debug("Generating main PDF");
+        return renderMemo(buildMainMemo(request));
+    }
+    
+    /**
+     * รวบรวมข้อมูลบันทึกข้อความหลักจาก request
+     */
+    private MemoFields buildMainMemo(GeneratePdfRequest request) {
         
         // รวบรวมข้อมูลสำหรับสร้าง PDF
         String govName = request.getDivisionName() != null ? request.getDivisionName() : 
@@ -198,28 +324,23 @@ public class GeneratePdfService {
                 .collect(Collectors.joining("\n"));
         }
         
-        // รวบรวมเนื้อหาทั้งหมด (รวม title และ content ของแต่ละรายการ)
-        StringBuilder contentBuilder = new StringBuilder();
+        // รวบรวมเนื้อหาทั้งหมด (รวม title และ content ของแต่ละรายการ) พร้อมตัวหนา/ตัวเอียง/ขีดเส้นใต้จาก editor
+        StyledText.Builder contentBuilder = new StyledText.Builder();
         if (request.getBookContent() != null && !request.getBookContent().isEmpty()) {
             for (var item : request.getBookContent()) {
                 // เพิ่ม title (ถ้ามี) - แปลง HTML เป็น text
                 if (item.getBookContentTitle() != null && !item.getBookContentTitle().isEmpty()) {
-                    String title_text = HtmlUtils.isHtml(item.getBookContentTitle()) 
-                        ? HtmlUtils.htmlToPlainText(item.getBookContentTitle())
-                        : item.getBookContentTitle();
-                    contentBuilder.append(title_text).append("  ");
+                    appendContentText(contentBuilder, item.getBookContentTitle());
+                    contentBuilder.append("  ");
                 }
                 // เพิ่ม content - แปลง HTML เป็น text (ถ้ามาจาก editor)
                 if (item.getBookContent() != null && !item.getBookContent().isEmpty()) {
-                    String content_text = HtmlUtils.isHtml(item.getBookContent())
-                        ? HtmlUtils.htmlToPlainText(item.getBookContent())
-                        : item.getBookContent();
-                    contentBuilder.append(content_text);
+                    appendContentText(contentBuilder, item.getBookContent());
                 }
                 contentBuilder.append("\n\n");
             }
         }
-        String content = contentBuilder.toString().trim();
+        StyledText content = contentBuilder.build().trim();
         
         log.info("generateMainPdf - govName: {}, title: {}, content length: {}", 
                 govName, title, content.length());
@@ -242,67 +363,119 @@ public class GeneratePdfService {
             }
         }
         
-        // เรียก PdfService สร้าง PDF
-        return pdfService.generateOfficialMemoPdf(
-            govName,
-            dateThai,
-            request.getBookNo(),  // เพิ่ม bookNo
-            title,
-            recipients,
-            content,
-            request.getSpeedLayer(),
-            request.getFormatPdf(),
-            signatures,
-            null  // signatureImagePaths - ไม่มีรูปภาพในการเรียกปกติ
-        );
+        return MemoFields.builder()
+            .govName(govName)
+            .date(dateThai)
+            .bookNo(request.getBookNo())  // เพิ่ม bookNo
+            .title(title)
+            .recipients(recipients)
+            .content(content)
+            .speedLayer(request.getSpeedLayer())
+            .formatPdf(request.getFormatPdf())
+            .signatures(signatures)
+            .signatureImagePaths(null)  // ไม่มีรูปภาพในการเรียกปกติ
+            .build();
+    }
+    
+    /**
+     * ต่อ text ของ title/content ลง contentBuilder (แปลง HTML เป็น text พร้อม style ถ้ามาจาก editor)
+     * 
+     * ผลแปลง HTML มาจาก HtmlTextCache ถ้าเคยแปลง HTML เดียวกันแล้ว
+     * HTML ที่ยาวหรือซ้อนลึกเกิน pdf.html.max-length / pdf.html.max-depth ถูกปฏิเสธก่อน parse
+     */
+    private void appendContentText(StyledText.Builder contentBuilder, String value) {
+        if (!HtmlUtils.isHtml(value)) {
+            contentBuilder.append(value);
+        } else {
+            HtmlUtils.checkLimits(value, htmlMaxLength, htmlMaxDepth);
+            contentBuilder.append(htmlTextCache.get(value, this::convertHtml));
+        }
+    }
+    
+    /**
+     * แปลง HTML เป็นข้อความพร้อม style (เมื่อไม่มีใน cache)
+     * 
+     * HTML ขนาดใหญ่ (เกิน pdf.html.streaming-threshold) แปลงแบบ stream
+     * ผลลัพธ์เหมือน htmlToStyledText แต่ไม่ต้องสร้าง DOM ทั้งก้อน
+     */
+    private StyledText convertHtml(String html) {
+        if (htmlStreamingThreshold >= 0 && html.length() > htmlStreamingThreshold) {
+            StyledText.Builder text = new StyledText.Builder(html.length() / 2);
+            HtmlUtils.appendStyledText(html, text);
+            return text.build();
+        }
+        return HtmlUtils.htmlToStyledText(html);
     }
     
     /**
      * สร้าง PDF รอง (สำหรับบันทึกข้อความรอง)
+     * 
+     * สร้างแต่ละฉบับพร้อมกันบน MemoRenderPool (จำกัดจำนวน worker ต่อ request) ผลลัพธ์เรียงตามลำดับผู้ทราบเดิม
      */
     private List<PdfResult> generateSecondaryPdfs(GeneratePdfRequest request) throws Exception {
         log.debug("Generating secondary PDFs");
         
-        List<PdfResult> results = new ArrayList<>();
-        
-        if (request.getSubDetail() != null && 
-            request.getSubDetail().getSubDetailLearner() != null) {
-            
-            int index = 0;
-            for (var learner : request.getSubDetail().getSubDetailLearner()) {
-                String secondaryPdf = generateSecondaryPdf(request, learner, index);
-                results.add(PdfResult.builder()
-                    .pdfBase64(secondaryPdf)
-                    .type("Other")
-                    .description("บันทึกข้อความรอง " + (index + 1))
-                    .build());
-                index++;
-            }
+        if (request.getSubDetail() == null || 
+            request.getSubDetail().getSubDetailLearner() == null) {
+            return new ArrayList<>();
         }
         
-        return results;
+        return renderPool.renderAll(request.getSubDetail().getSubDetailLearner(), (learner, index) ->
+            PdfResult.builder()
+                .pdfBytes(generateSecondaryPdf(request, learner, index))
+                .type("Other")
+                .description("บันทึกข้อความรอง " + (index + 1))
+                .build());
     }
     
     /**
      * สร้าง PDF รองแต่ละฉบับ
      */
-    private String generateSecondaryPdf(GeneratePdfRequest request, 
+    private byte[] generateSecondaryPdf(GeneratePdfRequest request, 
                                        GeneratePdfRequest.BookSubDetail.SubDetailLearner learner,
                                        int index) throws Exception {
         // Implementation สำหรับสร้าง PDF รอง
         // ใช้ PdfService เหมือนกับ main PDF
-        return pdfService.generateOfficialMemoPdf(
-            request.getSubDetail() != null ? "สำนักงาน" : "",
-            request.getDateThai(),
-            "",  // bookNo สำหรับ PDF รอง
-            "บันทึกข้อความรอง",
-            learner.getDetail(),
-            "",
-            request.getSpeedLayerOther(),
-            request.getFormatPdf(),
-            new ArrayList<>(),  // PDF รองไม่มีลายเซ็น (diamond operator)
-            null  // signatureImagePaths - ไม่มีรูปภาพสำหรับ PDF รอง
-        );
+        return renderMemo(buildSecondaryMemo(request, learner));
+    }
+    
+    /**
+     * รวบรวมข้อมูลบันทึกข้อความรองของผู้ทราบหนึ่งราย
+     */
+    private MemoFields buildSecondaryMemo(GeneratePdfRequest request,
+                                          GeneratePdfRequest.BookSubDetail.SubDetailLearner learner) {
+        return MemoFields.builder()
+            .govName(request.getSubDetail() != null ? "สำนักงาน" : "")
+            .date(request.getDateThai())
+            .bookNo("")  // bookNo สำหรับ PDF รอง
+            .title("บันทึกข้อความรอง")
+            .recipients(learner.getDetail())
+            .content(StyledText.plain(""))
+            .speedLayer(request.getSpeedLayerOther())
+            .formatPdf(request.getFormatPdf())
+            .signatures(new ArrayList<>())  // PDF รองไม่มีลายเซ็น
+            .signatureImagePaths(null)  // ไม่มีรูปภาพสำหรับ PDF รอง
+            .build();
+    }
+    
+    /**
+     * สร้างบันทึกข้อความเป็น PDF แยกฉบับ
+     */
+    private byte[] renderMemo(MemoFields memo) throws Exception {
+        return pdfService.generateOfficialMemoPdfBytes(
+            memo.getGovName(), memo.getDate(), memo.getBookNo(), memo.getTitle(),
+            memo.getRecipients(), memo.getContent(), memo.getSpeedLayer(), memo.getFormatPdf(),
+            memo.getSignatures(), memo.getSignatureImagePaths());
+    }
+    
+    /**
+     * ต่อท้ายบันทึกข้อความลงใน document ที่รวมทุกฉบับ
+     */
+    private MemoDocument.PageRange appendMemo(MemoDocument memoDocument, MemoFields memo) throws Exception {
+        return pdfService.appendOfficialMemo(memoDocument,
+            memo.getGovName(), memo.getDate(), memo.getBookNo(), memo.getTitle(),
+            memo.getRecipients(), memo.getContent(), memo.getSpeedLayer(), memo.getFormatPdf(),
+            memo.getSignatures(), memo.getSignatureImagePaths());
     }
     
     /**
@@ -320,15 +493,16 @@ public class GeneratePdfService {
             PdfResult pdf = pdfArray.get(i);
             
             try {
-                String signedPdf = addSignatureFieldsToPdf(
-                    pdf.getPdfBase64(),
+                byte[] signedPdf = addSignatureFieldsToPdf(
+                    pdf.getPdfBytes(),
                     request,
                     pdf.getType(),
                     i
                 );
                 
                 results.add(PdfResult.builder()
-                    .pdfBase64(signedPdf)
+                    .pdfBytes(signedPdf)
+                    .signed(true)
                     .type(pdf.getType())
                     .description(pdf.getDescription())
                     .build());
@@ -346,39 +520,12 @@ public class GeneratePdfService {
     /**
      * เพิ่มลายเซ็นให้กับ PDF
      */
-    private String addSignatureFieldsToPdf(String pdfBase64, 
+    private byte[] addSignatureFieldsToPdf(byte[] pdfBytes, 
                                           GeneratePdfRequest request,
                                           String type,
                                           int index) throws Exception {
-        // แปลง Base64 เป็น bytes
-        byte[] pdfBytes = decodeBase64Pdf(pdfBase64);
-        
-        // สร้างไฟล์ชั่วคราว
-        Path tempDir = Files.createTempDirectory("sarabun_pdf");
-        Path inputFile = tempDir.resolve("input.pdf");
-        Path outputFile = tempDir.resolve("output.pdf");
-        
-        try {
-            // เขียนไฟล์
-            Files.write(inputFile, pdfBytes);
-            
-            // เรียก PdfService เพื่อเพิ่มลายเซ็น
-            pdfService.addSignatureFields(
-                inputFile.toFile(),
-                outputFile.toFile(),
-                buildSignatureFields(request, type)
-            );
-            
-            // อ่านผลลัพธ์
-            byte[] resultBytes = Files.readAllBytes(outputFile);
-            return "data:application/pdf;base64," + Base64.getEncoder().encodeToString(resultBytes);
-            
-        } finally {
-            // ลบไฟล์ชั่วคราว
-            deleteQuietly(inputFile);
-            deleteQuietly(outputFile);
-            deleteQuietly(tempDir);
-        }
+        // เพิ่มลายเซ็นในหน่วยความจำ (ไม่ใช้ไฟล์ชั่วคราว)
+        return pdfService.addSignatureFields(pdfBytes, buildSignatureFields(request, type));
     }
     
     /**
@@ -472,16 +619,29 @@ public class GeneratePdfService {
      * 
      * แปลงมาจาก: MergeMultiplePdfFiles() method
      */
-    private String mergePdfArray(List<PdfResult> pdfArray, GeneratePdfRequest request) throws Exception {
+    private PdfResult mergePdfArray(List<PdfResult> pdfArray, GeneratePdfRequest request) throws Exception {
         if (pdfArray.isEmpty()) {
             throw new IllegalArgumentException("PDF array is empty");
         }
         
         if (pdfArray.size() == 1) {
             // มี PDF เดียว
-            return pdfArray.get(0).getPdfBase64();
+            return pdfArray.get(0);
         }
         
+        // รวม PDFs (ผลลัพธ์ที่รวมแล้วส่งออกแบบมี prefix เหมือนที่ผ่านขั้นลายเซ็น)
+        return PdfResult.builder()
+            .pdfBytes(mergePdfFiles(orderForMerge(pdfArray)))
+            .signed(true)
+            .type("Main")
+            .description("PDF ที่รวมแล้ว")
+            .build();
+    }
+    
+    /**
+     * เรียง PDF สำหรับรวม: PDF หลักก่อน ตามด้วย PDF รองตามลำดับเดิม
+     */
+    private List<byte[]> orderForMerge(List<PdfResult> pdfArray) {
         // หา PDF หลักและรอง
         PdfResult mainPdf = pdfArray.stream()
             .filter(p -> "Main".equals(p.getType()))
@@ -493,81 +653,48 @@ public class GeneratePdfService {
             .collect(Collectors.toList());
         
         // สร้างรายการ PDF ที่จะรวม
-        List<String> pdfsToMerge = new ArrayList<>();
+        List<byte[]> pdfsToMerge = new ArrayList<>();
         
         if (mainPdf != null) {
-            pdfsToMerge.add(cleanBase64Prefix(mainPdf.getPdfBase64()));
+            pdfsToMerge.add(mainPdf.getPdfBytes());
         }
         
         for (PdfResult other : otherPdfs) {
-            pdfsToMerge.add(cleanBase64Prefix(other.getPdfBase64()));
+            pdfsToMerge.add(other.getPdfBytes());
         }
         
-        // รวม PDFs
-        String mergedBase64 = mergePdfFiles(pdfsToMerge);
-        return "data:application/pdf;base64," + mergedBase64;
+        return pdfsToMerge;
     }
     
     /**
-     * รวม PDF files โดยใช้ PDFBox
+     * รวม PDF files โดยใช้ PDFBox (จำกัด heap ด้วย scratch file ดู PdfMerger)
      */
-    private String mergePdfFiles(List<String> base64Pdfs) throws Exception {
-        List<PDDocument> documents = new ArrayList<>();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        
-        try {
-            // โหลด PDF ทั้งหมด
-            for (String base64Pdf : base64Pdfs) {
-                byte[] pdfBytes = Base64.getDecoder().decode(base64Pdf);
-                PDDocument doc = org.apache.pdfbox.Loader.loadPDF(pdfBytes);
-                documents.add(doc);
-            }
-            
-            // Merge PDFs - วิธีง่ายๆ คือเพิ่มทุกหน้าเข้าใน document เดียว
-            PDDocument resultDoc = new PDDocument();
-            for (PDDocument doc : documents) {
-                for (int i = 0; i < doc.getNumberOfPages(); i++) {
-                    resultDoc.addPage(doc.getPage(i));
-                }
-            }
-            
-            // Save to output stream
-            resultDoc.save(outputStream);
-            resultDoc.close();
-            
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-            
-        } finally {
-            // ปิด documents ทั้งหมด
-            for (PDDocument doc : documents) {
-                try { doc.close(); } catch (Exception ignored) {}
-            }
-            outputStream.close();
-        }
-    }
-    
-    // Utility methods
-    
-    private byte[] decodeBase64Pdf(String base64) {
-        String cleanBase64 = cleanBase64Prefix(base64);
-        return Base64.getDecoder().decode(cleanBase64);
-    }
-    
-    private String cleanBase64Prefix(String base64) {
-        if (base64.startsWith("data:application/pdf;base64,")) {
-            return base64.substring("data:application/pdf;base64,".length());
+    private byte[] mergePdfFiles(List<byte[]> pdfs) throws Exception {
+        int totalSize = 0;
+        for (byte[] pdf : pdfs) {
+            totalSize += pdf.length;
         }
-        return base64;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(totalSize);
+        pdfMerger.merge(pdfs, outputStream);
+        return outputStream.toByteArray();
     }
     
-    private void deleteQuietly(Path path) {
-        try {
-            if (Files.exists(path)) {
-                Files.delete(path);
-            }
-        } catch (IOException e) {
-            log.warn("Failed to delete file: {}", path, e);
-        }
+    /**
+     * ข้อมูลสำหรับสร้างบันทึกข้อความหนึ่งฉบับ (พารามิเตอร์ของ PdfService.generateOfficialMemoPdf)
+     */
+    @lombok.Value
+    @lombok.Builder
+    private static class MemoFields {
+        String govName;
+        String date;
+        String bookNo;
+        String title;
+        String recipients;
+        StyledText content;
+        String speedLayer;
+        String formatPdf;
+        List<String> signatures;
+        List<String> signatureImagePaths;
     }
     
     /**
@@ -0,0 +1,119 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.LruCache;
+import th.go.etda.sarabun.pdf.util.StyledText;
+
+/**
+ * Cache ผลการแปลง HTML จาก editor เป็นข้อความ (StyledText) แบบจำกัดขนาดเป็น bytes (LRU)
+ *
+ * เดิม: ทุกครั้งที่กด preview ทุก BookContent ถูก parse ด้วย jsoup และแปลงใหม่ทั้งหมด
+ *       แม้ผู้ใช้จะกด preview ซ้ำโดยแก้เนื้อหาเพียงเล็กน้อยหรือไม่แก้เลย
+ * ใหม่: key คือ SHA-256 ของ HTML (UTF-16 ทีละช่วง ไม่สร้าง byte[] ทั้งก้อน) + ความยาว
+ *       ส่วนที่ไม่ได้แก้ได้ผลจาก cache โดยไม่ต้อง parse เลย
+ *
+ * ไม่เก็บ HTML ต้นฉบับเป็น key (ประหยัดหน่วยความจำครึ่งหนึ่ง) จึงต้องใช้ hash ที่สร้างค่าชนกันไม่ได้
+ * hash แบบไม่เข้ารหัส (เช่น FNV) ผู้ส่ง HTML คำนวณค่าชนได้ล่วงหน้า แล้วได้ข้อความของเอกสารอื่นกลับไปใน PDF
+ * SHA-256 ใช้เวลาน้อยกว่าการ parse HTML เดียวกันมาก (ดู HtmlConversionBenchmark.cacheHit)
+ *
+ * น้ำหนักของ entry = bytes โดยประมาณของข้อความ (2 bytes/char) + run + overhead ของ entry
+ * ขนาดรวมสูงสุดตั้งได้ด้วย pdf.html-cache.max-size (0 = ปิด cache)
+ * ดู hit rate ได้ที่ /actuator/metrics/cache.gets?tag=cache:htmlText
+ */
+@Slf4j
+@Service
+public class HtmlTextCache {
+
+    public static final String CACHE_NAME = "htmlText";
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // key + node ของ LinkedHashMap + StyledText และ array ว่าง (โดยประมาณ)
+    private static final long ENTRY_OVERHEAD = 160;
+
+    private final LruCache<Key, StyledText> texts;
+    private final boolean enabled;
+
+    public HtmlTextCache(@Value("${pdf.html-cache.max-size:16MB}") DataSize maxSize,
+                         @Value("${pdf.html-cache.max-entries:" + DEFAULT_MAX_ENTRIES + "}") int maxEntries) {
+        long maxBytes = Math.max(0, maxSize.toBytes());
+        this.texts = new LruCache<>(maxEntries, maxBytes, HtmlTextCache::weigh);
+        this.enabled = maxBytes > 0;
+        log.info("HTML text cache: max {} bytes, {} entries", maxBytes, maxEntries);
+    }
+
+    /**
+     * ผลแปลงของ html จาก cache หรือแปลงด้วย converter เมื่อไม่มี
+     *
+     * @param html HTML จาก editor
+     * @param converter ฟังก์ชันแปลง (เรียกเฉพาะเมื่อ cache miss)
+     * @return ข้อความที่แปลงแล้ว (immutable ใช้ร่วมกันได้)
+     */
+    public StyledText get(String html, Function<String, StyledText> converter) {
+        if (!enabled) {
+            return converter.apply(html);
+        }
+        Key key = Key.of(html);
+        StyledText text = texts.get(key);
+        if (text != null) {
+            return text;
+        }
+        return texts.putIfAbsent(key, converter.apply(html));
+    }
+
+    /**
+     * Cache ภายใน (สำหรับผูก metrics)
+     */
+    public LruCache<?, ?> cache() {
+        return texts;
+    }
+
+    private static long weigh(Key key, StyledText text) {
+        // text: 2 bytes/char, run: int + int + byte
+        return ENTRY_OVERHEAD + 2L * text.length() + 9L * text.runCount();
+    }
+
+    /**
+     * SHA-256 ของ HTML (char เป็น UTF-16BE) เก็บเป็น long 4 ค่า + ความยาว
+     */
+    private record Key(long h0, long h1, long h2, long h3, int length) {
+
+        // chars ต่อรอบที่แปลงเป็น bytes ก่อนส่งให้ digest
+        private static final int CHUNK = 4096;
+
+        static Key of(String html) {
+            MessageDigest sha256 = sha256();
+            int length = html.length();
+            byte[] buffer = new byte[2 * Math.min(CHUNK, length)];
+            for (int start = 0; start < length; start += CHUNK) {
+                int end = Math.min(length, start + CHUNK);
+                int n = 0;
+                for (int i = start; i < end; i++) {
+                    char c = html.charAt(i);
+                    buffer[n++] = (byte) (c >>> 8);
+                    buffer[n++] = (byte) c;
+                }
+                sha256.update(buffer, 0, n);
+            }
+            ByteBuffer digest = ByteBuffer.wrap(sha256.digest());
+            return new Key(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong(), length);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // ทุก JRE ต้องมี SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
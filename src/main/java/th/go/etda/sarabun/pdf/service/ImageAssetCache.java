@@ -0,0 +1,97 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.EncodedImage;
+
+/**
+ * Cache รูปภาพ (โลโก้/ตราประทับ) ในรูปแบบ image XObject ที่ encode แล้ว
+ *
+ * เดิม: ทุก request อ่าน PNG จาก classpath แล้วเรียก PDImageXObject.createFromByteArray
+ *       ซึ่ง decode PNG และ compress (Flate) ใหม่ทุกครั้ง
+ * ใหม่: สร้าง image XObject ครั้งเดียวตอน startup แล้วเก็บ snapshot ของ stream ที่ encode แล้ว
+ *       (EncodedImage: raw bytes, Filter, Width/Height, BitsPerComponent, ColorSpace, SMask ฯลฯ)
+ *       การใช้ในแต่ละ document เป็นเพียงการ copy bytes เข้า COSStream ใหม่ (ไม่ decode/encode)
+ */
+@Slf4j
+@Service
+public class ImageAssetCache {
+
+    public static final String LOGO_ETDA = "images/logoETDA.png";
+    public static final String LOGO_MDES = "images/logoMDES.png";
+    public static final String LOGO_THAI_GOV = "images/logoThaiGov.png";
+    public static final String STAMP_ETDA = "images/etda_stamp_red.png";
+    public static final String STAMP_MDES = "images/mdes_stamp_red.png";
+
+    // รูปภาพที่โหลดล่วงหน้าตอน startup
+    private static final List<String> PRELOAD_IMAGES =
+        List.of(LOGO_ETDA, LOGO_MDES, LOGO_THAI_GOV, STAMP_ETDA, STAMP_MDES);
+
+    private final Map<String, EncodedImage> images = new ConcurrentHashMap<>();
+
+    /**
+     * โหลดรูปภาพหลักล่วงหน้าตอน startup
+     */
+    @PostConstruct
+    public void preload() throws IOException {
+        long totalBytes = 0;
+        for (String imagePath : PRELOAD_IMAGES) {
+            totalBytes += getTemplate(imagePath).size();
+        }
+        log.info("Image asset cache ready: {} images ({} bytes encoded)", images.size(), totalBytes);
+    }
+
+    /**
+     * สร้าง image XObject ของรูปภาพใน classpath สำหรับ document (copy จาก snapshot ไม่ decode ใหม่)
+     *
+     * @param document PDF document ที่จะใช้รูปภาพ
+     * @param imagePath path ของรูปภาพใน classpath
+     * @return PDImageXObject สำหรับ document นี้
+     */
+    public PDImageXObject create(PDDocument document, String imagePath) throws IOException {
+        return getTemplate(imagePath).create(document);
+    }
+
+    private EncodedImage getTemplate(String imagePath) throws IOException {
+        EncodedImage template = images.get(imagePath);
+        if (template != null) {
+            return template;
+        }
+        synchronized (images) {
+            template = images.get(imagePath);
+            if (template == null) {
+                template = load(imagePath);
+                images.put(imagePath, template);
+            }
+            return template;
+        }
+    }
+
+    private EncodedImage load(String imagePath) throws IOException {
+        ClassPathResource resource = new ClassPathResource(imagePath);
+        if (!resource.exists()) {
+            log.error("Image file not found in classpath: {}", imagePath);
+            throw new IOException("ไม่พบไฟล์รูปภาพ: " + imagePath);
+        }
+
+        byte[] imageBytes;
+        try (InputStream is = resource.getInputStream()) {
+            imageBytes = is.readAllBytes();
+        }
+
+        EncodedImage template = EncodedImage.encode(imageBytes, imagePath);
+        log.debug("Image cached: {} ({} -> {} bytes)", imagePath, imageBytes.length, template.size());
+        return template;
+    }
+}
@@ -0,0 +1,86 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * PDF document ที่รวมบันทึกข้อความหลายฉบับ โดยใช้ font resource และรูปโลโก้ชุดเดียวกัน
+ *
+ * สร้างด้วย PdfService.createMemoDocument() แล้วต่อท้ายแต่ละฉบับด้วย PdfService.appendOfficialMemo()
+ * แต่ละฉบับได้ PageRange ของตัวเอง (เลขหน้าในเอกสารนับใหม่ต่อฉบับ)
+ *
+ * ไม่ thread-safe (ใช้ภายใน request เดียว) และต้องปิดหลังใช้งาน
+ */
+public final class MemoDocument implements Closeable {
+
+    private final PDDocument document;
+    final MemoFonts fonts;
+    /** โลโก้ที่ทุกฉบับอ้างร่วมกัน (null ถ้าโหลดไม่ได้) */
+    final PDImageXObject logo;
+    private final PdfOutputProfile outputProfile;
+
+    MemoDocument(PDDocument document, MemoFonts fonts, PDImageXObject logo, PdfOutputProfile outputProfile) {
+        this.document = document;
+        this.fonts = fonts;
+        this.logo = logo;
+        this.outputProfile = outputProfile;
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    public int getNumberOfPages() {
+        return document.getNumberOfPages();
+    }
+
+    /**
+     * บันทึกทั้ง document เป็น bytes (ตาม PdfOutputProfile)
+     */
+    public byte[] toBytes() throws IOException {
+        return outputProfile.toBytes(document);
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+
+    /**
+     * ช่วงหน้าของบันทึกข้อความหนึ่งฉบับ [firstPage, endPage) (index เริ่มที่ 0)
+     */
+    public static final class PageRange {
+
+        private final int firstPage;
+        private final int endPage;
+
+        public PageRange(int firstPage, int endPage) {
+            this.firstPage = firstPage;
+            this.endPage = endPage;
+        }
+
+        public int getFirstPage() {
+            return firstPage;
+        }
+
+        public int getEndPage() {
+            return endPage;
+        }
+
+        public int getLastPage() {
+            return endPage - 1;
+        }
+
+        public int getPageCount() {
+            return endPage - firstPage;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + firstPage + ", " + endPage + ")";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import th.go.etda.sarabun.pdf.util.GlyphWidthTable;
+import th.go.etda.sarabun.pdf.util.StyledText;
+
+/**
+ * fonts ของ document หนึ่งฉบับ แยกตาม style ของข้อความ (index = style & StyledText.FONT_STYLES)
+ *
+ * regular กับ bold bind ตอนสร้าง document เสมอ (ใช้กับหัวข้อและฟิลด์)
+ * italic กับ bold italic bind เมื่อเนื้อหามี run ที่ใช้เป็นครั้งแรก - เอกสารที่ไม่มีตัวเอียงจึงไม่ embed font เพิ่ม
+ *
+ * ไม่ thread-safe (เป็นของ document เดียว เหมือน PDFont ที่ได้จาก FontRegistry.bind)
+ */
+final class MemoFonts {
+
+    // index ตาม StyledText: 0 = regular, BOLD = 1, ITALIC = 2, BOLD | ITALIC = 3
+    private static final String[] FONT_PATHS = {
+        FontRegistry.FONT_REGULAR, FontRegistry.FONT_BOLD,
+        FontRegistry.FONT_ITALIC, FontRegistry.FONT_BOLD_ITALIC
+    };
+
+    private final PDDocument document;
+    private final FontRegistry fontRegistry;
+    private final PDFont[] fonts = new PDFont[FONT_PATHS.length];
+    private final GlyphWidthTable[] widths = new GlyphWidthTable[FONT_PATHS.length];
+
+    MemoFonts(PDDocument document, FontRegistry fontRegistry) throws IOException {
+        this.document = document;
+        this.fontRegistry = fontRegistry;
+        bind(0);
+        bind(StyledText.BOLD);
+    }
+
+    PDFont regular() {
+        return fonts[0];
+    }
+
+    PDFont bold() {
+        return fonts[StyledText.BOLD];
+    }
+
+    /**
+     * font ของ style (bind ถ้ายังไม่เคยใช้ใน document นี้)
+     */
+    PDFont font(int style) throws IOException {
+        int index = style & StyledText.FONT_STYLES;
+        return fonts[index] != null ? fonts[index] : bind(index);
+    }
+
+    /**
+     * bind font ของทุก style ที่ text ใช้ แล้วคืน array สำหรับ LineBreaker.reset(StyledText, ...)
+     * (ช่องของ style ที่ไม่ได้ใช้อาจเป็น null)
+     */
+    PDFont[] fontsFor(StyledText text) throws IOException {
+        for (int run = 0; run < text.runCount(); run++) {
+            font(text.runStyle(run));
+        }
+        return fonts;
+    }
+
+    /**
+     * ตารางความกว้าง index เดียวกับ fontsFor (เรียกหลัง fontsFor)
+     */
+    GlyphWidthTable[] widths() {
+        return widths;
+    }
+
+    private PDFont bind(int index) throws IOException {
+        PDFont font = fontRegistry.bind(document, FONT_PATHS[index]);
+        fonts[index] = font;
+        widths[index] = fontRegistry.widthsOf(font);
+        return font;
+    }
+}
@@ -0,0 +1,360 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread pool สำหรับสร้างบันทึกข้อความหลายฉบับพร้อมกัน (ใช้ร่วมกันทุก request)
+ *
+ * เดิม: generateSecondaryPdfs สร้าง PDF รองทีละฉบับ request ที่มีผู้ทราบ 50+ รายใช้ CPU แค่ core เดียว
+ * ใหม่: แบ่งงานให้ worker หลายตัวดึงฉบับถัดไปจากลำดับเดียวกัน แล้วเก็บผลตามตำแหน่งเดิม
+ *
+ * การจำกัดทรัพยากร:
+ * - ขนาด pool: pdf.render-pool.size (0 = จำนวน CPU)
+ * - คิวรอ: pdf.render-pool.queue-capacity ถ้าคิวเต็ม thread ของ request จะสร้างเอง (CallerRunsPolicy)
+ * - ต่อ request: pdf.render-pool.max-per-request จำนวน worker สูงสุด (รวม thread ของ request เอง)
+ *   request ใหญ่จึงไม่กิน pool ทั้งหมดจน request อื่นไม่ได้ทำงาน
+ *
+ * thread ของ request ทำงานเป็น worker ตัวหนึ่งเสมอ จึงไม่ค้างแม้ pool จะไม่ว่าง
+ *
+ * renderAll ใช้กับ PDF รองเฉพาะเมื่อ pdf.single-document-assembly=false
+ * (ค่าเริ่มต้น true วาดทุกฉบับต่อกันใน PDDocument เดียวซึ่งไม่ thread-safe - ดู GeneratePdfService.assembleSingleDocument)
+ * ส่วน renderEach (batch/export), render (offload) และการ parse ใน PdfMerger ใช้ pool ในทุกโหมด
+ *
+ * โหมด offload (pdf.render-pool.offload ค่าเริ่มต้นตาม spring.threads.virtual.enabled):
+ * เมื่อ Tomcat ใช้ virtual thread (Java 21) งาน CPU ของ PDFBox บน virtual thread จะยึด carrier thread
+ * (มีเท่าจำนวน CPU) ไว้ตลอดเวลา render ทำให้ request อื่นที่แค่รอ I/O ไม่ได้ทำงาน จึง:
+ * - render/renderAll ที่เรียกจาก thread อื่นที่ไม่ใช่ของ pool จะส่งงานทั้งก้อนไปทำบน pool แล้วรอผล
+ * - thread ของ request ไม่ทำงานเองเมื่อคิวเต็ม แต่รอที่คิว (virtual thread รอได้โดยไม่กิน carrier)
+ * - thread ของ pool เองยังทำงานแทนเมื่อคิวเต็มเหมือนเดิม (ไม่ deadlock เมื่องานใน pool เรียก renderAll ซ้อน)
+ */
+@Slf4j
+@Service
+public class MemoRenderPool {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_MAX_PER_REQUEST = 4;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxPerRequest;
+    private final boolean offload;
+
+    public MemoRenderPool(@Value("${pdf.render-pool.size:0}") int poolSize,
+                          @Value("${pdf.render-pool.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                          @Value("${pdf.render-pool.max-per-request:" + DEFAULT_MAX_PER_REQUEST + "}") int maxPerRequest,
+                          @Value("${pdf.render-pool.offload:${spring.threads.virtual.enabled:false}}") boolean offload) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.offload = offload;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                                               renderThreadFactory(),
+                                               offload ? new WaitForQueuePolicy() : new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxPerRequest = Math.max(1, maxPerRequest);
+        log.info("Memo render pool: {} threads, queue {}, max {} per request, offload {}",
+                 threads, queueCapacity, this.maxPerRequest, offload);
+    }
+
+    /**
+     * งานสร้างหนึ่งฉบับ
+     *
+     * @param <S> ข้อมูลของฉบับ
+     * @param <T> ผลลัพธ์
+     */
+    @FunctionalInterface
+    public interface RenderTask<S, T> {
+        T render(S item, int index) throws Exception;
+    }
+
+    /**
+     * ทำงาน render หนึ่งงาน
+     *
+     * ปกติทำบน thread ของผู้เรียกเลย ในโหมด offload จะส่งไปทำบน pool แล้วรอผล
+     * (ผู้เรียกที่เป็น thread ของ pool อยู่แล้วทำเองเสมอ)
+     *
+     * @param call งาน render
+     * @return ผลลัพธ์ของงาน
+     */
+    public <T> T render(Callable<T> call) throws Exception {
+        if (!offload || isRenderThread()) {
+            return call.call();
+        }
+
+        Future<T> future = executor.submit(call);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * สร้างทุกฉบับแบบขนาน (ไม่เกิน max-per-request worker) และคืนผลตามลำดับของ items
+     *
+     * ถ้าฉบับใดล้มเหลว worker ที่เหลือจะหยุดรับงานใหม่ และโยน exception ของฉบับนั้นออกไป
+     *
+     * @param items ข้อมูลแต่ละฉบับ
+     * @param task งานสร้างหนึ่งฉบับ (ต้อง thread-safe)
+     * @return ผลลัพธ์ เรียงตาม items
+     */
+    public <S, T> List<T> renderAll(List<S> items, RenderTask<S, T> task) throws Exception {
+        if (offload && !isRenderThread()) {
+            // thread ของ pool ที่รับงานนี้ทำหน้าที่ worker แทนผู้เรียก
+            return render(() -> renderAll(items, task));
+        }
+
+        int size = items.size();
+        int workers = Math.min(Math.min(maxPerRequest, executor.getMaximumPoolSize() + 1), size);
+        if (workers <= 1) {
+            List<T> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                results.add(task.render(items.get(i), i));
+            }
+            return results;
+        }
+
+        Object[] results = new Object[size];
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        Runnable worker = () -> {
+            int i;
+            while (!failed.get() && (i = next.getAndIncrement()) < size) {
+                try {
+                    results[i] = task.render(items.get(i), i);
+                } catch (Exception e) {
+                    failed.set(true);
+                    throw new RenderFailure(e);
+                }
+            }
+        };
+
+        List<Future<?>> futures = new ArrayList<>(workers - 1);
+        for (int w = 1; w < workers; w++) {
+            futures.add(executor.submit(worker));
+        }
+
+        Exception failure = null;
+        try {
+            worker.run();
+        } catch (RenderFailure e) {
+            failure = e.getCause();
+        }
+
+        for (Future<?> future : futures) {
+            // worker ที่ยังอยู่ในคิว (ยังไม่เริ่ม) เอาออกได้เลย ไม่ต้องรอ
+            if (executor.remove((Runnable) future)) {
+                continue;
+            }
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RenderFailure rf ? rf.getCause() : new Exception(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                failed.set(true);
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> ordered = (List<T>) Arrays.asList(results);
+        return ordered;
+    }
+
+    /**
+     * ผลของงานหนึ่งฉบับ (เรียกบน thread ของ request ตามลำดับที่งานเสร็จ)
+     *
+     * @param <S> ข้อมูลของฉบับ
+     * @param <T> ผลลัพธ์
+     */
+    @FunctionalInterface
+    public interface RenderCallback<S, T> {
+        /**
+         * @param result ผลลัพธ์ หรือ null ถ้าล้มเหลว
+         * @param error exception ของฉบับนี้ หรือ null ถ้าสำเร็จ
+         */
+        void completed(int index, S item, T result, Exception error) throws Exception;
+    }
+
+    /**
+     * สร้างทีละฉบับแบบขนาน (ไม่เกิน max-per-request ฉบับพร้อมกัน) และส่งผลให้ callback ทันทีที่แต่ละฉบับเสร็จ
+     *
+     * ต่างจาก renderAll ตรงที่:
+     * - items เป็น Iterator อ่านทีละฉบับเมื่อมีที่ว่าง (เช่น parse จาก request body ระหว่างทำงาน)
+     * - ฉบับที่ล้มเหลวไม่หยุดฉบับอื่น (ส่ง error ให้ callback)
+     * - ผลที่ค้างอยู่ในหน่วยความจำไม่เกิน max-per-request ฉบับ ไม่ว่าจะมีกี่ฉบับ
+     *
+     * callback ถูกเรียกบน thread ของผู้เรียกเท่านั้น (เขียน response ได้โดยไม่ต้อง synchronize)
+     * ถ้า callback โยน exception (เช่น client ตัดการเชื่อมต่อ) จะหยุดอ่าน items และปิดผลที่ค้างอยู่ (ถ้าเป็น AutoCloseable)
+     *
+     * @param items ข้อมูลแต่ละฉบับ
+     * @param task งานสร้างหนึ่งฉบับ (ต้อง thread-safe)
+     * @param callback รับผลแต่ละฉบับ
+     */
+    public <S, T> void renderEach(Iterator<S> items, RenderTask<S, T> task, RenderCallback<S, T> callback) throws Exception {
+        CompletionService<Completed<S, T>> completions = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        int index = 0;
+        boolean finished = false;
+        try {
+            while (true) {
+                while (inFlight < maxPerRequest && items.hasNext()) {
+                    S item = items.next();
+                    int i = index++;
+                    completions.submit(() -> {
+                        try {
+                            return new Completed<>(i, item, task.render(item, i), null);
+                        } catch (Exception e) {
+                            return new Completed<>(i, item, null, e);
+                        }
+                    });
+                    inFlight++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+                Completed<S, T> done = completions.take().get();
+                inFlight--;
+                callback.completed(done.index, done.item, done.result, done.error);
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                discard(completions, inFlight);
+            }
+        }
+    }
+
+    /**
+     * ปิด pool ตอน shutdown
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * รอและปิดผลของงานที่ยังค้างอยู่ (เมื่อหยุดกลางคัน)
+     */
+    private static <S, T> void discard(CompletionService<Completed<S, T>> completions, int inFlight) {
+        for (int i = 0; i < inFlight; i++) {
+            try {
+                Completed<S, T> done = completions.take().get();
+                if (done.result instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ignored) {
+                // ผลที่ถูกทิ้งอยู่แล้ว
+            }
+        }
+    }
+
+    private static boolean isRenderThread() {
+        return Thread.currentThread() instanceof RenderThread;
+    }
+
+    private static ThreadFactory renderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new RenderThread(runnable, "pdf-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * thread ของ pool (ใช้แยกว่าผู้เรียกอยู่บน pool แล้วหรือไม่)
+     */
+    private static final class RenderThread extends Thread {
+
+        RenderThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+
+    /**
+     * เมื่อคิวเต็มในโหมด offload: thread ของ pool ทำงานเอง (เหมือน CallerRunsPolicy)
+     * thread อื่น (เช่น virtual thread ของ request) รอจนคิวมีที่ว่าง
+     */
+    private static final class WaitForQueuePolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Memo render pool is shut down");
+            }
+            if (isRenderThread()) {
+                task.run();
+                return;
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the memo render pool", e);
+            }
+        }
+    }
+
+    private record Completed<S, T>(int index, S item, T result, Exception error) {
+    }
+
+    /**
+     * ห่อ exception ของงานให้ส่งผ่าน Runnable ได้
+     */
+    private static final class RenderFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RenderFailure(Exception cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.model.PdfJobStatus;
+
+/**
+ * งานสร้าง PDF แบบ asynchronous: ส่งงาน → ได้ jobId → ถามสถานะ → ดึงผล
+ *
+ * เดิม: /api/pdf/preview สร้าง PDF ใน Tomcat thread จนเสร็จ บันทึกข้อความยาวๆ จึงกัน thread ไว้ตลอดเวลา render
+ * ใหม่: request แค่เข้าคิว แล้ว render บน executor ของงานนี้โดยเฉพาะ
+ *
+ * การจำกัดทรัพยากร:
+ * - pdf.jobs.workers: จำนวน thread ที่ render (0 = จำนวน CPU)
+ * - pdf.jobs.queue-capacity: งานที่รอได้สูงสุด ถ้าเต็ม submit จะโยน RejectedExecutionException
+ *   (controller ตอบ 429 พร้อม Retry-After = pdf.jobs.retry-after) แทนการสร้าง thread เพิ่ม
+ * - pdf.jobs.result-ttl: เก็บผลลัพธ์หลังงานเสร็จนานเท่าไร (ลบทุก pdf.jobs.purge-interval และทุกครั้งที่ส่งงาน)
+ * - pdf.jobs.max-stored: จำนวนงานที่เก็บได้สูงสุด (รอ + เสร็จแล้ว)
+ *   ถ้าเต็ม ลบงานที่เสร็จนานที่สุดก่อน ถ้ายังเต็ม (ทุกงานยังไม่เสร็จ) submit จะโยน RejectedExecutionException
+ * - pdf.jobs.max-result-size: ขนาดรวมของ PDF ที่เก็บได้สูงสุด
+ *   ถ้าเกิน ลบงานที่เสร็จนานที่สุดก่อน (ถามสถานะได้ 404 เหมือนหมดอายุ)
+ *   PDF ที่ใหญ่เกินขนาดนี้เองจะไม่ถูกเก็บ งานนั้นเป็น FAILED
+ *
+ * เดิม: ผลลัพธ์ไม่มีขีดจำกัด และลบงานที่หมดอายุเฉพาะตอนมีงานใหม่ - ถ้าไม่มีงานใหม่ PDF ค้างใน heap ไปเรื่อยๆ
+ *
+ * metrics: pdf.jobs.queue.depth, pdf.jobs.wait, pdf.jobs.run, pdf.jobs.rejected, pdf.jobs.stored,
+ * pdf.jobs.stored.bytes, pdf.jobs.evicted
+ */
+@Slf4j
+@Service
+public class PdfJobService implements MeterBinder {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    public static final int DEFAULT_MAX_STORED = 1000;
+
+    private final GeneratePdfService generatePdfService;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService purger;
+    private final Duration resultTtl;
+    private final Duration retryAfter;
+    private final int maxStored;
+    private final long maxResultBytes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private volatile Timer waitTimer;
+    private volatile Timer runTimer;
+    private volatile Counter rejectedCounter;
+    private volatile Counter evictedCounter;
+
+    public PdfJobService(GeneratePdfService generatePdfService,
+                         @Value("${pdf.jobs.workers:0}") int workers,
+                         @Value("${pdf.jobs.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                         @Value("${pdf.jobs.result-ttl:10m}") Duration resultTtl,
+                         @Value("${pdf.jobs.retry-after:5s}") Duration retryAfter,
+                         @Value("${pdf.jobs.max-stored:" + DEFAULT_MAX_STORED + "}") int maxStored,
+                         @Value("${pdf.jobs.max-result-size:256MB}") DataSize maxResultSize,
+                         @Value("${pdf.jobs.purge-interval:1m}") Duration purgeInterval) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.generatePdfService = generatePdfService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                                               daemonThreadFactory("pdf-job"),
+                                               new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.resultTtl = resultTtl;
+        this.retryAfter = retryAfter;
+        this.maxStored = Math.max(1, maxStored);
+        this.maxResultBytes = maxResultSize.toBytes();
+        this.purger = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("pdf-job-purge"));
+        long purgeMillis = Math.max(1, purgeInterval.toMillis());
+        this.purger.scheduleWithFixedDelay(this::purgeExpired, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+        log.info("PDF job executor: {} threads, queue {}, result TTL {}, max {} jobs / {}",
+                 threads, queueCapacity, resultTtl, this.maxStored, maxResultSize);
+    }
+
+    /**
+     * ส่งงานสร้าง PDF เข้าคิว
+     *
+     * @param request ข้อมูลสำหรับสร้าง PDF (เหมือน /api/pdf/preview)
+     * @return สถานะเริ่มต้นของงาน (QUEUED)
+     * @throws RejectedExecutionException ถ้าคิวเต็ม
+     */
+    public PdfJobStatus submit(GeneratePdfRequest request) {
+        purgeExpired();
+
+        Job job = new Job(UUID.randomUUID().toString());
+        if (!store(job)) {
+            reject("PDF job store full ({} jobs, none finished), rejecting job", jobs.size());
+        }
+        try {
+            executor.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            remove(job);
+            reject("PDF job queue full ({} waiting), rejecting job", executor.getQueue().size());
+        }
+        log.debug("PDF job {} queued", job.id);
+        return job.status();
+    }
+
+    /**
+     * ถามสถานะงาน
+     *
+     * @return สถานะ หรือ null ถ้าไม่พบ (ไม่มี หรือหมดอายุแล้ว)
+     */
+    public PdfJobStatus getStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.status() : null;
+    }
+
+    /**
+     * ดึง PDF ของงานที่เสร็จแล้ว
+     *
+     * @return PDF bytes หรือ null ถ้างานยังไม่เสร็จ/ไม่สำเร็จ/ไม่พบ
+     */
+    public byte[] getResult(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.result : null;
+    }
+
+    /**
+     * เวลาที่ client ควรรอก่อนส่งงานใหม่เมื่อคิวเต็ม
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pdf.jobs.queue.depth", executor, e -> e.getQueue().size())
+            .description("PDF jobs waiting for a render thread")
+            .register(registry);
+        Gauge.builder("pdf.jobs.stored", jobs, Map::size)
+            .description("PDF jobs kept in memory (pending or finished within the result TTL)")
+            .register(registry);
+        Gauge.builder("pdf.jobs.stored.bytes", storedBytes, AtomicLong::get)
+            .description("Total size of finished PDF jobs kept in memory")
+            .baseUnit("bytes")
+            .register(registry);
+        waitTimer = Timer.builder("pdf.jobs.wait")
+            .description("Time a PDF job spent in the queue")
+            .register(registry);
+        runTimer = Timer.builder("pdf.jobs.run")
+            .description("Time to render a PDF job")
+            .register(registry);
+        rejectedCounter = Counter.builder("pdf.jobs.rejected")
+            .description("PDF jobs rejected because the queue or the job store was full")
+            .register(registry);
+        evictedCounter = Counter.builder("pdf.jobs.evicted")
+            .description("Finished PDF jobs removed before the result TTL to stay within the store limits")
+            .register(registry);
+    }
+
+    /**
+     * ปิด executor ตอน shutdown (งานที่ยังไม่เริ่มจะถูกทิ้ง)
+     */
+    @PreDestroy
+    public void close() {
+        purger.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, GeneratePdfRequest request) {
+        job.startedAt = Instant.now();
+        job.state = PdfJobStatus.State.RUNNING;
+        record(waitTimer, job.submittedAt, job.startedAt);
+        byte[] pdf = null;
+        try {
+            pdf = generatePdfService.generatePdfBytes(request);
+        } catch (Exception e) {
+            log.error("PDF job {} failed: ", job.id, e);
+            job.message = "เกิดข้อผิดพลาดในการสร้าง PDF: " + e.getMessage();
+        }
+        job.finishedAt = Instant.now();
+        record(runTimer, job.startedAt, job.finishedAt);
+
+        if (pdf != null && pdf.length > maxResultBytes) {
+            log.warn("PDF job {} result ({} bytes) exceeds pdf.jobs.max-result-size, discarding", job.id, pdf.length);
+            job.message = "PDF ที่สร้างมีขนาดเกินที่เก็บได้ (" + pdf.length + " bytes)";
+            pdf = null;
+        }
+        if (pdf != null) {
+            storeResult(job, pdf);
+            log.debug("PDF job {} done ({} bytes)", job.id, pdf.length);
+        } else {
+            job.state = PdfJobStatus.State.FAILED;
+        }
+    }
+
+    private static void record(Timer timer, Instant from, Instant to) {
+        if (timer != null) {
+            timer.record(Duration.between(from, to));
+        }
+    }
+
+    private void reject(String message, int size) {
+        Counter counter = rejectedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        log.warn(message, size);
+        throw new RejectedExecutionException("PDF job rejected");
+    }
+
+    /**
+     * เพิ่มงานใหม่ ถ้าเต็ม max-stored ลบงานที่เสร็จนานที่สุดก่อน
+     *
+     * @return false ถ้ายังเต็มเพราะทุกงานยังไม่เสร็จ
+     */
+    private synchronized boolean store(Job job) {
+        while (jobs.size() >= maxStored) {
+            if (!evictOldestFinished()) {
+                return false;
+            }
+        }
+        jobs.put(job.id, job);
+        return true;
+    }
+
+    /**
+     * เก็บ PDF ของงานที่เสร็จ แล้วลบงานที่เสร็จนานที่สุดจนขนาดรวมไม่เกิน max-result-size
+     * (งานนี้เสร็จล่าสุด จึงถูกลบเป็นลำดับสุดท้าย และขนาดของตัวเองไม่เกินอยู่แล้ว)
+     */
+    private synchronized void storeResult(Job job, byte[] pdf) {
+        if (jobs.get(job.id) != job) {
+            // ถูกลบไปแล้วระหว่าง render (result-ttl เป็น 0) - ไม่ต้องเก็บ
+            return;
+        }
+        job.result = pdf;
+        job.state = PdfJobStatus.State.DONE;
+        storedBytes.addAndGet(pdf.length);
+        while (storedBytes.get() > maxResultBytes) {
+            if (!evictOldestFinished()) {
+                break;
+            }
+        }
+    }
+
+    private boolean evictOldestFinished() {
+        Job oldest = jobs.values().stream()
+            .filter(job -> job.state == PdfJobStatus.State.DONE || job.state == PdfJobStatus.State.FAILED)
+            .min(Comparator.comparing(job -> job.finishedAt))
+            .orElse(null);
+        if (oldest == null) {
+            return false;
+        }
+        remove(oldest);
+        Counter counter = evictedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        log.debug("PDF job {} evicted to stay within the job store limits", oldest.id);
+        return true;
+    }
+
+    private synchronized void remove(Job job) {
+        if (jobs.remove(job.id, job)) {
+            byte[] pdf = job.result;
+            if (pdf != null) {
+                storedBytes.addAndGet(-pdf.length);
+            }
+        }
+    }
+
+    /**
+     * ลบงานที่เสร็จเกิน result-ttl แล้ว (ตามรอบ pdf.jobs.purge-interval และตอนส่งงานใหม่)
+     */
+    private void purgeExpired() {
+        Instant expiry = Instant.now().minus(resultTtl);
+        for (Job job : jobs.values()) {
+            Instant finishedAt = job.finishedAt;
+            if (finishedAt != null && finishedAt.isBefore(expiry)) {
+                remove(job);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * งานหนึ่งงาน (field เขียนโดย thread ของ executor อ่านโดย request thread)
+     */
+    private static final class Job {
+
+        final String id;
+        final Instant submittedAt = Instant.now();
+        volatile PdfJobStatus.State state = PdfJobStatus.State.QUEUED;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String message;
+        volatile byte[] result;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        PdfJobStatus status() {
+            byte[] pdf = result;
+            return PdfJobStatus.builder()
+                .jobId(id)
+                .state(state)
+                .message(message)
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .pdfSize(pdf != null ? pdf.length : null)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * รวม PDF หลายไฟล์แบบจำกัดหน่วยความจำ
+ *
+ * เดิม: mergePdfFiles โหลดทุกไฟล์เป็น PDDocument ใน heap พร้อมกัน แล้ว save ลง ByteArrayOutputStream
+ *       peak heap จึงเป็นหลายเท่าของขนาด input ทั้งหมด
+ * ใหม่: - stream ที่ถอดแล้วของแต่ละ document เก็บใน heap ไม่เกิน pdf.merge.max-main-memory (รวมทุกไฟล์)
+ *         ส่วนที่เกินไปอยู่ใน scratch file ใต้ pdf.temp-directory
+ *       - parse input พร้อมกันบน MemoRenderPool แล้วต่อหน้าตามลำดับเดิม
+ *       - save ผลลัพธ์ลง OutputStream ที่ส่งมา ด้วยรูปแบบการบีบอัดตาม PdfOutputProfile
+ *         (GeneratePdfService.mergePdfFiles ส่ง ByteArrayOutputStream - ผลที่รวมแล้วยังพักเป็น byte[]
+ *          เพราะต้องส่งต่อเป็น PdfResult ให้ /preview, /download และ batch เหมือน PDF ที่ไม่ได้รวม)
+ *
+ * pdf.merge.max-main-memory=-1 = ไม่จำกัด (ใช้ heap อย่างเดียว เหมือนแบบเดิม)
+ */
+@Slf4j
+@Service
+public class PdfMerger {
+
+    public static final long DEFAULT_MAX_MAIN_MEMORY = 64L * 1024 * 1024;
+
+    private final MemoRenderPool renderPool;
+    private final PdfOutputProfile outputProfile;
+    private final long maxMainMemory;
+    private final File tempDirectory;
+
+    public PdfMerger(MemoRenderPool renderPool,
+                     PdfOutputProfile outputProfile,
+                     @Value("${pdf.merge.max-main-memory:" + DEFAULT_MAX_MAIN_MEMORY + "}") long maxMainMemory,
+                     @Value("${pdf.temp-directory:${java.io.tmpdir}}") String tempDirectory) {
+        this.renderPool = renderPool;
+        this.outputProfile = outputProfile;
+        this.maxMainMemory = maxMainMemory;
+        this.tempDirectory = new File(tempDirectory);
+        log.info("PDF merger: max main memory {} bytes, scratch directory {}", maxMainMemory, tempDirectory);
+    }
+
+    /**
+     * รวม PDF ตามลำดับแล้วเขียนลง output (ไม่ปิด output)
+     *
+     * @param pdfs PDF bytes เรียงตามลำดับหน้าที่ต้องการ
+     * @param output ปลายทาง
+     */
+    public void merge(List<byte[]> pdfs, OutputStream output) throws Exception {
+        long started = System.nanoTime();
+        // งบ heap แบ่งเท่าๆ กันระหว่าง input ทุกไฟล์และ document ผลลัพธ์
+        MemoryUsageSetting memoryUsage = memoryUsage(pdfs.size() + 1);
+        PDDocument[] documents = new PDDocument[pdfs.size()];
+
+        try (PDDocument resultDoc = new PDDocument(memoryUsage.streamCache)) {
+            // parse พร้อมกัน (PDDocument แต่ละฉบับใช้ใน thread เดียว)
+            renderPool.renderAll(pdfs, (pdfBytes, index) ->
+                documents[index] = Loader.loadPDF(pdfBytes, null, null, null, memoryUsage.streamCache));
+
+            // ต่อหน้าตามลำดับเดิม (document ต้นทางต้องเปิดอยู่จนกว่าจะ save เสร็จ)
+            for (PDDocument doc : documents) {
+                for (int i = 0; i < doc.getNumberOfPages(); i++) {
+                    resultDoc.addPage(doc.getPage(i));
+                }
+            }
+
+            outputProfile.save(resultDoc, output);
+            log.debug("Merged {} PDFs ({} pages) in {} ms", pdfs.size(), resultDoc.getNumberOfPages(),
+                      (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            // ปิด documents ทั้งหมด (รวมที่ parse สำเร็จก่อนเกิด error)
+            for (PDDocument doc : documents) {
+                if (doc != null) {
+                    try { doc.close(); } catch (Exception ignored) {}
+                }
+            }
+        }
+    }
+
+    private MemoryUsageSetting memoryUsage(int documents) throws IOException {
+        if (maxMainMemory < 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        Files.createDirectories(tempDirectory.toPath());
+        return MemoryUsageSetting.setupMixed(Math.max(0, maxMainMemory / documents))
+            .setTempDir(tempDirectory);
+    }
+}
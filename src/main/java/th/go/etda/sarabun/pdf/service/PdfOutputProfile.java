@@ -0,0 +1,135 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * รูปแบบการบีบอัดของ PDF ที่ส่งออก (ใช้กับทุกจุดที่ save document ทั้งไฟล์)
+ *
+ * - pdf.output.compression=object-streams: เก็บ object ใน object stream และใช้ xref stream (PDF 1.5)
+ *   ไฟล์เล็กลง ซึ่งสำคัญเพราะผลลัพธ์ถูก encode เป็น Base64 (+33%) อีกชั้น
+ * - pdf.output.compression=none: xref table แบบเดิม object แยกกัน (save เร็วกว่าเล็กน้อย)
+ * - pdf.output.object-stream-size: จำนวน object ต่อ object stream
+ * - pdf.output.deflate-level: ระดับ Flate 0-9 ของ stream ทั้ง process (-1 = ค่าเริ่มต้นของ PDFBox)
+ *
+ * ขนาดและเวลา save ของแต่ละ document ดูได้ที่
+ * /actuator/metrics/pdf.output.size และ /actuator/metrics/pdf.output.save
+ */
+@Slf4j
+@Service
+public class PdfOutputProfile implements MeterBinder {
+
+    public static final String COMPRESSION_OBJECT_STREAMS = "object-streams";
+    public static final String COMPRESSION_NONE = "none";
+
+    private final String compression;
+    private final CompressParameters compressParameters;
+
+    private volatile Timer saveTimer;
+    private volatile DistributionSummary sizeSummary;
+
+    public PdfOutputProfile(@Value("${pdf.output.compression:" + COMPRESSION_OBJECT_STREAMS + "}") String compression,
+                            @Value("${pdf.output.object-stream-size:" + CompressParameters.DEFAULT_OBJECT_STREAM_SIZE + "}") int objectStreamSize,
+                            @Value("${pdf.output.deflate-level:-1}") int deflateLevel) {
+        if (COMPRESSION_NONE.equals(compression)) {
+            this.compressParameters = CompressParameters.NO_COMPRESSION;
+        } else if (COMPRESSION_OBJECT_STREAMS.equals(compression)) {
+            this.compressParameters = new CompressParameters(objectStreamSize);
+        } else {
+            throw new IllegalArgumentException("pdf.output.compression ไม่ถูกต้อง: " + compression);
+        }
+        this.compression = compression;
+
+        // FlateFilter อ่านระดับการบีบอัดจาก system property (มีผลทั้ง process)
+        if (deflateLevel >= 0) {
+            System.setProperty(Filter.SYSPROP_DEFLATELEVEL, Integer.toString(Math.min(deflateLevel, 9)));
+        }
+        log.info("PDF output profile: compression {}, object stream size {}, deflate level {}",
+                 compression, objectStreamSize, deflateLevel >= 0 ? deflateLevel : "default");
+    }
+
+    /**
+     * บันทึก document ทั้งไฟล์ลง output ตาม profile (ไม่ปิด output)
+     */
+    public void save(PDDocument document, OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        CountingOutputStream counting = new CountingOutputStream(output);
+        document.save(counting, compressParameters);
+
+        long elapsed = System.nanoTime() - started;
+        Timer timer = saveTimer;
+        DistributionSummary summary = sizeSummary;
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            summary.record(counting.count);
+        }
+        log.debug("PDF saved: {} pages, {} bytes in {} ms ({})", document.getNumberOfPages(), counting.count,
+                  elapsed / 1_000_000, compression);
+    }
+
+    /**
+     * บันทึก document ทั้งไฟล์เป็น bytes ตาม profile
+     */
+    public byte[] toBytes(PDDocument document) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        save(document, baos);
+        return baos.toByteArray();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        saveTimer = Timer.builder("pdf.output.save")
+            .tag("compression", compression)
+            .description("Time to serialize one PDF document")
+            .register(registry);
+        sizeSummary = DistributionSummary.builder("pdf.output.size")
+            .tag("compression", compression)
+            .baseUnit("bytes")
+            .description("Size of one serialized PDF document")
+            .register(registry);
+    }
+
+    /**
+     * นับจำนวน bytes ที่เขียน (ไม่ปิด stream ปลายทาง)
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,24 +1,40 @@
 package th.go.etda.sarabun.pdf.service;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Base64;
 import java.util.List;
 
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.GlyphWidthTable;
+import th.go.etda.sarabun.pdf.util.LineBreaker;
+import th.go.etda.sarabun.pdf.util.StyledText;
+import th.go.etda.sarabun.pdf.util.ThaiWordSegmenter;
 
 /**
  * Core PDF Service สำหรับการสร้างและจัดการ PDF โดยใช้ Apache PDFBox
@@ -41,10 +57,34 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PdfService {
     
-    private static final String FONT_PATH = "fonts/THSarabunNew.ttf";
-    private static final String FONT_BOLD_PATH = "fonts/THSarabunNew Bold.ttf";
+    private static final String FONT_PATH = FontRegistry.FONT_REGULAR;
+    private static final String FONT_BOLD_PATH = FontRegistry.FONT_BOLD;
+    
+    // fonts ที่ parse ไว้แล้วตั้งแต่ startup (ใช้ร่วมกันทุก request)
+    private final FontRegistry fontRegistry;
+    
+    // พจนานุกรมคำไทยสำหรับหาจุดตัดบรรทัดในข้อความที่ไม่มีช่องว่าง
+    private final ThaiDictionary thaiDictionary;
+    
+    // โลโก้/ตราประทับที่ encode เป็น image XObject ไว้แล้ว (copy เข้า document ได้ทันที)
+    private final ImageAssetCache imageAssets;
+    
+    // รูปลายเซ็นที่ encode แล้ว (LRU ตาม path + hash ของเนื้อหาไฟล์)
+    private final SignatureImageCache signatureImages;
+    
+    // รูปแบบการบีบอัดตอน save (object streams / xref stream) และ metrics ขนาด/เวลา
+    private final PdfOutputProfile outputProfile;
+    
+    // true = ลายเซ็น/เลขหน้าบน PDF ที่โหลดมา เขียนต่อท้ายแบบ incremental update, false = เขียนใหม่ทั้งไฟล์ (แบบเดิม)
+    @Value("${pdf.overlay.incremental:true}")
+    private boolean incrementalOverlay;
+    
+    // buffer สำหรับ layout ต่อ thread (ใช้ซ้ำทุกบรรทัด/ทุก request แทนการสร้าง object ใหม่)
+    private final ThreadLocal<LayoutScratch> layoutScratch =
+        ThreadLocal.withInitial(this::newLayoutScratch);
     
     // ============================================
     // ค่าคงที่สำหรับปรับแต่ง Layout
@@ -96,6 +136,10 @@ public class PdfService {
     private static final float MIN_Y_POSITION = MARGIN_BOTTOM + 100; // พื้นที่ขั้นต่ำก่อนขึ้นหน้าใหม่ (เพิ่ม = ขึ้นหน้าเร็วขึ้น)
     private static final float PAGE_NUMBER_Y_OFFSET = 15f; // ระยะห่างหมายเลขหน้าจากขอบบน
     
+    // รูปแบบเส้น: จุดไข่ปลา (1pt เส้น, 2pt ช่องว่าง) และเส้นตรง (ใช้ array เดิมซ้ำ)
+    private static final float[] DASH_DOTTED = {1, 2};
+    private static final float[] DASH_SOLID = {};
+    
     // ⚙️ Debug Mode - แสดงเส้นขอบสีแดงเพื่อ debug margins (เปลี่ยน true/false)
     private static final boolean ENABLE_DEBUG_BORDERS = false; // true = แสดงเส้นขอบสีแดง, false = ซ่อน
     
@@ -137,16 +181,17 @@ public class PdfService {
      * สร้างหน้าใหม่และวาดหมายเลขหน้า + เลขที่หนังสือ
      * 
      * @param document PDF document
+     * @param firstPageIndex index ของหน้าแรกของบันทึกข้อความนี้ใน document (เลขหน้านับจากหน้านี้)
      * @param fontRegular ฟอนต์สำหรับหมายเลขหน้า
      * @param bookNo เลขที่หนังสือ (แสดงที่ขอบล่างซ้าย)
      * @return PDPage หน้าใหม่ที่สร้าง
      */
-    private PDPage createNewPage(PDDocument document, PDFont fontRegular, String bookNo) throws IOException {
+    private PDPage createNewPage(PDDocument document, int firstPageIndex, PDFont fontRegular, String bookNo) throws IOException {
         PDPage newPage = new PDPage(PDRectangle.A4);
         document.addPage(newPage);
         
         // วาดหมายเลขหน้าและเลขที่หนังสือทันทีหลังสร้างหน้า
-        int pageNumber = document.getNumberOfPages();
+        int pageNumber = document.getNumberOfPages() - firstPageIndex;
         try (PDPageContentStream stream = new PDPageContentStream(document, newPage)) {
             // วาดหมายเลขหน้าเฉพาะหน้าที่ 2 ขึ้นไป (หน้าแรกไม่มีเลขหน้า)
             if (pageNumber >= 2) {
@@ -172,7 +217,7 @@ public class PdfService {
         String pageText = "-" + thaiPageNumber;
         
         // คำนวณตำแหน่งกลาง
-        float textWidth = font.getStringWidth(pageText) / 1000 * FONT_SIZE_CONTENT;
+        float textWidth = stringWidth(font, pageText, FONT_SIZE_CONTENT);
         float x = (PAGE_WIDTH - textWidth) / 2; // ตรงกลางหน้า
         float y = PAGE_HEIGHT - MARGIN_TOP + PAGE_NUMBER_Y_OFFSET;
         
@@ -235,264 +280,404 @@ public class PdfService {
                                          String formatPdf,
                                          List<String> signatures,
                                          List<String> signatureImagePaths) throws Exception {
+        byte[] pdfBytes = generateOfficialMemoPdfBytes(govName, date, bookNo, title, recipients, content,
+                                                       speedLayer, formatPdf, signatures, signatureImagePaths);
+        return Base64.getEncoder().encodeToString(pdfBytes);
+    }
+    
+    /**
+     * สร้างหนังสือบันทึกข้อความทางราชการเป็น PDF bytes
+     * 
+     * ใช้ภายใน pipeline (สร้าง → ลายเซ็น → รวม) เพื่อไม่ต้อง encode/decode Base64 ระหว่างขั้นตอน
+     * Base64 ทำครั้งเดียวตอนส่งผลลัพธ์ออก (ดู GeneratePdfService.previewPdf)
+     * 
+     * @return PDF bytes
+     * @see #generateOfficialMemoPdf
+     */
+    public byte[] generateOfficialMemoPdfBytes(String govName,
+                                               String date,
+                                               String bookNo,
+                                               String title,
+                                               String recipients,
+                                               String content,
+                                               String speedLayer,
+                                               String formatPdf,
+                                               List<String> signatures,
+                                               List<String> signatureImagePaths) throws Exception {
+        return generateOfficialMemoPdfBytes(govName, date, bookNo, title, recipients, StyledText.plain(content),
+                                            speedLayer, formatPdf, signatures, signatureImagePaths);
+    }
+    
+    /**
+     * สร้างหนังสือบันทึกข้อความเป็น PDF bytes โดยเนื้อหามีตัวหนา/ตัวเอียง/ขีดเส้นใต้ (จาก HtmlUtils.htmlToStyledText)
+     * 
+     * @return PDF bytes
+     * @see #generateOfficialMemoPdf
+     */
+    public byte[] generateOfficialMemoPdfBytes(String govName,
+                                               String date,
+                                               String bookNo,
+                                               String title,
+                                               String recipients,
+                                               StyledText content,
+                                               String speedLayer,
+                                               String formatPdf,
+                                               List<String> signatures,
+                                               List<String> signatureImagePaths) throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            // โหลด fonts
+            log.info("Loading fonts...");
+            MemoFonts fonts = loadMemoFonts(document);
+            log.info("Fonts loaded successfully");
+            
+            renderOfficialMemo(document, fonts, createLogo(document), govName, date, bookNo, title, recipients,
+                               content, signatures, signatureImagePaths);
+            
+            // บันทึกเป็น bytes
+            byte[] pdfBytes = toPdfBytes(document);
+            log.info("PDF generated successfully, size: {} bytes", pdfBytes.length);
+            return pdfBytes;
+            
+        } catch (Exception e) {
+            log.error("Error generating PDF: ", e);
+            throw new Exception("ไม่สามารถสร้าง PDF ได้: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * สร้างเอกสารสำหรับรวมบันทึกข้อความหลายฉบับใน PDDocument เดียว
+     * 
+     * เดิม: บันทึกข้อความแต่ละฉบับเป็น PDF แยก (embed font subset ของตัวเอง) แล้ว parse ใหม่เพื่อรวม
+     * ใหม่: ทุกฉบับเป็นช่วงหน้าของ document เดียวกันและใช้ font resource และรูปโลโก้ร่วมกัน (ไม่ต้องรวมไฟล์)
+     * 
+     * @return MemoDocument (ต้องปิดหลังใช้งาน)
+     * @see #appendOfficialMemo
+     */
+    public MemoDocument createMemoDocument() throws Exception {
+        PDDocument document = new PDDocument();
+        try {
+            return new MemoDocument(document, loadMemoFonts(document), createLogo(document), outputProfile);
+        } catch (Exception e) {
+            document.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * ต่อท้ายบันทึกข้อความหนึ่งฉบับลงใน MemoDocument (หน้าใหม่ เลขหน้านับใหม่ต่อฉบับ)
+     * 
+     * พารามิเตอร์เหมือน generateOfficialMemoPdf
+     * 
+     * @return ช่วงหน้าของบันทึกข้อความนี้ใน document
+     */
+    public MemoDocument.PageRange appendOfficialMemo(MemoDocument memoDocument,
+                                                     String govName,
+                                                     String date,
+                                                     String bookNo,
+                                                     String title,
+                                                     String recipients,
+                                                     String content,
+                                                     String speedLayer,
+                                                     String formatPdf,
+                                                     List<String> signatures,
+                                                     List<String> signatureImagePaths) throws Exception {
+        return appendOfficialMemo(memoDocument, govName, date, bookNo, title, recipients, StyledText.plain(content),
+                                  speedLayer, formatPdf, signatures, signatureImagePaths);
+    }
+    
+    /**
+     * ต่อท้ายบันทึกข้อความหนึ่งฉบับที่เนื้อหามี style ลงใน MemoDocument
+     * 
+     * @return ช่วงหน้าของบันทึกข้อความนี้ใน document
+     * @see #appendOfficialMemo(MemoDocument, String, String, String, String, String, String, String, String, List, List)
+     */
+    public MemoDocument.PageRange appendOfficialMemo(MemoDocument memoDocument,
+                                                     String govName,
+                                                     String date,
+                                                     String bookNo,
+                                                     String title,
+                                                     String recipients,
+                                                     StyledText content,
+                                                     String speedLayer,
+                                                     String formatPdf,
+                                                     List<String> signatures,
+                                                     List<String> signatureImagePaths) throws Exception {
+        PDDocument document = memoDocument.getDocument();
+        int firstPageIndex = document.getNumberOfPages();
+        try {
+            renderOfficialMemo(document, memoDocument.fonts, memoDocument.logo, govName, date, bookNo,
+                               title, recipients, content, signatures, signatureImagePaths);
+        } catch (Exception e) {
+            log.error("Error generating PDF: ", e);
+            throw new Exception("ไม่สามารถสร้าง PDF ได้: " + e.getMessage(), e);
+        }
+        return new MemoDocument.PageRange(firstPageIndex, document.getNumberOfPages());
+    }
+    
+    /**
+     * วาดบันทึกข้อความหนึ่งฉบับต่อท้าย document (เริ่มหน้าใหม่)
+     *
+     * @param logoImage โลโก้ที่สร้างใน document นี้แล้ว (ใช้ร่วมกันทุกฉบับ) หรือ null ถ้าโหลดไม่ได้
+     */
+    private void renderOfficialMemo(PDDocument document,
+                                    MemoFonts fonts,
+                                    PDImageXObject logoImage,
+                                    String govName,
+                                    String date,
+                                    String bookNo,
+                                    String title,
+                                    String recipients,
+                                    StyledText content,
+                                    List<String> signatures,
+                                    List<String> signatureImagePaths) throws IOException {
+        PDFont fontRegular = fonts.regular();
+        PDFont fontBold = fonts.bold();
         log.info("=== Generating official memo PDF ===");
         log.info("govName: {}", govName);
         log.info("date: {}", date);
         log.info("bookNo: {}", bookNo);
         log.info("title: {}", title);
         log.info("recipients: {}", recipients);
-        log.info("content length: {}", content != null ? content.length() : 0);
+        log.info("content length: {}, styled runs: {}", content.length(), content.runCount());
         
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            log.info("PDF page created");
+        int firstPageIndex = document.getNumberOfPages();
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        log.info("PDF page created");
+        
+        // สร้าง content stream (ไม่ใช้ try-with-resources เพราะต้อง reassign เมื่อขึ้นหน้าใหม่)
+        PDPageContentStream contentStream = new PDPageContentStream(document, page);
+        try {
+            log.info("Content stream created, starting to draw...");
+            float yPosition = PAGE_HEIGHT - MARGIN_TOP;
             
-            // โหลด fonts
-            log.info("Loading fonts...");
-            PDFont fontRegular = loadThaiFont(document, FONT_PATH);
-            PDFont fontBold = loadThaiFont(document, FONT_BOLD_PATH);
-            log.info("Fonts loaded successfully");
+            // ============================================
+            // 📍 หมายเลขหน้า (กลางบน) - ตามมาตรฐานเอกสารราชการ (เลขไทย)
+            // หน้าแรก: ไม่มีหมายเลข, หน้าที่สอง: -๒, หน้าที่สาม: -๓
+            // ============================================
+            // หน้าแรกไม่ต้องมีหมายเลขหน้า
             
-            // สร้าง content stream (ไม่ใช้ try-with-resources เพราะต้อง reassign เมื่อขึ้นหน้าใหม่)
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            try {
-                log.info("Content stream created, starting to draw...");
-                float yPosition = PAGE_HEIGHT - MARGIN_TOP;
-                
-                // ============================================
-                // 📍 หมายเลขหน้า (กลางบน) - ตามมาตรฐานเอกสารราชการ (เลขไทย)
-                // หน้าแรก: ไม่มีหมายเลข, หน้าที่สอง: -๒, หน้าที่สาม: -๓
-                // ============================================
-                // หน้าแรกไม่ต้องมีหมายเลขหน้า
-                
-                // วาดเลขที่หนังสือในหน้าแรกด้วย (ขอบล่างซ้าย)
-                drawBookNumber(contentStream, bookNo, fontRegular);
-                
-                // วาดเส้นขอบ debug (ถ้าเปิด)
-                drawDebugBorders(contentStream);
-                
-                // วาดเส้นขอบ debug (ถ้าเปิด)
-                drawDebugBorders(contentStream);
-                
-                // ============================================
-                // 📍 SECTION 0: Logo ETDA (ซ้ายบน)
-                // ปรับแต่งได้ที่: LOGO_WIDTH, LOGO_HEIGHT, LOGO_SPACING
-                // ============================================
-                try {
-                    InputStream logoStream = getClass().getClassLoader()
-                        .getResourceAsStream("images/logoETDA.png");
-                    if (logoStream != null) {
-                        PDImageXObject logoImage = PDImageXObject.createFromByteArray(
-                            document, logoStream.readAllBytes(), "logo");
-                        
-                        // 🎨 ตำแหน่งโลโก้ (ปรับได้)
-                        float logoX = MARGIN_LEFT; // ซ้ายมือ
-                        // หรือใช้: (PAGE_WIDTH - LOGO_WIDTH) / 2 = ตรงกลาง
-                        // หรือใช้: PAGE_WIDTH - MARGIN_RIGHT - LOGO_WIDTH = ขวามือ
-                        
-                        float logoY = yPosition - LOGO_HEIGHT;
-                        
-                        contentStream.drawImage(logoImage, logoX, logoY, LOGO_WIDTH, LOGO_HEIGHT);
-                        log.info("ETDA logo drawn at ({}, {}), size: {}x{}", 
-                                logoX, logoY, LOGO_WIDTH, LOGO_HEIGHT);
-                        logoStream.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("Could not load ETDA logo: {}", e.getMessage());
-                }
-                
-                // เว้นระยะหลังโลโก้
-                yPosition -= LOGO_SPACING;
-                
-                // ============================================
-                // 📍 SECTION 1: หัวข้อ "บันทึกข้อความ" (ตรงกลาง, Bold)
-                // ปรับแต่งได้ที่: FONT_SIZE_HEADER, SPACING_AFTER_HEADER
-                // ============================================
-                log.info("Drawing header: บันทึกข้อความ");
-                yPosition = drawCenteredText(contentStream, "บันทึกข้อความ", 
-                                            fontBold, FONT_SIZE_HEADER, yPosition);
-                yPosition -= SPACING_AFTER_HEADER;
-                
-                // ============================================
-                // 📍 SECTION 2: ส่วนราชการ (พร้อมเส้นใต้)
-                // ปรับแต่งได้ที่: FONT_SIZE_FIELD, SPACING_BETWEEN_FIELDS, UNDERLINE_LENGTH
-                // ============================================
-                if (govName != null && !govName.isEmpty()) {
-                    log.info("Drawing department: {}", govName);
-                    yPosition = drawFieldWithUnderline(contentStream, "ส่วนราชการ", govName, 
-                                                 fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
-                                                 MARGIN_LEFT, yPosition);
-                    yPosition -= SPACING_BETWEEN_FIELDS;
-                }
+            // วาดเลขที่หนังสือในหน้าแรกด้วย (ขอบล่างซ้าย)
+            drawBookNumber(contentStream, bookNo, fontRegular);
+            
+            // วาดเส้นขอบ debug (ถ้าเปิด)
+            drawDebugBorders(contentStream);
+            
+            // วาดเส้นขอบ debug (ถ้าเปิด)
+            drawDebugBorders(contentStream);
+            
+            // ============================================
+            // 📍 SECTION 0: Logo ETDA (ซ้ายบน)
+            // ปรับแต่งได้ที่: LOGO_WIDTH, LOGO_HEIGHT, LOGO_SPACING
+            // ============================================
+            if (logoImage != null) {
+                // 🎨 ตำแหน่งโลโก้ (ปรับได้)
+                float logoX = MARGIN_LEFT; // ซ้ายมือ
+                // หรือใช้: (PAGE_WIDTH - LOGO_WIDTH) / 2 = ตรงกลาง
+                // หรือใช้: PAGE_WIDTH - MARGIN_RIGHT - LOGO_WIDTH = ขวามือ
                 
-                // ============================================
-                // 📍 SECTION 3: ที่ และ วันที่ (ในบรรทัดเดียวกัน)
-                // ปรับแต่งได้ที่: DATE_X_POSITION
-                // ============================================
-                float fieldStartY = yPosition;
+                float logoY = yPosition - LOGO_HEIGHT;
                 
-                // 🎨 "ที่" ทางซ้าย (พร้อมจุดไข่ปลา)
-                String referenceNumber = bookNo != null ? bookNo : ""; // เลขที่หนังสือ
-                // จุดไข่ปลายาวถึงตำแหน่งก่อน "วันที่" (DATE_X_POSITION - 20)
-                float maxUnderlineForRef = DATE_X_POSITION - 20;
-                yPosition = drawFieldWithUnderlineCustomWidth(contentStream, "ที่", referenceNumber, 
-                                   fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
-                                   MARGIN_LEFT, yPosition, maxUnderlineForRef);
+                contentStream.drawImage(logoImage, logoX, logoY, LOGO_WIDTH, LOGO_HEIGHT);
+                log.info("ETDA logo drawn at ({}, {}), size: {}x{}", 
+                        logoX, logoY, LOGO_WIDTH, LOGO_HEIGHT);
+            }
+            
+            // เว้นระยะหลังโลโก้
+            yPosition -= LOGO_SPACING;
+            
+            // ============================================
+            // 📍 SECTION 1: หัวข้อ "บันทึกข้อความ" (ตรงกลาง, Bold)
+            // ปรับแต่งได้ที่: FONT_SIZE_HEADER, SPACING_AFTER_HEADER
+            // ============================================
+            log.info("Drawing header: บันทึกข้อความ");
+            yPosition = drawCenteredText(contentStream, "บันทึกข้อความ", 
+                                        fontBold, FONT_SIZE_HEADER, yPosition);
+            yPosition -= SPACING_AFTER_HEADER;
+            
+            // ============================================
+            // 📍 SECTION 2: ส่วนราชการ (พร้อมเส้นใต้)
+            // ปรับแต่งได้ที่: FONT_SIZE_FIELD, SPACING_BETWEEN_FIELDS, UNDERLINE_LENGTH
+            // ============================================
+            if (govName != null && !govName.isEmpty()) {
+                log.info("Drawing department: {}", govName);
+                yPosition = drawFieldWithUnderline(contentStream, "ส่วนราชการ", govName, 
+                                             fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
+                                             MARGIN_LEFT, yPosition);
+                yPosition -= SPACING_BETWEEN_FIELDS;
+            }
+            
+            // ============================================
+            // 📍 SECTION 3: ที่ และ วันที่ (ในบรรทัดเดียวกัน)
+            // ปรับแต่งได้ที่: DATE_X_POSITION
+            // ============================================
+            float fieldStartY = yPosition;
+            
+            // 🎨 "ที่" ทางซ้าย (พร้อมจุดไข่ปลา)
+            String referenceNumber = bookNo != null ? bookNo : ""; // เลขที่หนังสือ
+            // จุดไข่ปลายาวถึงตำแหน่งก่อน "วันที่" (DATE_X_POSITION - 20)
+            float maxUnderlineForRef = DATE_X_POSITION - 20;
+            yPosition = drawFieldWithUnderlineCustomWidth(contentStream, "ที่", referenceNumber, 
+                               fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
+                               MARGIN_LEFT, yPosition, maxUnderlineForRef);
+            
+            // 🎨 "วันที่" ตามตำแหน่งที่กำหนด (ขวามือ พร้อมจุดไข่ปลา)
+            if (date != null && !date.isEmpty()) {
+                log.info("Drawing date: {} at X={}", date, DATE_X_POSITION);
+                // จุดไข่ปลายาวถึงขอบขวา (PAGE_WIDTH - MARGIN_RIGHT)
+                float maxUnderlineForDate = PAGE_WIDTH - MARGIN_RIGHT;
+                drawFieldWithUnderlineCustomWidth(contentStream, "วันที่", date, 
+                        fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
+                        DATE_X_POSITION, fieldStartY, maxUnderlineForDate);
+            }
+            yPosition -= SPACING_BETWEEN_FIELDS;
+            
+            // ============================================
+            // 📍 SECTION 4: เรื่อง (พร้อมเส้นใต้)
+            // ============================================
+            if (title != null && !title.isEmpty()) {
+                log.info("Drawing subject: {}", title);
+                yPosition = drawFieldWithUnderline(contentStream, "เรื่อง", title, 
+                                             fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
+                                             MARGIN_LEFT, yPosition);
+                yPosition -= SPACING_BETWEEN_FIELDS;
+            }
+            
+            // ============================================
+            // 📍 SECTION 5: เรียน (ฟอนต์ธรรมดา ไม่มีเส้นใต้ + รองรับขึ้นบรรทัดใหม่พร้อม indent)
+            // ============================================
+            if (recipients != null && !recipients.isEmpty()) {
+                log.info("Drawing recipients: {}", recipients);
                 
-                // 🎨 "วันที่" ตามตำแหน่งที่กำหนด (ขวามือ พร้อมจุดไข่ปลา)
-                if (date != null && !date.isEmpty()) {
-                    log.info("Drawing date: {} at X={}", date, DATE_X_POSITION);
-                    // จุดไข่ปลายาวถึงขอบขวา (PAGE_WIDTH - MARGIN_RIGHT)
-                    float maxUnderlineForDate = PAGE_WIDTH - MARGIN_RIGHT;
-                    drawFieldWithUnderlineCustomWidth(contentStream, "วันที่", date, 
-                            fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
-                            DATE_X_POSITION, fieldStartY, maxUnderlineForDate);
-                }
+                // วาด "เรียน" + ชื่อผู้รับ (บรรทัดที่ขึ้นใหม่จะเยื้องหลัง "เรียน  ")
+                String recipientsText = "เรียน  " + recipients;
+                yPosition = drawMultilineTextWithIndent(contentStream, recipientsText, 
+                                    fontRegular, FONT_SIZE_FIELD_VALUE, 
+                                    MARGIN_LEFT, yPosition,
+                                    PAGE_WIDTH - MARGIN_LEFT - MARGIN_RIGHT,
+                                    "เรียน  "); // indent ตามความกว้างของ "เรียน  "
                 yPosition -= SPACING_BETWEEN_FIELDS;
+            }
+            
+            // ============================================
+            // 📍 SECTION 6: เนื้อหา (รองรับหลายบรรทัด + ขึ้นหน้าใหม่อัตโนมัติ)
+            // ปรับแต่งได้ที่: FONT_SIZE_CONTENT, SPACING_BEFORE_CONTENT
+            // ============================================
+            if (!content.isEmpty()) {
+                yPosition -= SPACING_BEFORE_CONTENT; // เว้นระยะห่างก่อนเนื้อหา
+                log.info("Drawing content, length: {}", content.length());
                 
-                // ============================================
-                // 📍 SECTION 4: เรื่อง (พร้อมเส้นใต้)
-                // ============================================
-                if (title != null && !title.isEmpty()) {
-                    log.info("Drawing subject: {}", title);
-                    yPosition = drawFieldWithUnderline(contentStream, "เรื่อง", title, 
-                                                 fontBold, fontRegular, FONT_SIZE_FIELD, FONT_SIZE_FIELD_VALUE, 
-                                                 MARGIN_LEFT, yPosition);
-                    yPosition -= SPACING_BETWEEN_FIELDS;
-                }
+                // bind font ของ style ที่เนื้อหาใช้ครั้งเดียวก่อนวาด (ตัวเอียงถูก embed เฉพาะเมื่อมี run ที่ใช้)
+                PDFont[] contentFonts = fonts.fontsFor(content);
+                String contentText = content.text();
                 
-                // ============================================
-                // 📍 SECTION 5: เรียน (ฟอนต์ธรรมดา ไม่มีเส้นใต้ + รองรับขึ้นบรรทัดใหม่พร้อม indent)
-                // ============================================
-                if (recipients != null && !recipients.isEmpty()) {
-                    log.info("Drawing recipients: {}", recipients);
-                    
-                    // วาด "เรียน" + ชื่อผู้รับ (บรรทัดที่ขึ้นใหม่จะเยื้องหลัง "เรียน  ")
-                    String recipientsText = "เรียน  " + recipients;
-                    yPosition = drawMultilineTextWithIndent(contentStream, recipientsText, 
-                                        fontRegular, FONT_SIZE_FIELD_VALUE, 
-                                        MARGIN_LEFT, yPosition,
-                                        PAGE_WIDTH - MARGIN_LEFT - MARGIN_RIGHT,
-                                        "เรียน  "); // indent ตามความกว้างของ "เรียน  "
-                    yPosition -= SPACING_BETWEEN_FIELDS;
+                // วนแต่ละบรรทัดเป็นช่วง [lineStart, lineEnd) ของ content (ไม่ split เป็น String[])
+                // '\n' ท้ายเนื้อหาไม่นับเป็นบรรทัด (เหมือน String.split เดิม)
+                int contentEnd = contentText.length();
+                while (contentEnd > 0 && contentText.charAt(contentEnd - 1) == '\n') {
+                    contentEnd--;
                 }
                 
-                // ============================================
-                // 📍 SECTION 6: เนื้อหา (รองรับหลายบรรทัด + ขึ้นหน้าใหม่อัตโนมัติ)
-                // ปรับแต่งได้ที่: FONT_SIZE_CONTENT, SPACING_BEFORE_CONTENT
-                // ============================================
-                if (content != null && !content.isEmpty()) {
-                    yPosition -= SPACING_BEFORE_CONTENT; // เว้นระยะห่างก่อนเนื้อหา
-                    log.info("Drawing content, length: {}", content.length());
-                    
-                    // แยกเนื้อหาเป็นบรรทัด
-                    String[] lines = content.split("\n");
-                    
-                    for (String line : lines) {
-                        // เช็คว่าพอดีหรือไม่ก่อนวาดแต่ละบรรทัด
-                        if (yPosition < MIN_Y_POSITION) {
-                            log.info("Content overflow, creating new page...");
-                            contentStream.close();
-                            
-                            PDPage newPage = createNewPage(document, fontRegular, bookNo);
-                            contentStream = new PDPageContentStream(document, newPage, PDPageContentStream.AppendMode.APPEND, true);
-                            yPosition = PAGE_HEIGHT - MARGIN_TOP - 50; // เริ่มหน้าใหม่
-                        }
-                        
-                        yPosition = drawMultilineText(contentStream, line, 
-                                                    fontRegular, FONT_SIZE_CONTENT, 
-                                                    MARGIN_LEFT, yPosition, 
-                                                    PAGE_WIDTH - MARGIN_LEFT - MARGIN_RIGHT);
+                int lineStart = 0;
+                while (lineStart < contentEnd) {
+                    int lineEnd = contentText.indexOf('\n', lineStart);
+                    if (lineEnd < 0 || lineEnd > contentEnd) {
+                        lineEnd = contentEnd;
                     }
-                }
-                
-                // ============================================
-                // 📍 SECTION 7: ลายเซ็น (ไม่วาดกรอบ - ใช้ช่องที่เจาะไว้แล้ว + ขึ้นหน้าใหม่ถ้าจำเป็น)
-                // ============================================
-                if (signatures != null && !signatures.isEmpty()) {
-                    log.info("Drawing {} signatures (text only)", signatures.size());
                     
-                    // เช็คว่ามีพื้นที่พอสำหรับลายเซ็นหรือไม่ (ต้องการอย่างน้อย 150 points)
-                    if (yPosition < MIN_Y_POSITION + 150) {
-                        log.info("Not enough space for signatures, creating new page...");
+                    // เช็คว่าพอดีหรือไม่ก่อนวาดแต่ละบรรทัด
+                    if (yPosition < MIN_Y_POSITION) {
+                        log.info("Content overflow, creating new page...");
                         contentStream.close();
                         
-                        PDPage newPage = createNewPage(document, fontRegular, bookNo);
+                        PDPage newPage = createNewPage(document, firstPageIndex, fontRegular, bookNo);
                         contentStream = new PDPageContentStream(document, newPage, PDPageContentStream.AppendMode.APPEND, true);
-                        yPosition = PAGE_HEIGHT - MARGIN_TOP - 50;
+                        yPosition = PAGE_HEIGHT - MARGIN_TOP - 50; // เริ่มหน้าใหม่
                     }
                     
-                    yPosition -= SPACING_BEFORE_SIGNATURES;
-                    
-                    // วางข้อความปิดท้าย
-                    yPosition = drawText(contentStream, "จึงเรียนมาเพื่อทราบและพิจารณา", 
-                                       fontRegular, FONT_SIZE_CONTENT, 
-                                       CLOSING_TEXT_X, yPosition);
-                    yPosition -= CLOSING_TEXT_Y_OFFSET;
+                    yPosition = drawMultilineText(contentStream, content, lineStart, lineEnd, 
+                                                contentFonts, fonts.widths(), FONT_SIZE_CONTENT, 
+                                                MARGIN_LEFT, yPosition, 
+                                                PAGE_WIDTH - MARGIN_LEFT - MARGIN_RIGHT);
+                    lineStart = lineEnd + 1;
+                }
+            }
+            
+            // ============================================
+            // 📍 SECTION 7: ลายเซ็น (ไม่วาดกรอบ - ใช้ช่องที่เจาะไว้แล้ว + ขึ้นหน้าใหม่ถ้าจำเป็น)
+            // ============================================
+            if (signatures != null && !signatures.isEmpty()) {
+                log.info("Drawing {} signatures (text only)", signatures.size());
+                
+                // เช็คว่ามีพื้นที่พอสำหรับลายเซ็นหรือไม่ (ต้องการอย่างน้อย 150 points)
+                if (yPosition < MIN_Y_POSITION + 150) {
+                    log.info("Not enough space for signatures, creating new page...");
+                    contentStream.close();
                     
-                    // วาดลายเซ็นแต่ละคน แบบแยกเป็นบรรทัด: เว้นช่องว่างสำหรับลายเซ็น, ชื่อ, ตำแหน่ง
-                    for (int i = 0; i < signatures.size(); i++) {
-                        String signature = signatures.get(i);
-                        // แยกข้อมูลลายเซ็นออกเป็นชื่อและตำแหน่ง (คาดว่า format: ชื่อ\nตำแหน่ง)
-                        String[] parts = signature.split("\\n");
-                        
-                        // เจาะช่องว่างสำหรับวางลายเซ็นจริง (ไม่วาดข้อความ "(ลายเซ็น)")
-                        // ถ้ามีรูปภาพลายเซ็น ให้วางรูปภาพ
-                        if (signatureImagePaths != null && i < signatureImagePaths.size() 
-                            && signatureImagePaths.get(i) != null && !signatureImagePaths.get(i).isEmpty()) {
-                            // วางรูปภาพลายเซ็น
-                            yPosition = drawSignatureImage(contentStream, document, signatureImagePaths.get(i), 
-                                                          SIGNATURE_NAME_X, yPosition);
-                        } else {
-                            // เว้นพื้นที่ว่างสำหรับลายเซ็นมือเขียน
-                            yPosition -= 50f;
-                        }
-                        
-                        // วาดชื่อ (ส่วนแรก) - ชิดขวาปานกลาง พร้อมวงเล็บ
-                        if (parts.length > 0) {
-                            yPosition = drawText(contentStream, "(" + parts[0] + ")",
-                                               fontRegular, FONT_SIZE_SIGNATURE,
-                                               SIGNATURE_NAME_X, yPosition);
-                            yPosition -= 20f;
-                        }
-                        
-                        // วาดตำแหน่ง (ส่วนที่สอง) - ชิดซ้ายกว่า
-                        if (parts.length > 1) {
-                            yPosition = drawText(contentStream, parts[1],
-                                               fontRegular, FONT_SIZE_SIGNATURE,
-                                               SIGNATURE_POSITION_X, yPosition);
-                        }
-                        
-                        yPosition -= SPACING_BETWEEN_SIGNATURES;
-                    }
+                    PDPage newPage = createNewPage(document, firstPageIndex, fontRegular, bookNo);
+                    contentStream = new PDPageContentStream(document, newPage, PDPageContentStream.AppendMode.APPEND, true);
+                    yPosition = PAGE_HEIGHT - MARGIN_TOP - 50;
                 }
                 
-                // ============================================
-                // 📍 SECTION 8: เลขที่หนังสือถูกวาดแล้วในแต่ละหน้า
-                // ไม่ต้องวาดซ้ำที่นี่เพราะวาดไปแล้วใน:
-                // - หน้าแรก: หลังวาด page number (บรรทัด ~254)
-                // - หน้าอื่น ๆ: ใน createNewPage method
-                // ============================================
+                yPosition -= SPACING_BEFORE_SIGNATURES;
                 
-                log.info("All content drawn successfully");
+                // วางข้อความปิดท้าย
+                yPosition = drawText(contentStream, "จึงเรียนมาเพื่อทราบและพิจารณา", 
+                                   fontRegular, FONT_SIZE_CONTENT, 
+                                   CLOSING_TEXT_X, yPosition);
+                yPosition -= CLOSING_TEXT_Y_OFFSET;
                 
-            } finally {
-                // ปิด content stream
-                if (contentStream != null) {
-                    contentStream.close();
+                // วาดลายเซ็นแต่ละคน แบบแยกเป็นบรรทัด: เว้นช่องว่างสำหรับลายเซ็น, ชื่อ, ตำแหน่ง
+                for (int i = 0; i < signatures.size(); i++) {
+                    String signature = signatures.get(i);
+                    // แยกข้อมูลลายเซ็นออกเป็นชื่อและตำแหน่ง (คาดว่า format: ชื่อ\nตำแหน่ง)
+                    String[] parts = signature.split("\\n");
+                    
+                    // เจาะช่องว่างสำหรับวางลายเซ็นจริง (ไม่วาดข้อความ "(ลายเซ็น)")
+                    // ถ้ามีรูปภาพลายเซ็น ให้วางรูปภาพ
+                    if (signatureImagePaths != null && i < signatureImagePaths.size() 
+                        && signatureImagePaths.get(i) != null && !signatureImagePaths.get(i).isEmpty()) {
+                        // วางรูปภาพลายเซ็น
+                        yPosition = drawSignatureImage(contentStream, document, signatureImagePaths.get(i), 
+                                                      SIGNATURE_NAME_X, yPosition);
+                    } else {
+                        // เว้นพื้นที่ว่างสำหรับลายเซ็นมือเขียน
+                        yPosition -= 50f;
+                    }
+                    
+                    // วาดชื่อ (ส่วนแรก) - ชิดขวาปานกลาง พร้อมวงเล็บ
+                    if (parts.length > 0) {
+                        yPosition = drawText(contentStream, "(" + parts[0] + ")",
+                                           fontRegular, FONT_SIZE_SIGNATURE,
+                                           SIGNATURE_NAME_X, yPosition);
+                        yPosition -= 20f;
+                    }
+                    
+                    // วาดตำแหน่ง (ส่วนที่สอง) - ชิดซ้ายกว่า
+                    if (parts.length > 1) {
+                        yPosition = drawText(contentStream, parts[1],
+                                           fontRegular, FONT_SIZE_SIGNATURE,
+                                           SIGNATURE_POSITION_X, yPosition);
+                    }
+                    
+                    yPosition -= SPACING_BETWEEN_SIGNATURES;
                 }
             }
             
-            // แปลงเป็น Base64
-            log.info("Converting to Base64...");
-            String base64 = convertToBase64(document);
-            log.info("PDF generated successfully, Base64 length: {}", base64.length());
-            return base64;
+            // ============================================
+            // 📍 SECTION 8: เลขที่หนังสือถูกวาดแล้วในแต่ละหน้า
+            // ไม่ต้องวาดซ้ำที่นี่เพราะวาดไปแล้วใน:
+            // - หน้าแรก: หลังวาด page number (บรรทัด ~254)
+            // - หน้าอื่น ๆ: ใน createNewPage method
+            // ============================================
             
-        } catch (Exception e) {
-            log.error("Error generating PDF: ", e);
-            throw new Exception("ไม่สามารถสร้าง PDF ได้: " + e.getMessage(), e);
+            log.info("All content drawn successfully");
+            
+        } finally {
+            // ปิด content stream
+            if (contentStream != null) {
+                contentStream.close();
+            }
         }
     }
     
@@ -510,57 +695,191 @@ public class PdfService {
                                   List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
         log.debug("Adding {} signature fields to PDF", signatureFields.size());
         
-        try (PDDocument document = org.apache.pdfbox.Loader.loadPDF(inputFile)) {
+        try (PDDocument document = Loader.loadPDF(inputFile)) {
+            drawSignatureFields(document, signatureFields);
+            saveOverlay(document, outputFile);
+            log.debug("Signature fields added successfully");
             
-            // ถ้าไม่มีหน้า ให้สร้างหน้าใหม่
-            if (document.getNumberOfPages() == 0) {
-                document.addPage(new PDPage(PDRectangle.A4));
+        } catch (Exception e) {
+            log.error("Error adding signature fields: ", e);
+            throw new Exception("ไม่สามารถเพิ่มลายเซ็นได้: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * เพิ่มฟิลด์ลายเซ็นลงใน PDF ที่อยู่ในหน่วยความจำ (ไม่ใช้ไฟล์ชั่วคราว)
+     * 
+     * @param pdfBytes PDF input
+     * @param signatureFields รายการฟิลด์ลายเซ็น
+     * @return PDF ที่เพิ่มลายเซ็นแล้ว
+     */
+    public byte[] addSignatureFields(byte[] pdfBytes,
+                                     List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        // ผลลัพธ์มีขนาดใกล้เคียง input (เพิ่มแค่ข้อความลายเซ็น)
+        ByteArrayOutputStream output = new ByteArrayOutputStream(pdfBytes.length + 8192);
+        addSignatureFields(new RandomAccessReadBuffer(pdfBytes), output, signatureFields);
+        return output.toByteArray();
+    }
+    
+    /**
+     * เพิ่มฟิลด์ลายเซ็นโดยอ่านจาก stream และเขียนผลลัพธ์ลง stream (ไม่ใช้ไฟล์ชั่วคราว)
+     * 
+     * ไม่ปิด input/output (ผู้เรียกเป็นเจ้าของ stream)
+     * 
+     * @param input PDF input (อ่านจนจบ)
+     * @param output ปลายทางของ PDF ที่เพิ่มลายเซ็นแล้ว
+     * @param signatureFields รายการฟิลด์ลายเซ็น
+     */
+    public void addSignatureFields(InputStream input,
+                                   OutputStream output,
+                                   List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        BufferedOutputStream buffered = new BufferedOutputStream(output);
+        addSignatureFields(RandomAccessReadBuffer.createBufferFromStream(input), buffered, signatureFields);
+        buffered.flush();
+    }
+    
+    /**
+     * เพิ่มฟิลด์ลายเซ็นผ่าน NIO channel (สำหรับ PDF ขนาดใหญ่)
+     * 
+     * ถ้า input เป็น FileChannel จะ map ไฟล์เข้าหน่วยความจำ (memory-mapped) แทนการ copy ลง heap
+     * ไม่ปิด input/output (ผู้เรียกเป็นเจ้าของ channel)
+     * 
+     * @param input PDF input (FileChannel อ่านตั้งแต่ position ปัจจุบันถึงท้ายไฟล์)
+     * @param output ปลายทางของ PDF ที่เพิ่มลายเซ็นแล้ว
+     * @param signatureFields รายการฟิลด์ลายเซ็น
+     */
+    public void addSignatureFields(ReadableByteChannel input,
+                                   WritableByteChannel output,
+                                   List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        RandomAccessRead source;
+        if (input instanceof FileChannel) {
+            FileChannel fileChannel = (FileChannel) input;
+            long length = fileChannel.size() - fileChannel.position();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("ไฟล์ PDF มีขนาดใหญ่เกินไป: " + length + " bytes");
             }
+            source = new RandomAccessReadBuffer(
+                fileChannel.map(FileChannel.MapMode.READ_ONLY, fileChannel.position(), length));
+        } else {
+            source = RandomAccessReadBuffer.createBufferFromStream(Channels.newInputStream(input));
+        }
+        
+        BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(output));
+        addSignatureFields(source, buffered, signatureFields);
+        buffered.flush();
+    }
+    
+    /**
+     * โหลด PDF จาก source, วาดฟิลด์ลายเซ็น แล้ว save ลง output
+     */
+    private void addSignatureFields(RandomAccessRead source,
+                                    OutputStream output,
+                                    List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        log.debug("Adding {} signature fields to PDF", signatureFields.size());
+        
+        try (PDDocument document = Loader.loadPDF(source)) {
+            drawSignatureFields(document, signatureFields);
+            saveOverlay(document, output);
+            log.debug("Signature fields added successfully");
             
-            // เพิ่มลายเซ็นในหน้าสุดท้าย
-            PDPage lastPage = document.getPage(document.getNumberOfPages() - 1);
-            PDFont font = loadThaiFont(document, FONT_PATH);
+        } catch (Exception e) {
+            log.error("Error adding signature fields: ", e);
+            throw new Exception("ไม่สามารถเพิ่มลายเซ็นได้: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * เพิ่มฟิลด์ลายเซ็นให้บันทึกข้อความหนึ่งฉบับใน MemoDocument (วาดที่หน้าสุดท้ายของฉบับนั้น)
+     * 
+     * ถ้าต้องเพิ่มหน้า จะแทรกต่อจากหน้าสุดท้ายของฉบับนั้น ทำให้ช่วงหน้าของฉบับถัดไปเลื่อนออก
+     * จึงควรเรียกจากฉบับสุดท้ายย้อนไปฉบับแรก
+     * 
+     * @param memoDocument document ที่รวมบันทึกข้อความ
+     * @param range ช่วงหน้าของฉบับที่จะเพิ่มลายเซ็น
+     * @param signatureFields รายการฟิลด์ลายเซ็น
+     * @return ช่วงหน้าใหม่ของฉบับนี้ (รวมหน้าที่เพิ่ม)
+     */
+    public MemoDocument.PageRange addSignatureFields(MemoDocument memoDocument,
+                                                     MemoDocument.PageRange range,
+                                                     List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        log.debug("Adding {} signature fields to pages {}", signatureFields.size(), range);
+        
+        PDDocument document = memoDocument.getDocument();
+        int pagesBefore = document.getNumberOfPages();
+        try {
+            drawSignatureFields(document, document.getPage(range.getLastPage()),
+                                memoDocument.fonts.regular(), signatureFields);
+        } catch (Exception e) {
+            log.error("Error adding signature fields: ", e);
+            throw new Exception("ไม่สามารถเพิ่มลายเซ็นได้: " + e.getMessage(), e);
+        }
+        int addedPages = document.getNumberOfPages() - pagesBefore;
+        return new MemoDocument.PageRange(range.getFirstPage(), range.getEndPage() + addedPages);
+    }
+    
+    /**
+     * วาดข้อความฟิลด์ลายเซ็นลงในหน้าสุดท้ายของ document
+     */
+    private void drawSignatureFields(PDDocument document,
+                                     List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws Exception {
+        // ถ้าไม่มีหน้า ให้สร้างหน้าใหม่
+        if (document.getNumberOfPages() == 0) {
+            document.addPage(new PDPage(PDRectangle.A4));
+        }
+        
+        // เพิ่มลายเซ็นในหน้าสุดท้าย
+        int lastIndex = document.getNumberOfPages() - 1;
+        PDPage lastPage = document.getPage(lastIndex);
+        drawSignatureFields(document, lastPage, loadThaiFont(document, FONT_PATH), signatureFields);
+        
+        // object ที่เปลี่ยน: หน้าสุดท้าย, หน้าที่แทรกเพิ่ม และ page tree (ถ้ามีหน้าเพิ่ม)
+        for (int i = lastIndex; i < document.getNumberOfPages(); i++) {
+            markPageUpdated(document.getPage(i));
+        }
+        if (document.getNumberOfPages() > lastIndex + 1) {
+            markPageTreeUpdated(document, lastPage);
+        }
+    }
+    
+    /**
+     * วาดข้อความฟิลด์ลายเซ็นลงใน lastPage (หน้าที่เพิ่มจะแทรกต่อจาก lastPage)
+     */
+    private void drawSignatureFields(PDDocument document,
+                                     PDPage lastPage,
+                                     PDFont font,
+                                     List<GeneratePdfService.SignatureFieldInfo> signatureFields) throws IOException {
+        try (PDPageContentStream contentStream = new PDPageContentStream(
+                document, lastPage, PDPageContentStream.AppendMode.APPEND, true)) {
+            
+            float yPosition = 200; // เริ่มจากด้านล่างของหน้า
             
-            try (PDPageContentStream contentStream = new PDPageContentStream(
-                    document, lastPage, PDPageContentStream.AppendMode.APPEND, true)) {
+            for (GeneratePdfService.SignatureFieldInfo field : signatureFields) {
+                // วาดข้อความลายเซ็น
+                drawText(contentStream, 
+                       field.getType() + " " + field.getName(), 
+                       font, 12, MARGIN_LEFT, yPosition);
                 
-                float yPosition = 200; // เริ่มจากด้านล่างของหน้า
+                if (field.getPosition() != null) {
+                    yPosition -= 15;
+                    drawText(contentStream, field.getPosition(), font, 10, 
+                           MARGIN_LEFT + 20, yPosition);
+                }
                 
-                for (GeneratePdfService.SignatureFieldInfo field : signatureFields) {
-                    // วาดข้อความลายเซ็น
-                    drawText(contentStream, 
-                           field.getType() + " " + field.getName(), 
-                           font, 12, MARGIN_LEFT, yPosition);
-                    
-                    if (field.getPosition() != null) {
-                        yPosition -= 15;
-                        drawText(contentStream, field.getPosition(), font, 10, 
-                               MARGIN_LEFT + 20, yPosition);
-                    }
-                    
-                    yPosition -= 30;
+                yPosition -= 30;
+                
+                // ถ้า yPosition ต่ำเกินไป ให้เพิ่มหน้าใหม่
+                if (yPosition < MARGIN_BOTTOM) {
+                    contentStream.close();
+                    PDPage newPage = new PDPage(PDRectangle.A4);
+                    document.getPages().insertAfter(newPage, lastPage);
                     
-                    // ถ้า yPosition ต่ำเกินไป ให้เพิ่มหน้าใหม่
-                    if (yPosition < MARGIN_BOTTOM) {
-                        contentStream.close();
-                        PDPage newPage = new PDPage(PDRectangle.A4);
-                        document.addPage(newPage);
-                        
-                        try (PDPageContentStream newContentStream = new PDPageContentStream(
-                                document, newPage)) {
-                            yPosition = PAGE_HEIGHT - MARGIN_TOP;
-                        }
-                        break;
+                    try (PDPageContentStream newContentStream = new PDPageContentStream(
+                            document, newPage)) {
+                        yPosition = PAGE_HEIGHT - MARGIN_TOP;
                     }
+                    break;
                 }
             }
-            
-            document.save(outputFile);
-            log.debug("Signature fields added successfully");
-            
-        } catch (Exception e) {
-            log.error("Error adding signature fields: ", e);
-            throw new Exception("ไม่สามารถเพิ่มลายเซ็นได้: " + e.getMessage(), e);
         }
     }
     
@@ -570,7 +889,7 @@ public class PdfService {
      * แปลงมาจาก: CheckAndAddPageNumbers() method
      */
     public void addPageNumbers(File inputFile, File outputFile) throws Exception {
-        try (PDDocument document = org.apache.pdfbox.Loader.loadPDF(inputFile)) {
+        try (PDDocument document = Loader.loadPDF(inputFile)) {
             PDFont font = loadThaiFont(document, FONT_PATH);
             
             int totalPages = document.getNumberOfPages();
@@ -582,14 +901,15 @@ public class PdfService {
                         document, page, PDPageContentStream.AppendMode.APPEND, true)) {
                     
                     String pageNumber = String.format("หน้า %d/%d", i + 1, totalPages);
-                    float textWidth = font.getStringWidth(pageNumber) / 1000 * 10;
+                    float textWidth = stringWidth(font, pageNumber, 10);
                     float xPosition = (PAGE_WIDTH - textWidth) / 2;
                     
                     drawText(contentStream, pageNumber, font, 10, xPosition, MARGIN_BOTTOM - 20);
                 }
+                markPageUpdated(page);
             }
             
-            document.save(outputFile);
+            saveOverlay(document, outputFile);
             
         } catch (Exception e) {
             log.error("Error adding page numbers: ", e);
@@ -600,30 +920,116 @@ public class PdfService {
     // ===== Helper Methods =====
     
     /**
-     * โหลด Thai font จาก resources
+     * บันทึก PDF ที่โหลดมาแล้ววาดทับ (ลายเซ็น/เลขหน้า)
+     * 
+     * แบบ incremental: คัดลอก bytes เดิมแล้วต่อท้ายเฉพาะ object ที่เปลี่ยนหรือเพิ่มใหม่
+     * (content stream ใหม่, page dictionary, font) ต้นทุนจึงขึ้นกับขนาดที่เปลี่ยน ไม่ต้อง serialize ทั้งไฟล์ใหม่
+     * และลายเซ็นดิจิทัลเดิมใน PDF ยังใช้ได้ เพราะ bytes ที่ถูกเซ็นไว้ไม่เปลี่ยน
+     * 
+     * object ที่เปลี่ยนต้อง mark ด้วย markPageUpdated / markPageTreeUpdated ก่อนเรียก
+     */
+    private void saveOverlay(PDDocument document, OutputStream output) throws IOException {
+        if (incrementalOverlay) {
+            document.saveIncremental(output);
+        } else {
+            outputProfile.save(document, output);
+        }
+    }
+    
+    private void saveOverlay(PDDocument document, File outputFile) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            saveOverlay(document, output);
+        }
+    }
+    
+    /**
+     * mark หน้าที่ถูกวาดทับ (content stream และ resources เปลี่ยน) สำหรับ incremental update
+     */
+    private static void markPageUpdated(PDPage page) {
+        page.getCOSObject().setNeedToBeUpdated(true);
+        PDResources resources = page.getResources();
+        if (resources != null) {
+            resources.getCOSObject().setNeedToBeUpdated(true);
+        }
+    }
+    
+    /**
+     * mark page tree ตั้งแต่ parent ของหน้าขึ้นไปถึง catalog (เมื่อมีการแทรกหน้า)
+     */
+    private static void markPageTreeUpdated(PDDocument document, PDPage page) {
+        COSDictionary node = page.getCOSObject().getCOSDictionary(COSName.PARENT);
+        while (node != null) {
+            node.setNeedToBeUpdated(true);
+            node = node.getCOSDictionary(COSName.PARENT);
+        }
+        document.getDocumentCatalog().getCOSObject().setNeedToBeUpdated(true);
+    }
+    
+    /**
+     * โหลด Thai font สำหรับ document (ใช้ font ที่ parse ไว้แล้วจาก FontRegistry)
      */
     private PDFont loadThaiFont(PDDocument document, String fontPath) throws Exception {
         try {
-            log.debug("Loading Thai font from: {}", fontPath);
-            ClassPathResource resource = new ClassPathResource(fontPath);
-            
-            if (!resource.exists()) {
-                log.error("Font file not found in classpath: {}", fontPath);
-                throw new Exception("ไม่พบไฟล์ฟอนต์: " + fontPath);
-            }
-            
-            try (InputStream is = resource.getInputStream()) {
-                PDFont font = PDType0Font.load(document, is);
-                log.debug("Font loaded successfully");
-                return font;
-            }
-            
+            log.debug("Binding Thai font: {}", fontPath);
+            return fontRegistry.bind(document, fontPath);
         } catch (Exception e) {
             log.error("Error loading Thai font: ", e);
             throw new Exception("ไม่สามารถโหลดฟอนต์ภาษาไทยได้: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * สร้าง image XObject ของโลโก้ ETDA ครั้งเดียวต่อ document
+     * 
+     * เดิม: สร้างใหม่ทุกฉบับ - document ที่รวมหลายฉบับได้ image stream (และ SMask) ของโลโก้ซ้ำทุกฉบับ
+     * ใหม่: ทุกฉบับใน document อ้าง XObject เดียวกัน (copy จาก ImageAssetCache ไม่ decode PNG ใหม่)
+     * 
+     * @return โลโก้ หรือ null ถ้าโหลดไม่ได้ (บันทึกข้อความยังสร้างได้โดยไม่มีโลโก้)
+     */
+    private PDImageXObject createLogo(PDDocument document) {
+        try {
+            return imageAssets.create(document, ImageAssetCache.LOGO_ETDA);
+        } catch (Exception e) {
+            log.warn("Could not load ETDA logo: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * bind fonts ของบันทึกข้อความ (regular/bold ทันที, italic เมื่อใช้ครั้งแรก)
+     */
+    private MemoFonts loadMemoFonts(PDDocument document) throws Exception {
+        try {
+            log.debug("Binding Thai fonts: {}, {}", FONT_PATH, FONT_BOLD_PATH);
+            return new MemoFonts(document, fontRegistry);
+        } catch (Exception e) {
+            log.error("Error loading Thai font: ", e);
+            throw new Exception("ไม่สามารถโหลดฟอนต์ภาษาไทยได้: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * วัดความกว้างข้อความ (หน่วย points) ด้วยตารางความกว้างของ font
+     */
+    private float stringWidth(PDFont font, CharSequence text, float fontSize) throws IOException {
+        return stringWidth(font, text, 0, text.length(), fontSize);
+    }
+    
+    /**
+     * วัดความกว้างของ text[start, end) (หน่วย points)
+     * 
+     * ใช้ GlyphWidthTable (loop บน float[] ไม่มี allocation)
+     * ถ้ามีตัวอักษรที่ไม่อยู่ในตาราง จะ fallback ไปใช้ PDFont.getStringWidth เหมือนเดิม
+     */
+    private float stringWidth(PDFont font, CharSequence text, int start, int end, float fontSize) throws IOException {
+        GlyphWidthTable widths = fontRegistry.widthsOf(font);
+        float width = widths != null ? widths.measure(text, start, end) : Float.NaN;
+        if (Float.isNaN(width)) {
+            width = font.getStringWidth(text.subSequence(start, end).toString());
+        }
+        return width / 1000 * fontSize;
+    }
+    
     /**
      * วาดข้อความ (sanitize newline characters)
      */
@@ -636,10 +1042,30 @@ public class PdfService {
         if (text == null || text.isEmpty()) {
             return y;
         }
+        return drawText(contentStream, text, 0, text.length(), font, fontSize, x, y);
+    }
+    
+    /**
+     * วาดข้อความช่วง text[start, end) (sanitize newline characters)
+     * 
+     * showText ของ PDFBox รับเฉพาะ String จึงมี String 1 ตัวต่อบรรทัด
+     * (ถ้าช่วงคือข้อความทั้งหมดและไม่มี \n \r \t จะใช้ String เดิมโดยไม่ copy)
+     */
+    private float drawText(PDPageContentStream contentStream, 
+                          String text, 
+                          int start, 
+                          int end, 
+                          PDFont font, 
+                          float fontSize, 
+                          float x, 
+                          float y) throws IOException {
+        if (start >= end) {
+            return y;
+        }
         
         // แทนที่ \n ด้วย space เพราะ PDFBox ไม่รองรับ \n ใน showText
         // multiline ควรใช้ drawMultilineText แทน
-        String sanitizedText = text.replace("\n", " ").replace("\r", " ").replace("\t", "    ");
+        String sanitizedText = sanitize(text, start, end);
         
         contentStream.beginText();
         contentStream.setFont(font, fontSize);
@@ -649,6 +1075,42 @@ public class PdfService {
         return y - fontSize - 5;
     }
     
+    /**
+     * แทนที่ \n \r ด้วย space และ \t ด้วย 4 spaces ในช่วง text[start, end)
+     * 
+     * เดิม: text.replace("\n", " ").replace("\r", " ").replace("\t", "    ") สร้าง String ใหม่ 3 ครั้งทุกบรรทัด
+     * ใหม่: scan รอบเดียว ถ้าไม่มีตัวอักษรที่ต้องแทนก็คืนช่วงเดิม (substring ของทั้งข้อความคือ String เดิม)
+     *       ถ้ามีจึงประกอบใน StringBuilder ของ thread นี้
+     */
+    private String sanitize(String text, int start, int end) {
+        int i = start;
+        while (i < end && !needsSanitize(text.charAt(i))) {
+            i++;
+        }
+        if (i == end) {
+            return text.substring(start, end);
+        }
+        
+        StringBuilder sb = layoutScratch.get().text;
+        sb.setLength(0);
+        sb.append(text, start, i);
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                sb.append(' ');
+            } else if (c == '\t') {
+                sb.append("    ");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+    
+    private static boolean needsSanitize(char c) {
+        return c == '\n' || c == '\r' || c == '\t';
+    }
+    
     /**
      * วาดข้อความตรงกลาง
      */
@@ -657,7 +1119,7 @@ public class PdfService {
                                   PDFont font,
                                   float fontSize,
                                   float y) throws IOException {
-        float textWidth = font.getStringWidth(text) / 1000 * fontSize;
+        float textWidth = stringWidth(font, text, fontSize);
         float x = (PAGE_WIDTH - textWidth) / 2;
         return drawText(contentStream, text, font, fontSize, x, y);
     }
@@ -680,14 +1142,15 @@ public class PdfService {
                                         float x,
                                         float y) throws IOException {
         // วาดป้ายกำกับ (เช่น "ส่วนราชการ") - ใช้ labelFont (ตัวหนา) กับ labelFontSize
+        String labelText = label + " ";
         contentStream.beginText();
         contentStream.setFont(labelFont, labelFontSize);
         contentStream.newLineAtOffset(x, y);
-        contentStream.showText(label + " ");
+        contentStream.showText(labelText);
         contentStream.endText();
         
         // คำนวณความกว้างของป้ายกำกับ
-        float labelWidth = labelFont.getStringWidth(label + " ") / 1000 * labelFontSize;
+        float labelWidth = stringWidth(labelFont, labelText, labelFontSize);
         float valueX = x + labelWidth;
         float maxWidth = PAGE_WIDTH - MARGIN_RIGHT - valueX; // พื้นที่ที่เหลือสำหรับข้อความ
         
@@ -695,17 +1158,19 @@ public class PdfService {
         
         // วาดค่า (ถ้ามี)
         if (value != null && !value.isEmpty()) {
-            String sanitizedValue = value.replace("\n", " ").replace("\r", " ").replace("\t", "    ");
+            String sanitizedValue = sanitize(value, 0, value.length());
             
             // แบ่งข้อความเป็นหลายบรรทัดถ้ายาวเกิน (ใช้ valueFont และ valueFontSize สำหรับคำนวณความกว้าง)
-            List<String> lines = splitTextToFitWidth(sanitizedValue, valueFont, valueFontSize, maxWidth);
+            // ข้อความไม่ว่างจึงได้อย่างน้อย 1 บรรทัดเสมอ
+            LineBreaker lines = breakLines(sanitizedValue, 0, sanitizedValue.length(),
+                                           valueFont, valueFontSize, maxWidth, maxWidth, false);
             
-            for (String line : lines) {
+            for (int i = 0; i < lines.count(); i++) {
                 // วาดข้อความ - ใช้ valueFont (ตัวธรรมดา) กับ valueFontSize
                 contentStream.beginText();
                 contentStream.setFont(valueFont, valueFontSize);
                 contentStream.newLineAtOffset(valueX, currentY);
-                contentStream.showText(line);
+                contentStream.showText(sanitizedValue.substring(lines.start(i), lines.end(i)));
                 contentStream.endText();
                 
                 // วาดเส้นประจุดไข่ปลาใต้ข้อความเต็มความยาว
@@ -713,12 +1178,12 @@ public class PdfService {
                 float underlineEndX = PAGE_WIDTH - MARGIN_RIGHT;
                 
                 // ตั้งค่าเป็นเส้นประแบบจุดไข่ปลา: 1pt เส้น, 2pt ช่องว่าง
-                contentStream.setLineDashPattern(new float[]{1, 2}, 0);
+                contentStream.setLineDashPattern(DASH_DOTTED, 0);
                 contentStream.moveTo(valueX, underlineY);
                 contentStream.lineTo(underlineEndX, underlineY);
                 contentStream.stroke();
                 // รีเซ็ตกลับเป็นเส้นตรง
-                contentStream.setLineDashPattern(new float[]{}, 0);
+                contentStream.setLineDashPattern(DASH_SOLID, 0);
                 
                 // เลื่อนลงไปบรรทัดถัดไป
                 currentY -= valueFontSize + 5;
@@ -729,12 +1194,12 @@ public class PdfService {
             float underlineEndX = PAGE_WIDTH - MARGIN_RIGHT;
             
             // ตั้งค่าเป็นเส้นประแบบจุดไข่ปลา
-            contentStream.setLineDashPattern(new float[]{1, 2}, 0);
+            contentStream.setLineDashPattern(DASH_DOTTED, 0);
             contentStream.moveTo(valueX, underlineY);
             contentStream.lineTo(underlineEndX, underlineY);
             contentStream.stroke();
             // รีเซ็ตกลับเป็นเส้นตรง
-            contentStream.setLineDashPattern(new float[]{}, 0);
+            contentStream.setLineDashPattern(DASH_SOLID, 0);
             
             currentY -= valueFontSize + 5;
         }
@@ -759,19 +1224,20 @@ public class PdfService {
                                         float y,
                                         float maxUnderlineX) throws IOException {
         // วาดป้ายกำกับ (เช่น "ที่") - ใช้ labelFont (ตัวหนา) กับ labelFontSize
+        String labelText = label + " ";
         contentStream.beginText();
         contentStream.setFont(labelFont, labelFontSize);
         contentStream.newLineAtOffset(x, y);
-        contentStream.showText(label + " ");
+        contentStream.showText(labelText);
         contentStream.endText();
         
         // คำนวณความกว้างของป้ายกำกับ
-        float labelWidth = labelFont.getStringWidth(label + " ") / 1000 * labelFontSize;
+        float labelWidth = stringWidth(labelFont, labelText, labelFontSize);
         float valueX = x + labelWidth;
         
         // วาดค่า (ถ้ามี) - ใช้ valueFont (ตัวธรรมดา) กับ valueFontSize
         if (value != null && !value.isEmpty()) {
-            String sanitizedValue = value.replace("\n", " ").replace("\r", " ").replace("\t", "    ");
+            String sanitizedValue = sanitize(value, 0, value.length());
             contentStream.beginText();
             contentStream.setFont(valueFont, valueFontSize);
             contentStream.newLineAtOffset(valueX, y);
@@ -783,113 +1249,16 @@ public class PdfService {
         float underlineY = y - 3;
         
         // ตั้งค่าเป็นเส้นประแบบจุดไข่ปลา: 1pt เส้น, 2pt ช่องว่าง
-        contentStream.setLineDashPattern(new float[]{1, 2}, 0);
+        contentStream.setLineDashPattern(DASH_DOTTED, 0);
         contentStream.moveTo(valueX, underlineY);
         contentStream.lineTo(maxUnderlineX, underlineY);
         contentStream.stroke();
         // รีเซ็ตกลับเป็นเส้นตรง
-        contentStream.setLineDashPattern(new float[]{}, 0);
+        contentStream.setLineDashPattern(DASH_SOLID, 0);
         
         return y - Math.max(labelFontSize, valueFontSize) - 5;
     }
     
-    /**
-     * แบ่งข้อความเป็นหลายบรรทัดให้พอดีกับความกว้างที่กำหนด
-     * รองรับทั้งการตัดคำ (มี space) และตัดตัวอักษร (ไม่มี space)
-     */
-    private List<String> splitTextToFitWidth(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
-        List<String> lines = new ArrayList<>();
-        StringBuilder currentLine = new StringBuilder();
-        
-        // แบ่งเป็นคำด้วย space
-        String[] words = text.split(" ");
-        
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i];
-            String separator = (i == 0 || currentLine.length() == 0) ? "" : " ";
-            String testLine = currentLine.toString() + separator + word;
-            float testWidth = font.getStringWidth(testLine) / 1000 * fontSize;
-            
-            if (testWidth > maxWidth) {
-                // ถ้าบรรทัดปัจจุบันยังว่างอยู่ แต่คำเดียวยาวเกิน = ต้องตัดทีละตัวอักษร
-                if (currentLine.length() == 0) {
-                    // ตัดคำยาวๆ ทีละตัวอักษร
-                    for (int j = 0; j < word.length(); j++) {
-                        char c = word.charAt(j);
-                        String testChar = currentLine.toString() + c;
-                        float charWidth = font.getStringWidth(testChar) / 1000 * fontSize;
-                        
-                        if (charWidth > maxWidth && currentLine.length() > 0) {
-                            // บรรทัดเต็มแล้ว บันทึกและเริ่มใหม่
-                            lines.add(currentLine.toString());
-                            currentLine = new StringBuilder(String.valueOf(c));
-                        } else {
-                            currentLine.append(c);
-                        }
-                    }
-                    // เพิ่ม space หลังคำ ถ้ายังมีคำถัดไป
-                    if (i < words.length - 1) {
-                        float spaceWidth = font.getStringWidth(currentLine.toString() + " ") / 1000 * fontSize;
-                        if (spaceWidth <= maxWidth) {
-                            currentLine.append(" ");
-                        } else {
-                            lines.add(currentLine.toString());
-                            currentLine = new StringBuilder();
-                        }
-                    }
-                } else {
-                    // บรรทัดปัจจุบันมีข้อความอยู่แล้ว บันทึกและนำคำนี้ไปบรรทัดใหม่
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder(word);
-                    
-                    // เช็คว่าคำที่ย้ายมายาวเกินหรือไม่ ถ้าเกินต้องตัดทีละตัวอักษร
-                    float wordWidth = font.getStringWidth(word) / 1000 * fontSize;
-                    if (wordWidth > maxWidth) {
-                        // ตัดคำยาวๆ ทีละตัวอักษร
-                        currentLine = new StringBuilder();
-                        for (int j = 0; j < word.length(); j++) {
-                            char c = word.charAt(j);
-                            String testChar = currentLine.toString() + c;
-                            float charWidth = font.getStringWidth(testChar) / 1000 * fontSize;
-                            
-                            if (charWidth > maxWidth && currentLine.length() > 0) {
-                                lines.add(currentLine.toString());
-                                currentLine = new StringBuilder(String.valueOf(c));
-                            } else {
-                                currentLine.append(c);
-                            }
-                        }
-                    }
-                    
-                    // เพิ่ม space หลังคำ ถ้ายังมีคำถัดไป
-                    if (i < words.length - 1 && currentLine.length() > 0) {
-                        float spaceWidth = font.getStringWidth(currentLine.toString() + " ") / 1000 * fontSize;
-                        if (spaceWidth <= maxWidth) {
-                            currentLine.append(" ");
-                        } else {
-                            lines.add(currentLine.toString());
-                            currentLine = new StringBuilder();
-                        }
-                    }
-                }
-            } else {
-                currentLine = new StringBuilder(testLine);
-            }
-        }
-        
-        // เพิ่มบรรทัดสุดท้าย
-        if (currentLine.length() > 0) {
-            lines.add(currentLine.toString());
-        }
-        
-        // ป้องกันกรณี return list ว่าง
-        if (lines.isEmpty()) {
-            lines.add("");
-        }
-        
-        return lines;
-    }
-    
     /**
      * วาดข้อความหลายบรรทัด พร้อม indent สำหรับบรรทัดที่ขึ้นใหม่
      * เหมาะสำหรับ "เรียน" ที่ต้องการให้บรรทัดที่ 2 เป็นต้นไปเยื้องให้ชื่อเรียงกัน
@@ -905,22 +1274,19 @@ public class PdfService {
                                               float maxWidth,
                                               String indentText) throws IOException {
         // คำนวณความกว้างของ indent
-        float indentWidth = font.getStringWidth(indentText) / 1000 * fontSize;
+        float indentWidth = stringWidth(font, indentText, fontSize);
         
-        // แยกข้อความเป็นบรรทัด (split by maxWidth)
-        List<String> lines = splitTextToLines(text, font, fontSize, maxWidth);
+        // แยกข้อความเป็นบรรทัด (บรรทัดถัดไปแคบลงตาม indent เพื่อไม่ให้ล้นขอบขวา)
+        LineBreaker lines = breakLines(text, 0, text.length(), font, fontSize, maxWidth, maxWidth - indentWidth, true);
         
         float currentY = y;
-        float lineHeight = fontSize + 5; // ระยะห่างระหว่างบรรทัด
         
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
-            
+        for (int i = 0; i < lines.count(); i++) {
             // บรรทัดแรก: ใช้ x ปกติ
             // บรรทัดถัดไป: เยื้องเข้ามาตาม indentWidth
             float lineX = (i == 0) ? x : (x + indentWidth);
             
-            currentY = drawText(contentStream, line, font, fontSize, lineX, currentY);
+            currentY = drawText(contentStream, text, lines.start(i), lines.end(i), font, fontSize, lineX, currentY);
             currentY -= 5; // spacing ระหว่างบรรทัด
         }
         
@@ -928,20 +1294,23 @@ public class PdfService {
     }
     
     /**
-     * วาดข้อความหลายบรรทัด
+     * วาดข้อความหลายบรรทัดจากช่วง text[start, end)
+     * รองรับ newline (\n) และ Thai text
      */
     private float drawMultilineText(PDPageContentStream contentStream,
                                    String text,
+                                   int start,
+                                   int end,
                                    PDFont font,
                                    float fontSize,
                                    float x,
                                    float y,
                                    float maxWidth) throws IOException {
-        List<String> lines = splitTextToLines(text, font, fontSize, maxWidth);
+        LineBreaker lines = breakLines(text, start, end, font, fontSize, maxWidth, maxWidth, true);
         
         float currentY = y;
-        for (String line : lines) {
-            currentY = drawText(contentStream, line, font, fontSize, x, currentY);
+        for (int i = 0; i < lines.count(); i++) {
+            currentY = drawText(contentStream, text, lines.start(i), lines.end(i), font, fontSize, x, currentY);
             currentY -= 5; // spacing ระหว่างบรรทัด
         }
         
@@ -949,73 +1318,101 @@ public class PdfService {
     }
     
     /**
-     * แบ่งข้อความเป็นบรรทัดตามความกว้าง
-     * รองรับ newline (\n) และ Thai text
+     * วาดข้อความหลายบรรทัดจากช่วง text[start, end) ของข้อความที่มี style
+     * 
+     * ข้อความที่ไม่มี run ใช้ drawMultilineText เดิม (font เดียว ผลลัพธ์เหมือนเดิมทุกอย่าง)
+     * บรรทัดที่มีหลาย style วาดทีละช่วงของ run ด้วย font ของ style นั้น
+     * เลื่อน x ตามความกว้างของช่วง และขีดเส้นใต้ช่วงที่เป็น UNDERLINE
+     * 
+     * @param fonts font ตาม style จาก MemoFonts.fontsFor(text)
+     * @param widths ตารางความกว้าง index เดียวกับ fonts
      */
-    private List<String> splitTextToLines(String text, PDFont font, float fontSize, float maxWidth) 
-            throws IOException {
-        List<String> lines = new ArrayList<>();
-        
-        if (text == null || text.isEmpty()) {
-            return lines;
+    private float drawMultilineText(PDPageContentStream contentStream,
+                                   StyledText text,
+                                   int start,
+                                   int end,
+                                   PDFont[] fonts,
+                                   GlyphWidthTable[] widths,
+                                   float fontSize,
+                                   float x,
+                                   float y,
+                                   float maxWidth) throws IOException {
+        if (text.isPlain()) {
+            return drawMultilineText(contentStream, text.text(), start, end, fonts[0], fontSize, x, y, maxWidth);
         }
         
-        // แยกตาม newline ก่อน
-        String[] paragraphs = text.split("\n");
+        LineBreaker lines = layoutScratch.get().lineBreaker;
+        lines.reset(text, widths, fonts, fontSize);
+        try {
+            lines.breakText(text.text(), start, end, maxWidth, maxWidth, true);
+        } finally {
+            lines.release();
+        }
         
-        for (String paragraph : paragraphs) {
-            if (paragraph.trim().isEmpty()) {
-                lines.add(""); // เก็บบรรทัดว่างไว้
-                continue;
-            }
-            
-            // เก็บ leading spaces (indent) ไว้
-            int leadingSpaces = 0;
-            while (leadingSpaces < paragraph.length() && paragraph.charAt(leadingSpaces) == ' ') {
-                leadingSpaces++;
-            }
-            String indent = leadingSpaces > 0 ? paragraph.substring(0, leadingSpaces) : "";
-            String content = paragraph.substring(leadingSpaces);
-            
-            // แยกตามช่องว่าง
-            String[] words = content.split(" ");
-            StringBuilder currentLine = new StringBuilder();
-            boolean isFirstLine = true;
-            
-            for (String word : words) {
-                if (word.isEmpty()) continue;
-                
-                String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
-                // เพิ่ม indent ถ้าเป็นบรรทัดแรก
-                if (isFirstLine && !indent.isEmpty()) {
-                    testLine = indent + testLine;
+        float currentY = y;
+        int run = 0;
+        for (int i = 0; i < lines.count(); i++) {
+            int segmentStart = lines.start(i);
+            int lineEnd = lines.end(i);
+            float segmentX = x;
+            while (segmentStart < lineEnd) {
+                // ช่วงที่ style เดียวกัน: ภายใน run หรือช่องว่างก่อน run ถัดไป
+                run = text.findRun(segmentStart, run);
+                int style = 0;
+                int segmentEnd = lineEnd;
+                if (run < text.runCount()) {
+                    if (text.runStart(run) <= segmentStart) {
+                        style = text.runStyle(run);
+                        segmentEnd = Math.min(lineEnd, text.runEnd(run));
+                    } else {
+                        segmentEnd = Math.min(lineEnd, text.runStart(run));
+                    }
                 }
                 
-                float width = font.getStringWidth(testLine) / 1000 * fontSize;
-                
-                if (width > maxWidth && currentLine.length() > 0) {
-                    // ถ้าเป็นบรรทัดแรก ให้ใส่ indent
-                    String lineToAdd = isFirstLine && !indent.isEmpty() ? indent + currentLine.toString() : currentLine.toString();
-                    lines.add(lineToAdd);
-                    currentLine = new StringBuilder(word);
-                    isFirstLine = false; // บรรทัดต่อไปไม่ใส่ indent
-                } else {
-                    currentLine = new StringBuilder(testLine);
-                    if (isFirstLine && !indent.isEmpty()) {
-                        // ลบ indent ออกจาก currentLine เพื่อคำนวณครั้งต่อไป
-                        currentLine = new StringBuilder(testLine.substring(indent.length()));
-                    }
+                PDFont font = fonts[style & StyledText.FONT_STYLES];
+                drawText(contentStream, text.text(), segmentStart, segmentEnd, font, fontSize, segmentX, currentY);
+                float segmentWidth = stringWidth(font, text.text(), segmentStart, segmentEnd, fontSize);
+                if ((style & StyledText.UNDERLINE) != 0) {
+                    float underlineY = currentY - 3;
+                    contentStream.moveTo(segmentX, underlineY);
+                    contentStream.lineTo(segmentX + segmentWidth, underlineY);
+                    contentStream.stroke();
                 }
+                segmentX += segmentWidth;
+                segmentStart = segmentEnd;
             }
-            
-            if (currentLine.length() > 0) {
-                // ถ้าเป็นบรรทัดแรก ให้ใส่ indent
-                String lineToAdd = isFirstLine && !indent.isEmpty() ? indent + currentLine.toString() : currentLine.toString();
-                lines.add(lineToAdd);
+            // เหมือน drawText: บรรทัดว่างไม่เลื่อน y (เหลือแค่ spacing)
+            if (lines.start(i) < lineEnd) {
+                currentY -= fontSize + 5;
             }
+            currentY -= 5; // spacing ระหว่างบรรทัด
         }
         
-        return lines;
+        return currentY;
+    }
+    
+    /**
+     * ตัดบรรทัด text[start, end) ด้วย LineBreaker ของ thread นี้ (single pass + ขอบคำไทยจากพจนานุกรม)
+     * 
+     * ผลลัพธ์เป็นช่วง start(i)/end(i) ของข้อความเดิม (ไม่สร้าง List/substring)
+     * ใช้ได้จนกว่าจะเรียก breakLines ครั้งถัดไปใน thread เดียวกัน
+     * 
+     * @param firstLineWidth ความกว้างสูงสุดของบรรทัดแรก
+     * @param otherLineWidth ความกว้างสูงสุดของบรรทัดถัดไป
+     * @param keepIndent เก็บช่องว่างนำหน้าย่อหน้าไว้ในบรรทัดแรกของย่อหน้า
+     */
+    private LineBreaker breakLines(CharSequence text, int start, int end,
+                                   PDFont font, float fontSize,
+                                   float firstLineWidth, float otherLineWidth,
+                                   boolean keepIndent) throws IOException {
+        LineBreaker breaker = layoutScratch.get().lineBreaker;
+        breaker.reset(fontRegistry.widthsOf(font), font, fontSize);
+        try {
+            breaker.breakText(text, start, end, firstLineWidth, otherLineWidth, keepIndent);
+        } finally {
+            breaker.release();
+        }
+        return breaker;
     }
     
     /**
@@ -1034,33 +1431,10 @@ public class PdfService {
                                     float x,
                                     float y) throws IOException {
         try {
-            PDImageXObject signatureImage;
-            
-            // ตรวจสอบว่าเป็น classpath resource หรือ file path
-            if (imagePath.startsWith("classpath:")) {
-                // โหลดจาก classpath
-                String resourcePath = imagePath.substring("classpath:".length());
-                InputStream imageStream = getClass().getClassLoader().getResourceAsStream(resourcePath);
-                if (imageStream != null) {
-                    signatureImage = PDImageXObject.createFromByteArray(
-                        document, imageStream.readAllBytes(), "signature");
-                    imageStream.close();
-                } else {
-                    log.warn("Signature image not found in classpath: {}", resourcePath);
-                    return y - 50f; // return default spacing
-                }
-            } else {
-                // โหลดจาก file system
-                ClassPathResource resource = new ClassPathResource(imagePath);
-                if (resource.exists()) {
-                    try (InputStream imageStream = resource.getInputStream()) {
-                        signatureImage = PDImageXObject.createFromByteArray(
-                            document, imageStream.readAllBytes(), "signature");
-                    }
-                } else {
-                    log.warn("Signature image file not found: {}", imagePath);
-                    return y - 50f; // return default spacing
-                }
+            // ใช้ image XObject ที่ encode แล้วจาก cache (decode เฉพาะครั้งแรกของแต่ละไฟล์)
+            PDImageXObject signatureImage = signatureImages.create(document, imagePath);
+            if (signatureImage == null) {
+                return y - 50f; // return default spacing
             }
             
             // กำหนดขนาดรูปภาพลายเซ็น (ปรับได้ตามต้องการ)
@@ -1112,13 +1486,26 @@ public class PdfService {
     }
     
     /**
-     * แปลง PDDocument เป็น Base64
+     * บันทึก PDDocument เป็น bytes (ตาม PdfOutputProfile)
      */
-    private String convertToBase64(PDDocument document) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
-        byte[] pdfBytes = baos.toByteArray();
-        log.debug("PDF converted to Base64, size: {} bytes", pdfBytes.length);
-        return Base64.getEncoder().encodeToString(pdfBytes);
+    private byte[] toPdfBytes(PDDocument document) throws IOException {
+        return outputProfile.toBytes(document);
+    }
+    
+    private LayoutScratch newLayoutScratch() {
+        return new LayoutScratch(thaiDictionary.segmenter());
+    }
+    
+    /**
+     * buffer สำหรับ layout ที่ใช้ซ้ำภายใน thread เดียว (ดู layoutScratch)
+     */
+    private static final class LayoutScratch {
+        
+        private final LineBreaker lineBreaker;
+        private final StringBuilder text = new StringBuilder(256);
+        
+        LayoutScratch(ThaiWordSegmenter segmenter) {
+            this.lineBreaker = new LineBreaker(null, null, 0f, segmenter);
+        }
     }
 }
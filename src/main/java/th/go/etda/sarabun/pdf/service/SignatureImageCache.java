@@ -0,0 +1,112 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.EncodedImage;
+import th.go.etda.sarabun.pdf.util.LruCache;
+
+/**
+ * Cache รูปภาพลายเซ็นแบบจำกัดขนาด (LRU) ในรูปแบบ image XObject ที่ encode แล้ว
+ *
+ * เดิม: drawSignatureImage อ่านไฟล์และเรียก PDImageXObject.createFromByteArray ทุกครั้ง
+ *       (decode PNG + compress ใหม่) แม้ผู้ลงนามคนเดิมจะลงนามหลายพันฉบับต่อวัน
+ * ใหม่: อ่าน bytes ของไฟล์แล้วใช้ path + SHA-256 ของเนื้อหาเป็น key
+ *       ถ้ามีใน cache จะ copy stream ที่ encode แล้วเข้า document (ไม่ decode ใหม่)
+ *       ถ้าไฟล์ลายเซ็นถูกเปลี่ยน hash จะเปลี่ยนตาม จึงไม่ใช้รูปเก่าค้าง
+ *
+ * จำนวน entry สูงสุดตั้งได้ด้วย pdf.signature-cache.max-entries
+ * ดู hit/miss/eviction ได้ที่ /actuator/metrics/cache.gets?tag=cache:signatureImages
+ */
+@Slf4j
+@Service
+public class SignatureImageCache {
+
+    public static final String CACHE_NAME = "signatureImages";
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final LruCache<String, EncodedImage> images;
+
+    public SignatureImageCache(@Value("${pdf.signature-cache.max-entries:" + DEFAULT_MAX_ENTRIES + "}") int maxEntries) {
+        this.images = new LruCache<>(maxEntries);
+        log.info("Signature image cache: max {} entries", maxEntries);
+    }
+
+    /**
+     * สร้าง image XObject ของรูปลายเซ็นสำหรับ document
+     *
+     * @param document PDF document ที่จะใช้รูปภาพ
+     * @param imagePath path ของรูปภาพลายเซ็น (classpath:images/signature.png หรือ path ใน classpath)
+     * @return PDImageXObject สำหรับ document นี้ หรือ null ถ้าไม่พบไฟล์
+     */
+    public PDImageXObject create(PDDocument document, String imagePath) throws IOException {
+        byte[] imageBytes = readImage(imagePath);
+        if (imageBytes == null) {
+            return null;
+        }
+
+        String key = imagePath + '#' + sha256(imageBytes);
+        EncodedImage image = images.get(key, k -> {
+            EncodedImage encoded = EncodedImage.encode(imageBytes, "signature");
+            log.debug("Signature image cached: {} ({} -> {} bytes)", imagePath, imageBytes.length, encoded.size());
+            return encoded;
+        });
+        return image.create(document);
+    }
+
+    /**
+     * Cache ภายใน (สำหรับผูก metrics)
+     */
+    public LruCache<String, EncodedImage> cache() {
+        return images;
+    }
+
+    /**
+     * อ่าน bytes ของรูปภาพลายเซ็น
+     *
+     * @return bytes ของไฟล์ หรือ null ถ้าไม่พบ
+     */
+    private byte[] readImage(String imagePath) throws IOException {
+        // ตรวจสอบว่าเป็น classpath resource หรือ path ธรรมดา (ทั้งสองแบบโหลดจาก classpath)
+        if (imagePath.startsWith(CLASSPATH_PREFIX)) {
+            String resourcePath = imagePath.substring(CLASSPATH_PREFIX.length());
+            try (InputStream imageStream = getClass().getClassLoader().getResourceAsStream(resourcePath)) {
+                if (imageStream == null) {
+                    log.warn("Signature image not found in classpath: {}", resourcePath);
+                    return null;
+                }
+                return imageStream.readAllBytes();
+            }
+        }
+
+        ClassPathResource resource = new ClassPathResource(imagePath);
+        if (!resource.exists()) {
+            log.warn("Signature image file not found: {}", imagePath);
+            return null;
+        }
+        try (InputStream imageStream = resource.getInputStream()) {
+            return imageStream.readAllBytes();
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            // JDK ทุกตัวต้องรองรับ SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package th.go.etda.sarabun.pdf.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import th.go.etda.sarabun.pdf.util.DoubleArrayTrie;
+import th.go.etda.sarabun.pdf.util.ThaiWordSegmenter;
+
+/**
+ * พจนานุกรมคำไทยสำหรับตัดบรรทัด (โหลดครั้งเดียวตอน startup ใช้ร่วมกันทั้ง process)
+ *
+ * ค่าเริ่มต้นใช้รายการคำใน classpath:dict/thai-words.txt
+ * เปลี่ยนเป็นพจนานุกรมที่ใหญ่กว่าได้ด้วย pdf.thai-dictionary (เช่น file:/opt/sarabun/words_th.txt)
+ *
+ * ถ้าโหลดไม่ได้ จะ log warning และตัดบรรทัดแบบเดิม (ช่องว่าง + ขอบตัวอักษร) แทน
+ */
+@Slf4j
+@Service
+public class ThaiDictionary {
+
+    public static final String DEFAULT_LOCATION = "classpath:dict/thai-words.txt";
+
+    private final String location;
+    private volatile ThaiWordSegmenter segmenter;
+
+    public ThaiDictionary(@Value("${pdf.thai-dictionary:" + DEFAULT_LOCATION + "}") String location) {
+        this.location = location;
+    }
+
+    /**
+     * โหลดพจนานุกรมและสร้าง trie ตอน startup
+     */
+    @PostConstruct
+    public void load() {
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        if (!resource.exists()) {
+            log.warn("Thai dictionary not found: {} (fallback to character line breaking)", location);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try (InputStream is = resource.getInputStream()) {
+            segmenter = ThaiWordSegmenter.load(is);
+        } catch (IOException e) {
+            log.warn("Failed to load Thai dictionary {}: {}", location, e.getMessage());
+            return;
+        }
+
+        DoubleArrayTrie trie = segmenter.dictionary();
+        log.info("Thai dictionary ready: {} words, {} trie slots (~{} KB) in {} ms",
+            trie.wordCount(), trie.size(), trie.size() * 8L / 1024, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * ตัวตัดคำไทย (null ถ้าโหลดพจนานุกรมไม่ได้)
+     */
+    public ThaiWordSegmenter segmenter() {
+        return segmenter;
+    }
+}
@@ -0,0 +1,209 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Double-array trie สำหรับพจนานุกรมคำภาษาไทย
+ *
+ * เก็บ trie ทั้งหมดใน int[] 2 ชุด (base, check) แทน object ต่อ node:
+ * - transition จาก state s ด้วยตัวอักษรรหัส c ไปที่ t = base[s] + c เมื่อ check[t] == s
+ * - รหัส 0 ใช้เป็นตัวปิดคำ: state s เป็นท้ายคำเมื่อ check[base[s]] == s
+ *
+ * ตัวอักษรที่รองรับ: U+0E01..U+0E5B (อักษรไทย สระ วรรณยุกต์ ตัวเลขไทย)
+ * คำที่มีตัวอักษรนอกช่วงนี้จะถูกข้ามตอนสร้าง
+ *
+ * Instance เป็น immutable หลังสร้าง จึงใช้ร่วมกันข้าม thread ได้
+ */
+public final class DoubleArrayTrie {
+
+    private static final int ALPHABET_START = 0x0E00;
+    private static final int ALPHABET_END = 0x0E5B;
+    private static final int ROOT = 0;
+
+    private int[] base;
+    private int[] check;
+    private int size;
+    private int nextCheckPos;
+    private int wordCount;
+
+    private DoubleArrayTrie() {
+    }
+
+    /**
+     * สร้าง trie จากรายการคำ
+     *
+     * @param words รายการคำ (ไม่ต้องเรียงหรือตัดคำซ้ำมาก่อน)
+     */
+    public static DoubleArrayTrie build(List<String> words) {
+        String[] sorted = words.stream()
+            .filter(w -> !w.isEmpty() && isEncodable(w))
+            .distinct()
+            .sorted()
+            .toArray(String[]::new);
+
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        int capacity = Math.max(1024, sorted.length * 4);
+        trie.base = new int[capacity];
+        trie.check = new int[capacity];
+        Arrays.fill(trie.check, -1);
+        trie.check[ROOT] = ROOT;
+        trie.nextCheckPos = 1;
+        trie.size = 1;
+        trie.wordCount = sorted.length;
+
+        if (sorted.length > 0) {
+            trie.insert(sorted, ROOT, 0, sorted.length, 0);
+        }
+
+        // ตัด array ให้พอดีกับข้อมูลจริง
+        trie.base = Arrays.copyOf(trie.base, trie.size);
+        trie.check = Arrays.copyOf(trie.check, trie.size);
+        return trie;
+    }
+
+    /**
+     * state เริ่มต้น (root)
+     */
+    public int root() {
+        return ROOT;
+    }
+
+    /**
+     * เดิน trie ด้วยตัวอักษร c จาก state
+     *
+     * @return state ถัดไป หรือ -1 ถ้าไม่มีคำที่ขึ้นต้นแบบนี้
+     */
+    public int next(int state, char c) {
+        if (c <= ALPHABET_START || c > ALPHABET_END) {
+            return -1;
+        }
+        int t = base[state] + (c - ALPHABET_START);
+        return t < size && check[t] == state ? t : -1;
+    }
+
+    /**
+     * state นี้เป็นท้ายคำในพจนานุกรมหรือไม่
+     */
+    public boolean isWord(int state) {
+        int t = base[state];
+        return t < size && check[t] == state;
+    }
+
+    /**
+     * ตรวจว่า text[start, end) เป็นคำในพจนานุกรม
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        int state = ROOT;
+        for (int i = start; i < end && state >= 0; i++) {
+            state = next(state, text.charAt(i));
+        }
+        return state >= 0 && isWord(state);
+    }
+
+    /**
+     * จำนวนคำในพจนานุกรม
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * จำนวนช่องใน double array (ใช้ประเมินหน่วยความจำ: ประมาณ size * 8 bytes)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * ใส่คำ words[lo, hi) ที่มี prefix ร่วมกันยาว depth ตัวอักษร ลงใต้ state
+     */
+    private void insert(String[] words, int state, int lo, int hi, int depth) {
+        // รวบรวมรหัสของ child (คำเรียงแล้ว คำที่จบตรง depth จะมาก่อน = รหัส 0)
+        int[] codes = new int[ALPHABET_END - ALPHABET_START + 1];
+        int[] groupStarts = new int[codes.length + 1];
+        int childCount = 0;
+        int previous = -1;
+        for (int i = lo; i < hi; i++) {
+            int code = code(words[i], depth);
+            if (code != previous) {
+                codes[childCount] = code;
+                groupStarts[childCount] = i;
+                childCount++;
+                previous = code;
+            }
+        }
+        groupStarts[childCount] = hi;
+
+        int b = findBase(codes, childCount);
+        base[state] = b;
+        for (int k = 0; k < childCount; k++) {
+            check[b + codes[k]] = state;
+            size = Math.max(size, b + codes[k] + 1);
+        }
+        for (int k = 0; k < childCount; k++) {
+            if (codes[k] != 0) {
+                insert(words, b + codes[k], groupStarts[k], groupStarts[k + 1], depth + 1);
+            }
+        }
+    }
+
+    /**
+     * หา base ที่ทุกช่อง base + code ยังว่าง
+     */
+    private int findBase(int[] codes, int childCount) {
+        int pos = nextCheckPos;
+        boolean firstFree = true;
+        while (true) {
+            ensureCapacity(pos + codes[childCount - 1] + 1);
+            if (check[pos] != -1) {
+                pos++;
+                continue;
+            }
+            if (firstFree) {
+                nextCheckPos = pos;
+                firstFree = false;
+            }
+            int b = pos - codes[0];
+            if (b < 1) {
+                pos++;
+                continue;
+            }
+            boolean free = true;
+            for (int k = 0; k < childCount; k++) {
+                if (check[b + codes[k]] != -1) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                return b;
+            }
+            pos++;
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > check.length) {
+            int capacity = Math.max(required, check.length * 2);
+            base = Arrays.copyOf(base, capacity);
+            int oldLength = check.length;
+            check = Arrays.copyOf(check, capacity);
+            Arrays.fill(check, oldLength, capacity, -1);
+        }
+    }
+
+    private static int code(String word, int depth) {
+        return depth == word.length() ? 0 : word.charAt(depth) - ALPHABET_START;
+    }
+
+    private static boolean isEncodable(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c <= ALPHABET_START || c > ALPHABET_END) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,214 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+/**
+ * Snapshot ของ image XObject ที่ encode แล้ว (ไม่ผูกกับ document ใด)
+ *
+ * เก็บ raw bytes ของ stream (เช่น Flate) และ dictionary ทั้งหมด
+ * (Filter, Width/Height, BitsPerComponent, ColorSpace, DecodeParms, SMask ฯลฯ)
+ * การสร้าง XObject ให้ document เป็นเพียงการ copy bytes เข้า COSStream ใหม่ (ไม่ decode/encode)
+ *
+ * Instance เป็น immutable หลังสร้าง จึงใช้ร่วมกันข้าม thread ได้
+ * PDImageXObject ที่ได้จาก create() เป็นของ document นั้นๆ เท่านั้น
+ */
+public final class EncodedImage {
+
+    private final StreamNode root;
+
+    private EncodedImage(StreamNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Decode รูปภาพ (PNG/JPEG/...) และ encode เป็น image XObject ครั้งเดียว แล้วเก็บ snapshot
+     *
+     * @param imageBytes bytes ของไฟล์รูปภาพ
+     * @param name ชื่อไฟล์ (ใช้เดาประเภทรูปภาพ เหมือน PDImageXObject.createFromByteArray)
+     * @return snapshot ของ image XObject
+     */
+    public static EncodedImage encode(byte[] imageBytes, String name) throws IOException {
+        try (PDDocument scratch = new PDDocument()) {
+            PDImageXObject image = PDImageXObject.createFromByteArray(scratch, imageBytes, name);
+            return new EncodedImage((StreamNode) capture(image.getCOSObject()));
+        }
+    }
+
+    /**
+     * สร้าง image XObject สำหรับ document (copy จาก snapshot)
+     *
+     * @param document PDF document ที่จะใช้รูปภาพ
+     * @return PDImageXObject สำหรับ document นี้
+     */
+    public PDImageXObject create(PDDocument document) throws IOException {
+        COSStream stream = (COSStream) root.materialize(document);
+        return new PDImageXObject(new PDStream(stream), null);
+    }
+
+    /**
+     * ขนาด bytes ที่ encode แล้ว รวม stream ย่อย (เช่น SMask)
+     */
+    public int size() {
+        return root.size();
+    }
+
+    // ============================================
+    // Snapshot ของ COS object (deep copy ที่ไม่ผูกกับ document)
+    // ============================================
+
+    /**
+     * แปลง COS object เป็น snapshot (stream อ่าน raw bytes ที่ encode แล้วเก็บไว้)
+     */
+    private static Node capture(COSBase base) throws IOException {
+        if (base instanceof COSObject) {
+            return capture(((COSObject) base).getObject());
+        }
+        if (base instanceof COSStream) {
+            COSStream stream = (COSStream) base;
+            byte[] raw;
+            try (InputStream is = stream.createRawInputStream()) {
+                raw = is.readAllBytes();
+            }
+            return new StreamNode(captureEntries(stream), raw);
+        }
+        if (base instanceof COSDictionary) {
+            return new DictionaryNode(captureEntries((COSDictionary) base));
+        }
+        if (base instanceof COSArray) {
+            List<Node> items = new ArrayList<>();
+            for (COSBase item : (COSArray) base) {
+                items.add(capture(item));
+            }
+            return new ArrayNode(items);
+        }
+        if (base instanceof COSString) {
+            return new StringNode(((COSString) base).getBytes());
+        }
+        // COSName, COSInteger, COSFloat, COSBoolean, COSNull เป็น immutable ใช้ instance เดิมได้
+        return new ValueNode(base);
+    }
+
+    private static Map<COSName, Node> captureEntries(COSDictionary dictionary) throws IOException {
+        Map<COSName, Node> entries = new LinkedHashMap<>();
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+            // Length ถูกกำหนดใหม่ตอนเขียน raw bytes
+            if (!COSName.LENGTH.equals(entry.getKey())) {
+                entries.put(entry.getKey(), capture(entry.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    private interface Node {
+        COSBase materialize(PDDocument document) throws IOException;
+    }
+
+    private static final class StreamNode implements Node {
+        private final Map<COSName, Node> entries;
+        private final byte[] raw;
+
+        StreamNode(Map<COSName, Node> entries, byte[] raw) {
+            this.entries = entries;
+            this.raw = raw;
+        }
+
+        @Override
+        public COSBase materialize(PDDocument document) throws IOException {
+            COSStream stream = document.getDocument().createCOSStream();
+            for (Map.Entry<COSName, Node> entry : entries.entrySet()) {
+                stream.setItem(entry.getKey(), entry.getValue().materialize(document));
+            }
+            try (OutputStream os = stream.createRawOutputStream()) {
+                os.write(raw);
+            }
+            return stream;
+        }
+
+        int size() {
+            int total = raw.length;
+            for (Node node : entries.values()) {
+                if (node instanceof StreamNode) {
+                    total += ((StreamNode) node).size();
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class DictionaryNode implements Node {
+        private final Map<COSName, Node> entries;
+
+        DictionaryNode(Map<COSName, Node> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public COSBase materialize(PDDocument document) throws IOException {
+            COSDictionary dictionary = new COSDictionary();
+            for (Map.Entry<COSName, Node> entry : entries.entrySet()) {
+                dictionary.setItem(entry.getKey(), entry.getValue().materialize(document));
+            }
+            return dictionary;
+        }
+    }
+
+    private static final class ArrayNode implements Node {
+        private final List<Node> items;
+
+        ArrayNode(List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        public COSBase materialize(PDDocument document) throws IOException {
+            COSArray array = new COSArray();
+            for (Node item : items) {
+                array.add(item.materialize(document));
+            }
+            return array;
+        }
+    }
+
+    private static final class StringNode implements Node {
+        private final byte[] bytes;
+
+        StringNode(byte[] bytes) {
+            this.bytes = bytes.clone();
+        }
+
+        @Override
+        public COSBase materialize(PDDocument document) {
+            return new COSString(bytes);
+        }
+    }
+
+    private static final class ValueNode implements Node {
+        private final COSBase value;
+
+        ValueNode(COSBase value) {
+            this.value = value;
+        }
+
+        @Override
+        public COSBase materialize(PDDocument document) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.util.Arrays;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * ตารางความกว้างตัวอักษร (advance width) แบบ primitive array ต่อ font
+ *
+ * เดิม: วัดความกว้างด้วย PDFont.getStringWidth(...) ซึ่ง encode ข้อความเป็น byte[]
+ *       และ lookup ความกว้างทีละ glyph ทุกครั้งที่เรียก
+ * ใหม่: คำนวณความกว้างของทุกตัวอักษรในช่วงที่ใช้บ่อยไว้ล่วงหน้าครั้งเดียว
+ *       การวัดข้อความจึงเป็นแค่ loop บวกค่าใน float[] (ไม่มี allocation)
+ *
+ * ช่วงตัวอักษรที่ครอบคลุม:
+ * - U+0000..U+00FF  Basic Latin + Latin-1 Supplement
+ * - U+0E00..U+0E7F  Thai
+ * - U+2000..U+206F  General Punctuation (เช่น • “ ” …)
+ *
+ * ค่าความกว้างอยู่ในหน่วย 1000 units ของ text space (หน่วยเดียวกับ getStringWidth)
+ * ตัวอักษรที่ font ไม่มี glyph หรืออยู่นอกช่วง จะได้ค่า NaN
+ * ผู้เรียกต้อง fallback ไปใช้ PDFont.getStringWidth เพื่อให้พฤติกรรมเหมือนเดิม
+ *
+ * Instance เป็น immutable หลังสร้าง จึงใช้ร่วมกันข้าม thread ได้
+ */
+public final class GlyphWidthTable {
+
+    private static final int LATIN_START = 0x0000;
+    private static final int LATIN_END = 0x00FF;
+    private static final int THAI_START = 0x0E00;
+    private static final int THAI_END = 0x0E7F;
+    private static final int PUNCT_START = 0x2000;
+    private static final int PUNCT_END = 0x206F;
+
+    private final float[] latin;
+    private final float[] thai;
+    private final float[] punct;
+
+    private GlyphWidthTable(float[] latin, float[] thai, float[] punct) {
+        this.latin = latin;
+        this.thai = thai;
+        this.punct = punct;
+    }
+
+    /**
+     * สร้างตารางจาก font (เรียกครั้งเดียวตอนโหลด font)
+     *
+     * @param font font ที่ bind กับ document แล้ว
+     * @return ตารางความกว้างของ font นี้
+     */
+    public static GlyphWidthTable build(PDFont font) {
+        return new GlyphWidthTable(
+            buildRange(font, LATIN_START, LATIN_END),
+            buildRange(font, THAI_START, THAI_END),
+            buildRange(font, PUNCT_START, PUNCT_END));
+    }
+
+    private static float[] buildRange(PDFont font, int start, int end) {
+        float[] widths = new float[end - start + 1];
+        Arrays.fill(widths, Float.NaN);
+        for (int cp = start; cp <= end; cp++) {
+            try {
+                widths[cp - start] = font.getStringWidth(String.valueOf((char) cp));
+            } catch (Exception e) {
+                // ไม่มี glyph ใน font (หรือเป็น control character) - ปล่อยเป็น NaN
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * ความกว้างของตัวอักษรเดียว (1000 units)
+     *
+     * @return ความกว้าง หรือ NaN ถ้าไม่อยู่ในตาราง
+     */
+    public float width(char c) {
+        if (c <= LATIN_END) {
+            return latin[c];
+        }
+        if (c >= THAI_START && c <= THAI_END) {
+            return thai[c - THAI_START];
+        }
+        if (c >= PUNCT_START && c <= PUNCT_END) {
+            return punct[c - PUNCT_START];
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * วัดความกว้างของ text[start, end) (1000 units)
+     *
+     * @return ความกว้างรวม หรือ NaN ถ้ามีตัวอักษรที่ไม่อยู่ในตาราง
+     */
+    public float measure(CharSequence text, int start, int end) {
+        float total = 0;
+        for (int i = start; i < end; i++) {
+            total += width(text.charAt(i));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,263 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.util.Arrays;
+
+/**
+ * ตรวจ HTML แบบ linear time ก่อนส่งให้ jsoup (ใช้โดย HtmlUtils)
+ *
+ * เดิม: isHtml ใช้ text.matches("(?s).*<[a-zA-Z][^>]*>.*") ซึ่ง backtrack ทุกตำแหน่งของ '<'
+ *       ข้อความที่มี "<a" จำนวนมากแต่ไม่มี '>' ใช้เวลา O(n^2) และแม้เจอ tag แล้วก็ยัง scan จนจบข้อความ
+ * ใหม่: เดินข้อความครั้งเดียว หยุดที่ tag แรก
+ *
+ * ความลึกของ tag (nestingDepth) เป็นค่าประมาณของความลึกของ DOM ที่ jsoup จะสร้าง:
+ * - void element (br, img, ...) ไม่นับ ส่วน "<x/>" นับเป็น tag เปิด (parser ไม่สน '/' ของ tag ที่ไม่ใช่ void)
+ * - element ที่ tag ปิดเป็น optional และซ้อนในตัวเองไม่ได้ (p, li, td, ...) ไม่นับ
+ *   เพราะ parser ปิดให้เองเมื่อเจอตัวถัดไป (ถ้านับ <p>a<p>b ... จะลึกเกินจริง)
+ *   DOM จริงจึงลึกกว่าค่าที่นับได้ไม่เกินราวๆ เท่าตัว (เช่น table > tbody > tr > td นับเป็น 2)
+ * - tag ปิดจะปิด element ที่เปิดอยู่ชื่อเดียวกันที่ใกล้ที่สุด (และทุกตัวที่อยู่ข้างใน) ถ้าไม่มี ไม่นับ
+ *   (เหมือน parser ที่ข้าม tag ปิดที่ไม่มีคู่ - "</x>" จึงลดความลึกที่นับไม่ได้)
+ * - เนื้อหาของ script/style/textarea/title และ comment ถูกข้าม
+ *
+ * stack ของ element ที่เปิดอยู่มีได้ไม่เกิน limit + 1 ตัว ทั้ง memory และเวลาจึงมีขอบเขต
+ */
+final class HtmlScanner {
+
+    private HtmlScanner() {
+    }
+
+    /**
+     * มี tag "<x...>" (x เป็นตัวอักษร a-z, A-Z) หรือไม่ - ผลเหมือน regex เดิม
+     *
+     * regex ต้องการ '<' + ตัวอักษร แล้วมี '>' ที่ใดก็ได้หลังจากนั้น
+     * ถ้า "<x" แรกไม่มี '>' ตามหลัง "<x" ที่อยู่หลังกว่าก็ไม่มีเช่นกัน จึงตรวจแค่ตัวแรก
+     */
+    static boolean containsTag(CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i + 1 < length; i++) {
+            if (text.charAt(i) == '<' && isAsciiLetter(text.charAt(i + 1))) {
+                for (int j = i + 2; j < length; j++) {
+                    if (text.charAt(j) == '>') {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ความลึกสูงสุดของ tag ที่เปิดค้าง (ประมาณ) หยุดทันทีเมื่อเกิน limit
+     *
+     * @return ความลึกสูงสุด หรือ limit + 1 ถ้าเกิน limit
+     */
+    static int nestingDepth(CharSequence html, int limit) {
+        int length = html.length();
+        // ชื่อของ element ที่เปิดอยู่เป็นช่วง html[openStarts[k], openEnds[k])
+        int[] openStarts = new int[16];
+        int[] openEnds = new int[16];
+        int depth = 0;
+        int maxDepth = 0;
+        int i = 0;
+        while (i < length) {
+            if (html.charAt(i) != '<' || i + 1 >= length) {
+                i++;
+                continue;
+            }
+            char next = html.charAt(i + 1);
+            if (isAsciiLetter(next)) {
+                int nameEnd = nameEnd(html, i + 1);
+                int tagEnd = tagEnd(html, nameEnd);
+                int nameStart = i + 1;
+                i = tagEnd + 1;
+                if (tagEnd >= length) {
+                    break;
+                }
+                if (isRawText(html, nameStart, nameEnd)) {
+                    // ข้ามเนื้อหาจนถึง tag ปิดของ element เดียวกัน
+                    i = skipRawText(html, i, nameStart, nameEnd);
+                } else if (!isUncounted(html, nameStart, nameEnd)) {
+                    if (depth == openStarts.length) {
+                        openStarts = Arrays.copyOf(openStarts, depth * 2);
+                        openEnds = Arrays.copyOf(openEnds, depth * 2);
+                    }
+                    openStarts[depth] = nameStart;
+                    openEnds[depth] = nameEnd;
+                    depth++;
+                    if (depth > maxDepth) {
+                        maxDepth = depth;
+                        if (maxDepth > limit) {
+                            return maxDepth;
+                        }
+                    }
+                }
+            } else if (next == '/' && i + 2 < length && isAsciiLetter(html.charAt(i + 2))) {
+                int nameStart = i + 2;
+                int nameEnd = nameEnd(html, nameStart);
+                for (int k = depth - 1; k >= 0; k--) {
+                    if (openEnds[k] - openStarts[k] == nameEnd - nameStart
+                            && regionMatches(html, openStarts[k], html, nameStart, nameEnd - nameStart)) {
+                        depth = k;
+                        break;
+                    }
+                }
+                i = tagEnd(html, nameEnd) + 1;
+            } else if (next == '!' && startsWith(html, i, "<!--")) {
+                i = indexOf(html, "-->", i + 4) + 3;
+            } else if (next == '!' || next == '?') {
+                i = tagEnd(html, i + 2) + 1;
+            } else {
+                i++;
+            }
+        }
+        return maxDepth;
+    }
+
+    private static int nameEnd(CharSequence html, int start) {
+        int i = start;
+        while (i < html.length() && isNameChar(html.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * ตำแหน่ง '>' ที่ปิด tag หรือ length ถ้าไม่มี
+     * ข้าม '>' ในค่า attribute ที่อยู่ในเครื่องหมายคำพูด (เฉพาะหลัง '=' เหมือน parser)
+     */
+    private static int tagEnd(CharSequence html, int from) {
+        int length = html.length();
+        char quote = 0;
+        boolean afterEquals = false;
+        for (int i = from; i < length; i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '>') {
+                return i;
+            } else if (c == '=') {
+                afterEquals = true;
+            } else if (afterEquals && (c == '"' || c == '\'')) {
+                quote = c;
+                afterEquals = false;
+            } else if (c > ' ') {
+                afterEquals = false;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * ตำแหน่งหลัง tag ปิด "</name...>" ของ raw text element (หรือ length ถ้าไม่มี)
+     */
+    private static int skipRawText(CharSequence html, int from, int nameStart, int nameEnd) {
+        int nameLength = nameEnd - nameStart;
+        int i = from;
+        while (true) {
+            int close = indexOf(html, "</", i);
+            if (close >= html.length()) {
+                return html.length();
+            }
+            int name = close + 2;
+            if (name + nameLength <= html.length() && regionMatches(html, name, html, nameStart, nameLength)
+                    && (name + nameLength == html.length() || !isNameChar(html.charAt(name + nameLength)))) {
+                return tagEnd(html, name + nameLength) + 1;
+            }
+            i = name;
+        }
+    }
+
+    /**
+     * void element และ element ที่ tag ปิดเป็น optional ซึ่ง parser ปิดให้เอง
+     */
+    private static boolean isUncounted(CharSequence html, int start, int end) {
+        switch (end - start) {
+            case 1:
+                return nameIs(html, start, "p");
+            case 2:
+                return nameIs(html, start, "br") || nameIs(html, start, "hr") || nameIs(html, start, "li")
+                    || nameIs(html, start, "td") || nameIs(html, start, "th") || nameIs(html, start, "tr")
+                    || nameIs(html, start, "dt") || nameIs(html, start, "dd");
+            case 3:
+                return nameIs(html, start, "img") || nameIs(html, start, "col") || nameIs(html, start, "wbr");
+            case 4:
+                return nameIs(html, start, "area") || nameIs(html, start, "base") || nameIs(html, start, "link")
+                    || nameIs(html, start, "meta");
+            case 5:
+                return nameIs(html, start, "embed") || nameIs(html, start, "input") || nameIs(html, start, "track");
+            case 6:
+                return nameIs(html, start, "source") || nameIs(html, start, "option");
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isRawText(CharSequence html, int start, int end) {
+        switch (end - start) {
+            case 5:
+                return nameIs(html, start, "style") || nameIs(html, start, "title");
+            case 6:
+                return nameIs(html, start, "script");
+            case 8:
+                return nameIs(html, start, "textarea");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * html[start, start + name.length()) ตรงกับ name (ตัวพิมพ์เล็ก) แบบไม่สนตัวพิมพ์
+     */
+    private static boolean nameIs(CharSequence html, int start, String name) {
+        for (int k = 0; k < name.length(); k++) {
+            if (Character.toLowerCase(html.charAt(start + k)) != name.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(CharSequence a, int aStart, CharSequence b, int bStart, int length) {
+        for (int k = 0; k < length; k++) {
+            if (Character.toLowerCase(a.charAt(aStart + k)) != Character.toLowerCase(b.charAt(bStart + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(CharSequence html, int at, String prefix) {
+        if (at + prefix.length() > html.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (html.charAt(at + k) != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ตำแหน่งแรกของ target ตั้งแต่ from หรือ length ถ้าไม่มี
+     */
+    private static int indexOf(CharSequence html, String target, int from) {
+        int last = html.length() - target.length();
+        for (int i = from; i <= last; i++) {
+            if (startsWith(html, i, target)) {
+                return i;
+            }
+        }
+        return html.length();
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '-' || c == ':';
+    }
+}
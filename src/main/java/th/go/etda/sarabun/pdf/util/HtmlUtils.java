@@ -1,10 +1,23 @@
 package th.go.etda.sarabun.pdf.util;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.safety.Safelist;
 
 /**
@@ -19,19 +32,24 @@ import org.jsoup.safety.Safelist;
  * - แปลง HTML entities (&nbsp;, &amp;, &lt;, &gt;)
  * - ลบ inline styles และ scripts
  * - รักษา indentation และ formatting
+ * - เก็บตัวหนา/ตัวเอียง/ขีดเส้นใต้เป็น StyledText (htmlToStyledText)
  */
 public class HtmlUtils {
     
+    private static final int STREAM_BUFFER_SIZE = 1024;
+    
     /**
      * แปลง HTML เป็น plain text (แนะนำใช้สำหรับ PDF)
      * 
      * วิธีการ:
      * 1. แปลง <br> เป็น \n
-     * 2. แปลง <p> เป็น paragraph (\n\n)
-     * 3. ลบ HTML tags ทั้งหมด
+     * 2. แปลง <p> เป็น paragraph (ขึ้นบรรทัดใหม่ + indent 4 spaces)
+     * 3. ลบ HTML tags ทั้งหมด (ข้าม script, style)
      * 4. แปลง HTML entities เป็นตัวอักษรจริง
      * 5. Trim whitespace ส่วนเกิน
      * 
+     * ทุกขั้นทำระหว่างเดิน DOM รอบเดียวลง buffer เดียว (ดู PlainTextBuilder)
+     * 
      * @param html HTML content จาก editor
      * @return Plain text สำหรับใส่ใน PDF
      */
@@ -39,83 +57,250 @@ public class HtmlUtils {
         if (html == null || html.trim().isEmpty()) {
             return "";
         }
-        
+        return convert(html).build();
+    }
+    
+    /**
+     * แปลง HTML เป็นข้อความพร้อม style (ข้อความเหมือน htmlToPlainText ทุกตัวอักษร)
+     * 
+     * <b>/<strong> = BOLD, <i>/<em> = ITALIC, <u>/<ins> = UNDERLINE (ซ้อนกันได้)
+     * 
+     * @param html HTML content จาก editor
+     * @return ข้อความพร้อม run ของ style สำหรับใส่ใน PDF
+     */
+    public static StyledText htmlToStyledText(String html) {
+        if (html == null || html.trim().isEmpty()) {
+            return StyledText.plain("");
+        }
+        return convert(html).buildStyled();
+    }
+    
+    private static PlainTextBuilder convert(String html) {
         // Parse HTML
         Document doc = Jsoup.parse(html);
         
-        // ลบ scripts, styles, และ comments
-        doc.select("script, style, comment").remove();
-        
         // แปลง HTML เป็น text พร้อมรักษา line breaks
-        StringBuilder text = new StringBuilder();
+        PlainTextBuilder text = new PlainTextBuilder(html.length());
         extractText(doc.body(), text);
+        return text;
+    }
+    
+    /**
+     * แปลง HTML เป็น plain text แบบ stream (ผลลัพธ์เหมือน htmlToPlainText)
+     * 
+     * เดิม: htmlToPlainText สร้าง Document ทั้งก้อนก่อนเริ่มดึง text หน่วยความจำจึงโตตามขนาด DOM
+     * ใหม่: ใช้ jsoup StreamParser รับ element ทีละตัวเมื่อปิด tag แล้วเขียน text ลง out ทันที
+     *       แล้วเอา node นั้นออกจาก DOM - ที่ค้างอยู่มีแค่ element ที่ยังเปิดอยู่ (ancestors) กับ text ที่ยังไม่จบ
+     * 
+     * HTML ที่ซ้อน tag ผิด (เช่น <b><p>..</b>) ซึ่ง parser ต้องย้าย node หลังจากที่ element ปิดไปแล้ว
+     * อาจได้ลำดับ text ต่างจาก htmlToPlainText เล็กน้อย
+     * 
+     * ถ้า out เป็น StyledText.Builder จะได้ run ของ style ด้วย (เหมือน htmlToStyledText)
+     * 
+     * @param html HTML content จาก editor (ไม่ปิด)
+     * @param out ปลายทางของ plain text
+     */
+    public static void appendPlainText(Reader html, Appendable out) throws IOException {
+        PlainTextBuilder text = new PlainTextBuilder(STREAM_BUFFER_SIZE, out);
+        Set<Element> opened = Collections.newSetFromMap(new IdentityHashMap<>());
         
-        // Cleanup
-        String result = text.toString()
-            .replaceAll("&nbsp;", " ")           // แปลง &nbsp; เป็น space
-            .replaceAll("\\s+\n", "\n")          // ลบ space ก่อน newline
-            .replaceAll("\n{3,}", "\n\n")        // ลด newline มากเกิน 2 ให้เหลือ 2
-            .replaceAll("\\[INDENT\\]", "    ")  // แปลง indent marker เป็น 4 spaces
-            .trim();                              // ตัด whitespace หน้า-หลัง
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser()).parse(html, "")) {
+            Iterator<Element> elements = streamer.iterator();
+            while (elements.hasNext()) {
+                onElementClosed(elements.next(), text, opened);
+                text.flush();
+            }
+            // text ที่อยู่ใน body โดยตรงหลัง element สุดท้าย
+            Element body = streamer.document().body();
+            text.style(0);
+            drainBefore(body, null, text);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        text.finish();
+    }
+    
+    /**
+     * แปลง HTML เป็น plain text แบบ stream แล้วต่อท้าย out
+     * 
+     * @see #appendPlainText(Reader, Appendable)
+     */
+    public static void appendPlainText(String html, StringBuilder out) {
+        appendStream(html, out);
+    }
+    
+    /**
+     * แปลง HTML เป็นข้อความพร้อม style แบบ stream แล้วต่อท้าย out
+     * 
+     * @see #appendPlainText(Reader, Appendable)
+     */
+    public static void appendStyledText(String html, StyledText.Builder out) {
+        appendStream(html, out);
+    }
+    
+    private static void appendStream(String html, Appendable out) {
+        if (html == null || html.trim().isEmpty()) {
+            return;
+        }
+        try {
+            appendPlainText(new StringReader(html), out);
+        } catch (IOException e) {
+            // StringReader/StringBuilder ไม่โยน IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * element หนึ่งปิดแล้ว (children ทั้งหมดปิดไปก่อนแล้ว): เขียน text ที่อยู่ก่อนหน้าและของ element นี้ แล้วเอาออกจาก DOM
+     */
+    private static void onElementClosed(Element element, PlainTextBuilder text, Set<Element> opened) {
+        // ancestors ตั้งแต่ใต้ body ลงมา (ถ้าไม่อยู่ใน body เช่น head ไม่ต้องทำอะไร)
+        Deque<Element> ancestors = new ArrayDeque<>();
+        Element parent = element.parent();
+        while (parent != null && !"body".equals(parent.normalName())) {
+            if (isSkipped(parent)) {
+                return;
+            }
+            ancestors.push(parent);
+            parent = parent.parent();
+        }
+        if (parent == null) {
+            return;
+        }
+        
+        // เปิด ancestors ที่ยังไม่ได้เปิด (เขียนส่วนหัวของ block เช่น indent ก่อน text ข้างใน)
+        // style ของแต่ละระดับคือ style รวมของ ancestors ที่ครอบอยู่
+        Element container = parent;
+        int style = 0;
+        for (Element ancestor : ancestors) {
+            text.style(style);
+            drainBefore(container, ancestor, text);
+            if (opened.add(ancestor)) {
+                openElement(ancestor, text);
+            }
+            style |= styleOf(ancestor);
+            container = ancestor;
+        }
         
-        return result;
+        text.style(style);
+        drainBefore(container, element, text);
+        if (opened.remove(element)) {
+            text.style(style | styleOf(element));
+            drainBefore(element, null, text);
+            closeElement(element, text);
+        } else {
+            appendNode(element, text);
+        }
+        element.remove();
+    }
+    
+    /**
+     * เขียนแล้วเอาออก children ของ container ที่อยู่ก่อน stop (null = ทั้งหมด)
+     */
+    private static void drainBefore(Element container, Element stop, PlainTextBuilder text) {
+        while (container.childNodeSize() > 0) {
+            Node node = container.childNode(0);
+            if (node == stop) {
+                return;
+            }
+            appendNode(node, text);
+            node.remove();
+        }
     }
     
     /**
      * Extract text จาก HTML node โดยรักษา formatting
      */
-    private static void extractText(Element element, StringBuilder text) {
+    private static void extractText(Element element, PlainTextBuilder text) {
         for (Node node : element.childNodes()) {
-            if (node instanceof TextNode) {
-                // Text node - เพิ่ม text โดยตรง
-                String nodeText = ((TextNode) node).text();
-                if (!nodeText.trim().isEmpty()) {
-                    text.append(nodeText);
-                }
-            } else if (node instanceof Element) {
-                Element child = (Element) node;
-                String tagName = child.tagName().toLowerCase();
-                
-                // จัดการ tags พิเศษ
-                switch (tagName) {
-                    case "br":
-                        text.append("\n");
-                        break;
-                    case "p":
-                    case "div":
-                        // เพิ่ม newline ก่อน paragraph (ถ้ายังไม่มี)
-                        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
-                            text.append("\n");
-                        }
-                        // เพิ่ม indent marker สำหรับบรรทัดแรกของย่อหน้า (จะถูกแปลงเป็น 4 spaces ภายหลัง)
-                        text.append("[INDENT]");
-                        extractText(child, text);
-                        text.append("\n");
-                        break;
-                    case "li":
-                        text.append("• ");
-                        extractText(child, text);
-                        text.append("\n");
-                        break;
-                    case "h1":
-                    case "h2":
-                    case "h3":
-                    case "h4":
-                    case "h5":
-                    case "h6":
-                        // Heading - เพิ่ม newlines รอบๆ
-                        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
-                            text.append("\n");
-                        }
-                        extractText(child, text);
-                        text.append("\n");
-                        break;
-                    default:
-                        // Tags อื่นๆ - เพียงดึง text ออกมา
-                        extractText(child, text);
-                        break;
-                }
-            }
+            appendNode(node, text);
+        }
+    }
+    
+    private static void appendNode(Node node, PlainTextBuilder text) {
+        if (node instanceof TextNode textNode) {
+            // Text node - เพิ่ม text โดยตรง
+            text.text(textNode.text());
+        } else if (node instanceof Element element && !isSkipped(element)) {
+            int style = text.style();
+            text.style(style | styleOf(element));
+            openElement(element, text);
+            extractText(element, text);
+            closeElement(element, text);
+            text.style(style);
+        }
+    }
+    
+    /**
+     * style ที่ element เพิ่มให้ text ข้างใน
+     */
+    private static int styleOf(Element element) {
+        return switch (element.normalName()) {
+            case "b", "strong" -> StyledText.BOLD;
+            case "i", "em" -> StyledText.ITALIC;
+            case "u", "ins" -> StyledText.UNDERLINE;
+            default -> 0;
+        };
+    }
+    
+    /**
+     * script, style, comment - ไม่แสดงเนื้อหา
+     */
+    private static boolean isSkipped(Element element) {
+        return switch (element.normalName()) {
+            case "script", "style", "comment" -> true;
+            default -> false;
+        };
+    }
+    
+    /**
+     * ส่วนหัวของ element (ก่อน children)
+     */
+    private static void openElement(Element element, PlainTextBuilder text) {
+        switch (element.normalName()) {
+            case "p":
+            case "div":
+                // เพิ่ม newline ก่อน paragraph (ถ้ายังไม่มี) แล้ว indent บรรทัดแรกของย่อหน้า
+                text.startBlock();
+                text.indent();
+                break;
+            case "li":
+                text.bullet();
+                break;
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                // Heading - เพิ่ม newlines รอบๆ
+                text.startBlock();
+                break;
+            default:
+                // Tags อื่นๆ - เพียงดึง text ออกมา
+                break;
+        }
+    }
+    
+    /**
+     * ส่วนท้ายของ element (หลัง children)
+     */
+    private static void closeElement(Element element, PlainTextBuilder text) {
+        switch (element.normalName()) {
+            case "br":
+            case "p":
+            case "div":
+            case "li":
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                text.lineBreak();
+                break;
+            default:
+                break;
         }
     }
     
@@ -138,15 +323,37 @@ public class HtmlUtils {
     /**
      * ตรวจสอบว่า string เป็น HTML หรือไม่
      * 
+     * เดิม: text.matches("(?s).*<[a-zA-Z][^>]*>.*") - O(n^2) กับข้อความที่มี "<a" มากๆ แต่ไม่มี '>'
+     * ใหม่: HtmlScanner.containsTag เดินข้อความครั้งเดียวและหยุดที่ tag แรก (ผลเหมือนเดิม)
+     * 
      * @param text ข้อความที่ต้องการตรวจสอบ
      * @return true ถ้ามี HTML tags
      */
     public static boolean isHtml(String text) {
-        if (text == null || text.trim().isEmpty()) {
+        if (text == null) {
             return false;
         }
-        // เช็คว่ามี HTML tags หรือไม่
-        return text.matches("(?s).*<[a-zA-Z][^>]*>.*");
+        return HtmlScanner.containsTag(text);
+    }
+    
+    /**
+     * ตรวจขนาดของ HTML ก่อน parse - input ที่ยาวหรือซ้อน tag ลึกผิดปกติถูกปฏิเสธก่อนสร้าง DOM
+     * 
+     * ความลึกนับแบบ linear time ด้วย HtmlScanner.nestingDepth (หยุดทันทีเมื่อเกิน maxDepth)
+     * 
+     * @param html HTML จาก editor
+     * @param maxLength ความยาวสูงสุด (ตัวอักษร, ค่าติดลบ = ไม่จำกัด)
+     * @param maxDepth ความลึกของ tag สูงสุด (ค่าติดลบ = ไม่จำกัด)
+     * @throws IllegalArgumentException ถ้าเกินขีดจำกัด
+     */
+    public static void checkLimits(String html, int maxLength, int maxDepth) {
+        if (maxLength >= 0 && html.length() > maxLength) {
+            throw new IllegalArgumentException(
+                "เนื้อหา HTML ยาวเกินกำหนด (" + html.length() + " > " + maxLength + " ตัวอักษร)");
+        }
+        if (maxDepth >= 0 && HtmlScanner.nestingDepth(html, maxDepth) > maxDepth) {
+            throw new IllegalArgumentException("เนื้อหา HTML ซ้อน tag ลึกเกิน " + maxDepth + " ชั้น");
+        }
     }
     
     /**
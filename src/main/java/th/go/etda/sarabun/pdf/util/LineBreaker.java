@@ -0,0 +1,396 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * ตัดบรรทัดข้อความแบบ single pass (linear time)
+ *
+ * เดิม: splitTextToLines สร้าง testLine = currentLine + " " + word แล้ววัดความกว้างใหม่ทั้งบรรทัดทุกคำ
+ *       และ splitTextToFitWidth วัด currentLine + char ใหม่ทีละตัวอักษร (quadratic)
+ * ใหม่: เดินข้อความครั้งเดียว เก็บความกว้างสะสม (running width) ของบรรทัดปัจจุบัน
+ *       แต่ละตัวอักษรถูกวัดเพียงครั้งเดียว แล้วบันทึกตำแหน่งตัดบรรทัดเป็นช่วง [start, end) ของข้อความเดิม
+ *
+ * กฎการตัดบรรทัด (ตามพฤติกรรมเดิม):
+ * - แยกย่อหน้าด้วย '\n' ก่อน ย่อหน้าว่าง (มีแต่ whitespace) = บรรทัดว่าง 1 บรรทัด
+ * - '\n' ท้ายข้อความไม่สร้างบรรทัดว่าง (เหมือน String.split)
+ * - ตัดบรรทัดที่ช่องว่าง โดยไม่นับช่องว่างท้ายบรรทัด
+ * - ช่องว่างหลายตัวภายในบรรทัดคงไว้ตามที่พิมพ์ (บรรทัดเป็นช่วงของข้อความเดิม)
+ *   เดิมยุบเหลือช่องเดียว ทำให้ "  " ที่ GeneratePdfService ใส่ระหว่างหัวข้อกับเนื้อหา และ indent ของเนื้อหาหายไป
+ * - keepIndent = true: ช่องว่างนำหน้าย่อหน้า (indent) อยู่ในบรรทัดแรกของย่อหน้า
+ * - คำที่ยาวเกินบรรทัด (เช่น ข้อความไทยที่ไม่มีช่องว่าง) ตัดที่ขอบตัวอักษร
+ *   โดยไม่แยกสระบน/ล่าง/วรรณยุกต์ออกจากพยัญชนะ และไม่ตัดหลังสระหน้า (เ แ โ ใ ไ)
+ *
+ * ถ้ามี ThaiWordSegmenter: แต่ละคำ (ช่วงระหว่างช่องว่าง) ถูกแบ่งเป็นหน่วยตามขอบคำไทยก่อน
+ * แล้วตัดบรรทัดที่ขอบหน่วยได้โดยไม่ต้องมีช่องว่าง การตัดที่ขอบตัวอักษรจึงเหลือเฉพาะหน่วยที่ยาวเกินบรรทัด
+ *
+ * การวัดความกว้างใช้ GlyphWidthTable และ fallback ไปที่ PDFont.getStringWidth เฉพาะตัวอักษรที่ไม่อยู่ในตาราง
+ *
+ * ข้อความที่มี style (reset ด้วย StyledText): ช่วงที่วัดถูกแบ่งตามขอบ run แล้วแต่ละช่วงวัดด้วยตารางของ font ตาม style
+ * loop ต่อตัวอักษรยังเป็น float[] lookup เหมือน plain text ต้นทุนเพิ่มเฉพาะที่ขอบ run
+ * (หา run ด้วย cursor ที่เดินไปข้างหน้าตามการตัดบรรทัด ไม่ต้องค้นใหม่ทุกคำ)
+ *
+ * Instance เก็บ buffer ภายใน จึงไม่ thread-safe (ใช้ภายใน thread เดียว)
+ * ใช้ instance เดิมซ้ำได้โดยเรียก reset(...) เพื่อเปลี่ยน font ก่อนตัดบรรทัด (buffer ไม่ถูกสร้างใหม่)
+ */
+public final class LineBreaker {
+
+    private GlyphWidthTable widths;
+    private PDFont font;
+    private float fontSize;
+
+    // ข้อความที่มี style: ตาราง/font แยกตาม style & StyledText.FONT_STYLES (null = plain text)
+    private StyledText styled;
+    private GlyphWidthTable[] styleWidths;
+    private PDFont[] styleFonts;
+    private int runHint;
+    // ท้ายช่วงที่ style เดียวกันกับตำแหน่งที่ seek ล่าสุด
+    private int segmentEnd;
+    private final ThaiWordSegmenter segmenter;
+    private final ThaiWordSegmenter.Buffer segments;
+
+    // ผลลัพธ์: บรรทัดที่ i คือ text[starts[i], ends[i])
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+
+    // สถานะของบรรทัดปัจจุบันระหว่างตัดบรรทัด
+    private int lineStart;
+    private int lineEnd;
+    private float lineUnits;
+    private boolean lineHasWord;
+
+    /**
+     * @param widths ตารางความกว้างของ font (null = วัดด้วย font โดยตรง)
+     * @param font font ที่ใช้วัด (fallback)
+     * @param fontSize ขนาดฟอนต์
+     */
+    public LineBreaker(GlyphWidthTable widths, PDFont font, float fontSize) {
+        this(widths, font, fontSize, null);
+    }
+
+    /**
+     * @param widths ตารางความกว้างของ font (null = วัดด้วย font โดยตรง)
+     * @param font font ที่ใช้วัด (fallback)
+     * @param fontSize ขนาดฟอนต์
+     * @param segmenter ตัวตัดคำไทย (null = ตัดบรรทัดที่ช่องว่างและขอบตัวอักษรเท่านั้น)
+     */
+    public LineBreaker(GlyphWidthTable widths, PDFont font, float fontSize, ThaiWordSegmenter segmenter) {
+        this.segmenter = segmenter;
+        this.segments = segmenter != null ? new ThaiWordSegmenter.Buffer() : null;
+        reset(widths, font, fontSize);
+    }
+
+    /**
+     * เปลี่ยน font ที่ใช้วัด (ใช้ buffer เดิมต่อ)
+     *
+     * @return this
+     */
+    public LineBreaker reset(GlyphWidthTable widths, PDFont font, float fontSize) {
+        this.widths = widths;
+        this.font = font;
+        this.fontSize = fontSize;
+        this.styled = null;
+        this.styleWidths = null;
+        this.styleFonts = null;
+        return this;
+    }
+
+    /**
+     * ตัดบรรทัดข้อความที่มี style (ส่ง styled.text() เป็น text ของ breakText)
+     *
+     * @param widths ตารางความกว้าง index ด้วย style & StyledText.FONT_STYLES (ช่องที่เป็น null = วัดด้วย font โดยตรง)
+     * @param fonts font index เดียวกับ widths (ช่อง 0 = ตัวธรรมดา ต้องมีเสมอ)
+     * @return this
+     */
+    public LineBreaker reset(StyledText styled, GlyphWidthTable[] widths, PDFont[] fonts, float fontSize) {
+        reset(widths[0], fonts[0], fontSize);
+        if (!styled.isPlain()) {
+            this.styled = styled;
+            this.styleWidths = widths;
+            this.styleFonts = fonts;
+            this.runHint = 0;
+        }
+        return this;
+    }
+
+    /**
+     * ปล่อย reference ไปยัง font หลังตัดบรรทัดเสร็จ (ผลลัพธ์ start/end ยังอ่านได้)
+     * ใช้เมื่อเก็บ instance ไว้ใน ThreadLocal เพื่อไม่ให้ถือ font ของ document ที่ปิดไปแล้ว
+     */
+    public void release() {
+        this.widths = null;
+        this.font = null;
+        this.styled = null;
+        this.styleWidths = null;
+        this.styleFonts = null;
+    }
+
+    /**
+     * ตัดบรรทัด text[start, end)
+     *
+     * @param firstLineWidth ความกว้างสูงสุดของบรรทัดแรก (points)
+     * @param otherLineWidth ความกว้างสูงสุดของบรรทัดถัดไป (points)
+     * @param keepIndent true = เก็บช่องว่างนำหน้าย่อหน้าไว้ในบรรทัดแรกของย่อหน้า
+     * @return จำนวนบรรทัดทั้งหมดที่ได้
+     */
+    public int breakText(CharSequence text, int start, int end,
+                         float firstLineWidth, float otherLineWidth,
+                         boolean keepIndent) throws IOException {
+        count = 0;
+
+        // ตัด '\n' ท้ายข้อความ (เหมือน String.split ที่ไม่คืนค่าว่างท้าย)
+        while (end > start && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+
+        int paragraphStart = start;
+        while (paragraphStart < end) {
+            int paragraphEnd = paragraphStart;
+            while (paragraphEnd < end && text.charAt(paragraphEnd) != '\n') {
+                paragraphEnd++;
+            }
+            breakParagraph(text, paragraphStart, paragraphEnd, firstLineWidth, otherLineWidth, keepIndent);
+            paragraphStart = paragraphEnd + 1;
+        }
+        return count;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int start(int line) {
+        return starts[line];
+    }
+
+    public int end(int line) {
+        return ends[line];
+    }
+
+    private void breakParagraph(CharSequence text, int start, int end,
+                                float firstLineWidth, float otherLineWidth,
+                                boolean keepIndent) throws IOException {
+        if (isBlank(text, start, end)) {
+            addLine(start, start);
+            return;
+        }
+
+        int i = start;
+        while (i < end && text.charAt(i) == ' ') {
+            i++;
+        }
+
+        // บรรทัดปัจจุบันเริ่มที่ indent (ถ้าเก็บ) หรือคำแรก
+        lineStart = keepIndent ? start : i;
+        lineEnd = lineStart;
+        lineUnits = 0;
+        if (keepIndent && i > start) {
+            lineEnd = i;
+            lineUnits = measure(text, start, i);
+        }
+        lineHasWord = false;
+
+        while (i < end) {
+            // ข้ามช่องว่างระหว่างคำ แล้วหาคำถัดไป [wordStart, wordEnd)
+            while (i < end && text.charAt(i) == ' ') {
+                i++;
+            }
+            if (i >= end) {
+                break;
+            }
+            int wordStart = i;
+            while (i < end && text.charAt(i) != ' ') {
+                i++;
+            }
+            int wordEnd = i;
+
+            float wordUnits = measure(text, wordStart, wordEnd);
+            if (segmenter == null || fits(text, wordStart, wordUnits, firstLineWidth, otherLineWidth)) {
+                placeWord(text, wordStart, wordEnd, wordUnits, firstLineWidth, otherLineWidth);
+                continue;
+            }
+            // คำไม่พอดีบรรทัด - แบ่งตามขอบคำไทย แต่ละหน่วยต่อกันโดยไม่มีช่องว่าง (gap = 0)
+            // (ตัดคำเฉพาะคำที่ต้องตัดบรรทัด คำที่พอดีอยู่แล้วไม่ต้องผ่านพจนานุกรม)
+            int breaks = segmenter.segment(text, wordStart, wordEnd, segments);
+            int unitStart = wordStart;
+            for (int k = 0; k < breaks; k++) {
+                int unitEnd = segments.breakAt(k);
+                placeWord(text, unitStart, unitEnd, measure(text, unitStart, unitEnd), firstLineWidth, otherLineWidth);
+                unitStart = unitEnd;
+            }
+        }
+
+        addLine(lineStart, lineEnd);
+    }
+
+    /**
+     * วางคำ (หรือหน่วยคำ) text[wordStart, wordEnd) ต่อท้ายบรรทัดปัจจุบัน หรือขึ้นบรรทัดใหม่ถ้าไม่พอดี
+     */
+    private void placeWord(CharSequence text, int wordStart, int wordEnd, float wordUnits,
+                           float firstLineWidth, float otherLineWidth) throws IOException {
+        float limit = count == 0 ? firstLineWidth : otherLineWidth;
+
+        if (lineHasWord) {
+            float gapUnits = measure(text, lineEnd, wordStart);
+            if (toPoints(lineUnits + gapUnits + wordUnits) <= limit) {
+                lineUnits += gapUnits + wordUnits;
+                lineEnd = wordEnd;
+                return;
+            }
+            // คำไม่พอดี - ขึ้นบรรทัดใหม่
+            addLine(lineStart, lineEnd);
+            lineStart = wordStart;
+            lineEnd = wordStart;
+            lineUnits = 0;
+            limit = otherLineWidth;
+        }
+
+        if (toPoints(lineUnits + wordUnits) <= limit) {
+            lineUnits += wordUnits;
+            lineEnd = wordEnd;
+        } else {
+            // คำยาวเกินบรรทัด - ตัดที่ขอบตัวอักษร
+            breakLongWord(text, wordStart, wordEnd, firstLineWidth, otherLineWidth);
+        }
+        lineHasWord = true;
+    }
+
+    /**
+     * คำที่เริ่มที่ wordStart (กว้าง wordUnits) ต่อท้ายบรรทัดปัจจุบันได้พอดีหรือไม่
+     */
+    private boolean fits(CharSequence text, int wordStart, float wordUnits,
+                         float firstLineWidth, float otherLineWidth) throws IOException {
+        float limit = count == 0 ? firstLineWidth : otherLineWidth;
+        float gapUnits = lineHasWord ? measure(text, lineEnd, wordStart) : 0;
+        return toPoints(lineUnits + gapUnits + wordUnits) <= limit;
+    }
+
+    /**
+     * ตัดคำยาว text[wordStart, wordEnd) ต่อจากบรรทัดปัจจุบัน (ที่อาจมี indent อยู่แล้ว)
+     * ส่วนท้ายที่เหลือเป็นบรรทัดปัจจุบัน เพื่อให้คำถัดไปต่อท้ายได้
+     */
+    private void breakLongWord(CharSequence text, int wordStart, int wordEnd,
+                               float firstLineWidth, float otherLineWidth) throws IOException {
+        for (int i = wordStart; i < wordEnd; i++) {
+            float charUnits = charUnits(text, i);
+            float limit = count == 0 ? firstLineWidth : otherLineWidth;
+            if (toPoints(lineUnits + charUnits) > limit && lineEnd > lineStart
+                    && canBreakBefore(text, i, wordStart)) {
+                addLine(lineStart, lineEnd);
+                lineStart = i;
+                lineUnits = 0;
+            }
+            lineUnits += charUnits;
+            lineEnd = i + 1;
+        }
+    }
+
+    /**
+     * ตัดบรรทัดก่อนตำแหน่ง i ได้หรือไม่ (ภายในคำ)
+     */
+    private static boolean canBreakBefore(CharSequence text, int i, int wordStart) {
+        if (i <= wordStart) {
+            return false;
+        }
+        return !isThaiCombining(text.charAt(i)) && !isThaiLeadingVowel(text.charAt(i - 1));
+    }
+
+    /**
+     * สระบน/ล่าง ไม้หันอากาศ วรรณยุกต์ และเครื่องหมายที่ต้องอยู่ติดพยัญชนะ
+     */
+    static boolean isThaiCombining(char c) {
+        return c == '\u0E31' || (c >= '\u0E34' && c <= '\u0E3A') || (c >= '\u0E47' && c <= '\u0E4E');
+    }
+
+    /**
+     * สระหน้า เ แ โ ใ ไ (ต้องอยู่กับพยัญชนะที่ตามมา)
+     */
+    static boolean isThaiLeadingVowel(char c) {
+        return c >= '\u0E40' && c <= '\u0E44';
+    }
+
+    private static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private float toPoints(float units) {
+        return units / 1000 * fontSize;
+    }
+
+    private float measure(CharSequence text, int start, int end) throws IOException {
+        if (styled == null) {
+            return measure(widths, font, text, start, end);
+        }
+        // แบ่งตามขอบ run แล้ววัดแต่ละช่วงด้วยตารางของ style นั้น
+        float units = 0;
+        int i = start;
+        while (i < end) {
+            int style = seek(i);
+            int segment = Math.min(end, segmentEnd);
+            units += measure(styleWidths[style], styleFonts[style], text, i, segment);
+            i = segment;
+        }
+        return units;
+    }
+
+    private static float measure(GlyphWidthTable widths, PDFont font, CharSequence text,
+                                 int start, int end) throws IOException {
+        float units = 0;
+        for (int i = start; i < end; i++) {
+            units += charUnits(widths, font, text.charAt(i));
+        }
+        return units;
+    }
+
+    private float charUnits(CharSequence text, int i) throws IOException {
+        if (styled == null) {
+            return charUnits(widths, font, text.charAt(i));
+        }
+        int style = seek(i);
+        return charUnits(styleWidths[style], styleFonts[style], text.charAt(i));
+    }
+
+    private static float charUnits(GlyphWidthTable widths, PDFont font, char c) throws IOException {
+        float units = widths != null ? widths.width(c) : Float.NaN;
+        if (Float.isNaN(units)) {
+            units = font.getStringWidth(String.valueOf(c));
+        }
+        return units;
+    }
+
+    /**
+     * style ของ font ที่ตำแหน่ง i (ตั้ง segmentEnd = ท้ายช่วงที่ style เดียวกัน)
+     */
+    private int seek(int i) {
+        int run = styled.findRun(i, runHint);
+        runHint = run;
+        if (run == styled.runCount()) {
+            segmentEnd = Integer.MAX_VALUE;
+            return 0;
+        }
+        if (styled.runStart(run) > i) {
+            segmentEnd = styled.runStart(run);
+            return 0;
+        }
+        segmentEnd = styled.runEnd(run);
+        return styled.runStyle(run) & StyledText.FONT_STYLES;
+    }
+
+    private void addLine(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+}
@@ -0,0 +1,216 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache แบบจำกัดจำนวน entry ที่ไล่ entry ที่ใช้ล่าสุดนานที่สุดออกก่อน (LRU) ใช้ร่วมกันข้าม thread ได้
+ *
+ * ใช้ LinkedHashMap แบบ access-order ภายใต้ lock เดียว (งานใน lock มีแค่ get/put ของ map)
+ * การโหลดค่า (loader) ทำนอก lock เพื่อไม่ให้ thread อื่นรอระหว่าง decode
+ * ถ้าหลาย thread miss key เดียวกันพร้อมกัน อาจโหลดซ้ำได้ แต่จะเก็บค่าแรกที่ใส่ไว้เท่านั้น
+ *
+ * จำกัดน้ำหนักรวมได้ด้วย (เช่น จำนวน bytes โดยประมาณ) ผ่าน Weigher: เมื่อใส่ entry ใหม่แล้วน้ำหนักรวมเกิน
+ * จะไล่ entry เก่าออกจนไม่เกิน ค่าที่หนักกว่า maxWeight เพียงตัวเดียวจะไม่ถูกเก็บ
+ *
+ * นับ hit / miss / put / eviction ไว้ให้ดูขนาดที่เหมาะสม (ดู LruCacheMetrics)
+ *
+ * @param <K> ชนิดของ key
+ * @param <V> ชนิดของค่า (ควรเป็น immutable เพราะถูกใช้ร่วมกันข้าม thread)
+ */
+public final class LruCache<K, V> {
+
+    /**
+     * ฟังก์ชันโหลดค่าเมื่อ cache miss
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws IOException;
+    }
+
+    /**
+     * น้ำหนักของ entry (เช่น bytes โดยประมาณ) ต้องไม่ติดลบและคงที่ตลอดอายุ entry
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final LinkedHashMap<K, V> entries;
+
+    // น้ำหนักรวมของ entries (guarded by entries)
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries จำนวน entry สูงสุด (ต้องมากกว่า 0)
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxEntries จำนวน entry สูงสุด (ต้องมากกว่า 0)
+     * @param maxWeight น้ำหนักรวมสูงสุด (0 = ไม่เก็บอะไรเลย)
+     * @param weigher ฟังก์ชันคำนวณน้ำหนักของแต่ละ entry (null = ไม่จำกัดน้ำหนัก)
+     */
+    public LruCache(int maxEntries, long maxWeight, Weigher<? super K, ? super V> weigher) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries ต้องมากกว่า 0: " + maxEntries);
+        }
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight ต้องไม่ติดลบ: " + maxWeight);
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    weight -= weigh(eldest.getKey(), eldest.getValue());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * อ่านค่าจาก cache (นับ hit/miss)
+     *
+     * @return ค่าที่เก็บไว้ หรือ null ถ้าไม่มี
+     */
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * อ่านค่าจาก cache หรือโหลดด้วย loader เมื่อไม่มี
+     *
+     * @param key key ของค่า
+     * @param loader ฟังก์ชันโหลดค่า (ถ้าคืน null จะไม่เก็บลง cache)
+     * @return ค่าที่เก็บไว้หรือที่โหลดใหม่
+     */
+    public V get(K key, Loader<? super K, ? extends V> loader) throws IOException {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        V loaded = loader.load(key);
+        if (loaded == null) {
+            return null;
+        }
+        return putIfAbsent(key, loaded);
+    }
+
+    /**
+     * ใส่ค่าลง cache ถ้ายังไม่มี key นี้
+     *
+     * @return ค่าที่อยู่ใน cache หลังเรียก (ค่าเดิมถ้ามีอยู่แล้ว)
+     */
+    public V putIfAbsent(K key, V value) {
+        long entryWeight = weigh(key, value);
+        if (entryWeight > maxWeight) {
+            // ใหญ่เกินกว่าจะเก็บ (ถ้าเก็บจะต้องไล่ทุก entry ออก)
+            return value;
+        }
+        synchronized (entries) {
+            V existing = entries.putIfAbsent(key, value);
+            if (existing != null) {
+                return existing;
+            }
+            weight += entryWeight;
+            evictOverweight();
+        }
+        puts.increment();
+        return value;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * น้ำหนักรวมของ entry ปัจจุบัน (0 ถ้าไม่มี Weigher)
+     */
+    public long weight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /**
+     * น้ำหนักรวมสูงสุด (Long.MAX_VALUE = ไม่จำกัด)
+     */
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * ไล่ entry ที่ใช้ล่าสุดนานที่สุดออกจนน้ำหนักรวมไม่เกิน maxWeight (เรียกภายใต้ lock)
+     * entry ที่เพิ่งใส่อยู่ท้ายสุดและหนักไม่เกิน maxWeight จึงไม่ถูกไล่ออกเอง
+     */
+    private void evictOverweight() {
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, V> entry = eldest.next();
+            weight -= weigh(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private long weigh(K key, V value) {
+        return weigher != null ? weigher.weigh(key, value) : 0;
+    }
+}
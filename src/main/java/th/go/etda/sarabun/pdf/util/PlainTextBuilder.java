@@ -0,0 +1,291 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * สร้าง plain text จาก HTML ระหว่างเดิน DOM ใน buffer เดียว (ใช้โดย HtmlUtils)
+ *
+ * เดิม: ต่อ text พร้อม marker [INDENT] แล้ว replaceAll อีก 4 รอบ (compile regex และ copy ทั้งข้อความทุกรอบ)
+ * ใหม่: ทำ normalization ตอน append เลย ผลลัพธ์เหมือนเดิมทุกตัวอักษร
+ *       - "&nbsp;" ที่เหลือเป็นตัวอักษรใน text → space
+ *       - whitespace ก่อนขึ้นบรรทัดใหม่ถูกตัดทิ้ง (รวม newline ที่ซ้ำกัน จึงไม่มีบรรทัดว่างติดกัน)
+ *       - indent ของย่อหน้า (4 spaces) ไม่ถูกตัด เหมือน marker เดิมที่แปลงหลังขั้นตัด whitespace
+ *       - trim หัว-ท้ายตอน build ครั้งเดียว
+ *
+ * โหมด stream (มี sink): flush() ส่งส่วนที่แน่นอนแล้วออกไปที่ sink และทิ้งจาก buffer
+ * เก็บไว้เฉพาะ whitespace ท้ายสุดที่อาจถูกตัดภายหลัง (ถึง newline ถัดไปหรือ trim ตอนจบ)
+ *
+ * style (StyledText.BOLD/ITALIC/UNDERLINE): text ที่ append ระหว่าง style(...) ไม่เป็น 0 ถูกบันทึกเป็น run
+ * (indent, bullet, newline ไม่มี style) run ถูกตัดตามเมื่อ whitespace ท้ายถูกตัดทิ้ง
+ * ถ้า sink เป็น StyledText.Builder run จะถูกส่งไปพร้อมข้อความตอน flush - sink อื่นได้เฉพาะข้อความ
+ */
+final class PlainTextBuilder {
+
+    static final String INDENT = "    ";
+
+    private static final String NBSP_ENTITY = "&nbsp;";
+    private static final String INDENT_MARKER = "[INDENT]";
+
+    private final StringBuilder text;
+    private final Appendable sink;
+
+    // ตำแหน่งที่การตัด whitespace ก่อน newline ห้ามย้อนไปเกิน (ท้าย indent ล่าสุด)
+    private int protectedLength;
+
+    // ส่งอะไรออกไปที่ sink แล้วหรือยัง (ก่อนหน้านั้น whitespace หัวข้อความถูก trim ทิ้ง)
+    private boolean flushed;
+
+    // style ของ text ที่ append ต่อจากนี้ และ run ที่บันทึกแล้ว [runStarts[i], runEnds[i]) ใน buffer
+    // (array สร้างเมื่อมี run แรก HTML ที่ไม่มีตัวเน้นจึงไม่มีต้นทุนเพิ่ม)
+    private int style;
+    private int[] runStarts;
+    private int[] runEnds;
+    private byte[] runStyles;
+    private int runCount;
+
+    PlainTextBuilder(int capacity) {
+        this(capacity, null);
+    }
+
+    PlainTextBuilder(int capacity, Appendable sink) {
+        this.text = new StringBuilder(capacity);
+        this.sink = sink;
+    }
+
+    /**
+     * เพิ่ม text ของ text node (ผ่าน whitespace normalization ของ jsoup แล้ว) ข้ามถ้าเป็น whitespace ล้วน
+     */
+    void text(String nodeText) {
+        if (isTrimEmpty(nodeText)) {
+            return;
+        }
+        int from = text.length();
+        appendText(nodeText);
+        if (style != 0) {
+            addRun(from, text.length());
+        }
+    }
+
+    private void appendText(String nodeText) {
+        if (nodeText.indexOf('&') < 0 && nodeText.indexOf('[') < 0) {
+            text.append(nodeText);
+            return;
+        }
+        int length = nodeText.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            char c = nodeText.charAt(i);
+            if (c == '&' && nodeText.startsWith(NBSP_ENTITY, i)) {
+                text.append(nodeText, from, i).append(' ');
+                i += NBSP_ENTITY.length() - 1;
+                from = i + 1;
+            } else if (c == '[' && nodeText.startsWith(INDENT_MARKER, i)) {
+                // ข้อความ "[INDENT]" ที่ผู้ใช้พิมพ์เองเคยถูกแปลงเป็น indent ด้วย (คงพฤติกรรมเดิม)
+                text.append(nodeText, from, i);
+                indent();
+                i += INDENT_MARKER.length() - 1;
+                from = i + 1;
+            }
+        }
+        text.append(nodeText, from, length);
+    }
+
+    /**
+     * ขึ้นบรรทัดใหม่ (ตัด whitespace ที่อยู่ก่อนหน้า รวมถึง newline ก่อนหน้า)
+     */
+    void lineBreak() {
+        int length = text.length();
+        while (length > protectedLength && isRegexWhitespace(text.charAt(length - 1))) {
+            length--;
+        }
+        text.setLength(length);
+        clipRuns(length);
+        text.append('\n');
+    }
+
+    /**
+     * เริ่ม block ใหม่ (ย่อหน้า, หัวข้อ): ขึ้นบรรทัดใหม่ถ้ายังไม่อยู่ต้นบรรทัด
+     */
+    void startBlock() {
+        int length = text.length();
+        // ส่วนที่ flush แล้วลงท้ายด้วยตัวอักษรที่ไม่ใช่ whitespace เสมอ
+        if (length > 0 ? text.charAt(length - 1) != '\n' : flushed) {
+            lineBreak();
+        }
+    }
+
+    /**
+     * indent บรรทัดแรกของย่อหน้า
+     */
+    void indent() {
+        text.append(INDENT);
+        protectedLength = text.length();
+    }
+
+    void bullet() {
+        text.append("• ");
+    }
+
+    int style() {
+        return style;
+    }
+
+    /**
+     * style ของ text ที่ append ต่อจากนี้ (0 = ตัวธรรมดา)
+     */
+    void style(int style) {
+        this.style = style;
+    }
+
+    /**
+     * ผลลัพธ์ (trim หัว-ท้ายแบบ String.trim)
+     */
+    String build() {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * ผลลัพธ์พร้อม run (trim เหมือน build())
+     */
+    StyledText buildStyled() {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        StyledText.Builder styled = new StyledText.Builder(end - start);
+        emit(styled, start, end);
+        return styled.build();
+    }
+
+    /**
+     * ส่งข้อความถึงตัวอักษรสุดท้ายที่ไม่ใช่ whitespace ออกไปที่ sink (โหมด stream)
+     */
+    void flush() throws IOException {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end == 0) {
+            return;
+        }
+        int start = 0;
+        if (!flushed) {
+            while (text.charAt(start) <= ' ') {
+                start++;
+            }
+            flushed = true;
+        }
+        if (sink instanceof StyledText.Builder styled) {
+            emit(styled, start, end);
+        } else {
+            sink.append(text, start, end);
+        }
+        text.delete(0, end);
+        protectedLength = Math.max(0, protectedLength - end);
+        shiftRuns(end);
+    }
+
+    /**
+     * ส่งส่วนที่เหลือ (whitespace ท้ายข้อความถูก trim ทิ้ง) (โหมด stream)
+     */
+    void finish() throws IOException {
+        flush();
+        text.setLength(0);
+        protectedLength = 0;
+        runCount = 0;
+    }
+
+    /**
+     * ส่ง text[start, end) พร้อม run ที่อยู่ในช่วงนั้นไปต่อท้าย out
+     */
+    private void emit(StyledText.Builder out, int start, int end) {
+        int base = out.length() - start;
+        out.append(text, start, end);
+        for (int i = 0; i < runCount && runStarts[i] < end; i++) {
+            out.style(base + Math.max(start, runStarts[i]), base + Math.min(end, runEnds[i]), runStyles[i]);
+        }
+    }
+
+    private void addRun(int start, int end) {
+        int last = runCount - 1;
+        if (last >= 0 && runEnds[last] == start && runStyles[last] == style) {
+            runEnds[last] = end;
+            return;
+        }
+        if (runStarts == null) {
+            runStarts = new int[8];
+            runEnds = new int[8];
+            runStyles = new byte[8];
+        } else if (runCount == runStarts.length) {
+            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            runEnds = Arrays.copyOf(runEnds, runCount * 2);
+            runStyles = Arrays.copyOf(runStyles, runCount * 2);
+        }
+        runStarts[runCount] = start;
+        runEnds[runCount] = end;
+        runStyles[runCount] = (byte) style;
+        runCount++;
+    }
+
+    /**
+     * ตัด run ที่เลย length (หลังตัด whitespace ท้าย buffer)
+     */
+    private void clipRuns(int length) {
+        while (runCount > 0 && runEnds[runCount - 1] > length) {
+            int last = runCount - 1;
+            if (runStarts[last] < length) {
+                runEnds[last] = length;
+                return;
+            }
+            runCount--;
+        }
+    }
+
+    /**
+     * เลื่อน run หลังลบ text[0, removed) ที่ flush ออกไปแล้ว (run ที่จบก่อนหน้านั้นทิ้งไป)
+     */
+    private void shiftRuns(int removed) {
+        int kept = 0;
+        for (int i = 0; i < runCount; i++) {
+            if (runEnds[i] > removed) {
+                runStarts[kept] = Math.max(0, runStarts[i] - removed);
+                runEnds[kept] = runEnds[i] - removed;
+                runStyles[kept] = runStyles[i];
+                kept++;
+            }
+        }
+        runCount = kept;
+    }
+
+    /**
+     * เทียบเท่า value.trim().isEmpty() โดยไม่สร้าง string ใหม่
+     */
+    private static boolean isTrimEmpty(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ตัวอักษรที่ตรงกับ \s ของ java.util.regex (ไม่รวม nbsp)
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+}
@@ -0,0 +1,240 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.util.Arrays;
+
+/**
+ * ข้อความพร้อม style (ตัวหนา ตัวเอียง ขีดเส้นใต้) จาก HTML ของ editor
+ *
+ * เดิม: HtmlUtils แปลง <strong> <em> <u> เป็น plain text ธรรมดา เนื้อหาใน PDF จึงไม่มีตัวเน้นเลย
+ * ใหม่: เก็บ style เป็น run list แบบ primitive array (ไม่มี object ต่อ span)
+ *       run ที่ i คือ text[runStart(i), runEnd(i)) ที่มี style = runStyle(i) (bit flags)
+ *
+ * เก็บเฉพาะ run ที่มี style (ไม่ใช่ 0) เรียงตามตำแหน่งและไม่ซ้อนกัน ส่วนที่อยู่ระหว่าง run เป็นตัวธรรมดา
+ * ข้อความที่ไม่มีตัวเน้นจึงมี runCount() = 0 และใช้ทางเดิมของ plain text ได้ทั้งหมด
+ *
+ * Instance เป็น immutable (สร้างด้วย Builder หรือ plain(...))
+ */
+public final class StyledText {
+
+    public static final int BOLD = 1;
+    public static final int ITALIC = 2;
+    public static final int UNDERLINE = 4;
+
+    /**
+     * bit ที่เลือก font (BOLD | ITALIC) - ค่า style & FONT_STYLES อยู่ในช่วง 0..3
+     */
+    public static final int FONT_STYLES = BOLD | ITALIC;
+
+    private static final int[] NO_OFFSETS = new int[0];
+    private static final byte[] NO_STYLES = new byte[0];
+
+    private final String text;
+    private final int[] runStarts;
+    private final int[] runLengths;
+    private final byte[] runStyles;
+    private final int runCount;
+
+    private StyledText(String text, int[] runStarts, int[] runLengths, byte[] runStyles, int runCount) {
+        this.text = text;
+        this.runStarts = runStarts;
+        this.runLengths = runLengths;
+        this.runStyles = runStyles;
+        this.runCount = runCount;
+    }
+
+    /**
+     * ข้อความที่ไม่มี style (null = ข้อความว่าง)
+     */
+    public static StyledText plain(String text) {
+        return new StyledText(text != null ? text : "", NO_OFFSETS, NO_OFFSETS, NO_STYLES, 0);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    /**
+     * ไม่มี run ที่มี style เลย
+     */
+    public boolean isPlain() {
+        return runCount == 0;
+    }
+
+    public int runCount() {
+        return runCount;
+    }
+
+    public int runStart(int run) {
+        return runStarts[run];
+    }
+
+    public int runLength(int run) {
+        return runLengths[run];
+    }
+
+    public int runEnd(int run) {
+        return runStarts[run] + runLengths[run];
+    }
+
+    public int runStyle(int run) {
+        return runStyles[run];
+    }
+
+    /**
+     * หา run แรกที่จบหลังตำแหน่ง index (runEnd > index) เริ่มค้นจาก hint
+     *
+     * ผู้เรียกที่เดินข้อความไปข้างหน้า (ตัดบรรทัด วาดบรรทัด) ส่งผลครั้งก่อนเป็น hint
+     * จึงขยับเพียงไม่กี่ช่องต่อครั้งแทนการค้นทั้ง list
+     *
+     * @return index ของ run (runCount() ถ้าไม่มี run หลัง index) - run นั้นครอบ index ถ้า runStart <= index
+     */
+    public int findRun(int index, int hint) {
+        int run = Math.max(0, Math.min(hint, runCount));
+        while (run > 0 && runEnd(run - 1) > index) {
+            run--;
+        }
+        while (run < runCount && runEnd(run) <= index) {
+            run++;
+        }
+        return run;
+    }
+
+    /**
+     * ตัด whitespace หัว-ท้าย (แบบ String.trim) พร้อมเลื่อน run ตาม
+     */
+    public StyledText trim() {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == 0 && end == text.length()) {
+            return this;
+        }
+        Builder trimmed = new Builder(end - start);
+        trimmed.append(this, start, end);
+        return trimmed.build();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * ประกอบ StyledText ทีละส่วน (ใช้เป็น Appendable ปลายทางของ HtmlUtils.appendPlainText ได้)
+     *
+     * ไม่ thread-safe
+     */
+    public static final class Builder implements Appendable {
+
+        private final StringBuilder text;
+        private int[] runStarts = NO_OFFSETS;
+        private int[] runLengths = NO_OFFSETS;
+        private byte[] runStyles = NO_STYLES;
+        private int runCount;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int capacity) {
+            this.text = new StringBuilder(capacity);
+        }
+
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public Builder append(CharSequence value) {
+            text.append(value);
+            return this;
+        }
+
+        @Override
+        public Builder append(CharSequence value, int start, int end) {
+            text.append(value, start, end);
+            return this;
+        }
+
+        @Override
+        public Builder append(char c) {
+            text.append(c);
+            return this;
+        }
+
+        /**
+         * ต่อท้ายข้อความพร้อม run ของมัน
+         */
+        public Builder append(StyledText value) {
+            return append(value, 0, value.length());
+        }
+
+        /**
+         * ต่อท้าย value[start, end) พร้อม run ที่อยู่ในช่วงนั้น
+         */
+        public Builder append(StyledText value, int start, int end) {
+            int base = text.length() - start;
+            text.append(value.text, start, end);
+            for (int run = value.findRun(start, 0); run < value.runCount && value.runStart(run) < end; run++) {
+                style(base + Math.max(start, value.runStart(run)), base + Math.min(end, value.runEnd(run)),
+                      value.runStyle(run));
+            }
+            return this;
+        }
+
+        /**
+         * กำหนด style ให้ช่วง [start, end) ของข้อความที่ต่อไปแล้ว
+         * ต้องเรียกตามลำดับตำแหน่ง (start ไม่น้อยกว่าท้าย run ก่อนหน้า) - ช่วงที่ติดกันและ style เดียวกันรวมเป็น run เดียว
+         */
+        public Builder style(int start, int end, int style) {
+            if (style == 0 || start >= end) {
+                return this;
+            }
+            int last = runCount - 1;
+            if (last >= 0 && runStyles[last] == style && runStarts[last] + runLengths[last] == start) {
+                runLengths[last] += end - start;
+                return this;
+            }
+            if (runCount == runStarts.length) {
+                int capacity = Math.max(8, runCount * 2);
+                runStarts = Arrays.copyOf(runStarts, capacity);
+                runLengths = Arrays.copyOf(runLengths, capacity);
+                runStyles = Arrays.copyOf(runStyles, capacity);
+            }
+            runStarts[runCount] = start;
+            runLengths[runCount] = end - start;
+            runStyles[runCount] = (byte) style;
+            runCount++;
+            return this;
+        }
+
+        public StyledText build() {
+            if (runCount == 0) {
+                return plain(text.toString());
+            }
+            return new StyledText(text.toString(),
+                                  Arrays.copyOf(runStarts, runCount),
+                                  Arrays.copyOf(runLengths, runCount),
+                                  Arrays.copyOf(runStyles, runCount),
+                                  runCount);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
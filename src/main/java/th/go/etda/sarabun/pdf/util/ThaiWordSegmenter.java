@@ -0,0 +1,218 @@
+package th.go.etda.sarabun.pdf.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ตัดคำภาษาไทยด้วยพจนานุกรม (maximal matching) เพื่อหาจุดที่ตัดบรรทัดได้
+ *
+ * เดิม: ข้อความไทยที่ไม่มีช่องว่างถูกตัดบรรทัดที่ขอบตัวอักษร ทำให้คำขาดกลางคำ
+ * ใหม่: หาขอบคำจากพจนานุกรม (DoubleArrayTrie) แล้วส่งจุดตัดให้ LineBreaker
+ *
+ * อัลกอริทึม (dynamic programming ต่อช่วงอักษรไทยที่ติดกัน):
+ * - ที่แต่ละตำแหน่ง เดิน trie เพื่อหาทุกคำในพจนานุกรมที่เริ่มตรงนั้น
+ * - ถ้าไม่มีคำไหนเข้า ใช้ "พยางค์ไม่รู้จัก" (ตัวอักษร + สระ/วรรณยุกต์ที่ติดกัน) แทน
+ * - เลือกเส้นทางที่มีตัวอักษรที่ไม่รู้จักน้อยที่สุด แล้วจำนวนคำน้อยที่สุด
+ * - ส่วนไม่รู้จักที่ติดกันถูกรวมเป็นหน่วยเดียว (ไม่ตัดกลางคำที่ไม่รู้จัก)
+ *
+ * ไม่ตัดที่รอยต่อระหว่างอักษรไทยกับตัวอักษรอื่น (เช่น "พ.ศ.", "(ร่าง)") และไม่ตัดก่อน
+ * สระหลัง/วรรณยุกต์/ๆ/ฯ หรือหลังสระหน้า
+ *
+ * เวลาทำงาน O(n * ความยาวคำที่ยาวที่สุด) และไม่มี allocation เมื่อใช้ Buffer เดิมซ้ำ
+ * Instance เป็น immutable จึงใช้ร่วมกันข้าม thread ได้ (Buffer ต้องแยกต่อ thread)
+ */
+public final class ThaiWordSegmenter {
+
+    // cost = (จำนวนตัวอักษรที่ไม่รู้จัก << 32) + จำนวนหน่วย
+    private static final long UNKNOWN_CHAR_COST = 1L << 32;
+    private static final long UNIT_COST = 1;
+
+    private final DoubleArrayTrie dictionary;
+
+    public ThaiWordSegmenter(DoubleArrayTrie dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * โหลดพจนานุกรมจากไฟล์ข้อความ UTF-8 (1 คำต่อบรรทัด, บรรทัดที่ขึ้นต้นด้วย # เป็น comment)
+     */
+    public static ThaiWordSegmenter load(InputStream in) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    words.add(line);
+                }
+            }
+        }
+        return new ThaiWordSegmenter(DoubleArrayTrie.build(words));
+    }
+
+    public DoubleArrayTrie dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * หาจุดตัดคำใน text[start, end)
+     *
+     * @param buffer buffer สำหรับผลลัพธ์และงานภายใน (ใช้ซ้ำได้)
+     * @return จำนวนจุดตัด จุดที่ k คือ buffer.breakAt(k) เรียงจากน้อยไปมาก
+     *         (ไม่รวม start แต่รวม end เสมอ) ดังนั้นหน่วยที่ k คือ [breakAt(k-1), breakAt(k))
+     */
+    public int segment(CharSequence text, int start, int end, Buffer buffer) {
+        buffer.count = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && !isThai(text.charAt(i))) {
+                i++;
+            }
+            int runStart = i;
+            while (i < end && isThai(text.charAt(i))) {
+                i++;
+            }
+            if (i - runStart > 1) {
+                segmentRun(text, runStart, i, buffer);
+            }
+        }
+        buffer.add(end);
+        return buffer.count;
+    }
+
+    /**
+     * ตัดคำในช่วงอักษรไทยที่ติดกัน text[runStart, runEnd) แล้วเพิ่มจุดตัดภายในช่วงลง buffer
+     */
+    private void segmentRun(CharSequence text, int runStart, int runEnd, Buffer buffer) {
+        int n = runEnd - runStart;
+        buffer.ensureCapacity(n + 1);
+        long[] cost = buffer.cost;
+        int[] prev = buffer.prev;
+        boolean[] breakable = buffer.breakable;
+        Arrays.fill(cost, 0, n + 1, Long.MAX_VALUE);
+        cost[0] = 0;
+
+        // ตำแหน่งที่ตัดได้ คำนวณครั้งเดียวต่อช่วง (ท้ายช่วงตัดได้เสมอ)
+        for (int i = 1; i < n; i++) {
+            breakable[i] = canBreakBefore(text, runStart + i);
+        }
+        breakable[n] = true;
+
+        for (int i = 0; i < n; i++) {
+            long base = cost[i];
+            if (base == Long.MAX_VALUE) {
+                continue;
+            }
+
+            // ทุกคำในพจนานุกรมที่เริ่มที่ตำแหน่ง i
+            int state = dictionary.root();
+            for (int j = i; j < n; j++) {
+                state = dictionary.next(state, text.charAt(runStart + j));
+                if (state < 0) {
+                    break;
+                }
+                if (breakable[j + 1] && dictionary.isWord(state)) {
+                    relax(cost, prev, i, j + 1, base + UNIT_COST, false);
+                }
+            }
+
+            // พยางค์ไม่รู้จัก: ไปถึงจุดที่ตัดได้ถัดไป
+            int to = i + 1;
+            while (!breakable[to]) {
+                to++;
+            }
+            relax(cost, prev, i, to, base + (to - i) * UNKNOWN_CHAR_COST + UNIT_COST, true);
+        }
+
+        // ย้อนเส้นทางจากท้าย เก็บจุดตัดภายในช่วง (กลับด้าน) แล้วเพิ่มลง buffer ตามลำดับ
+        int mark = buffer.count;
+        boolean nextUnknown = false;
+        int pos = n;
+        while (pos > 0) {
+            int p = prev[pos];
+            boolean unknown = p < 0;
+            if (pos < n && !(unknown && nextUnknown)) {
+                buffer.add(runStart + pos);
+            }
+            nextUnknown = unknown;
+            pos = unknown ? ~p : p;
+        }
+        buffer.reverse(mark, buffer.count);
+    }
+
+    private static void relax(long[] cost, int[] prev, int from, int to, long value, boolean unknown) {
+        if (value < cost[to]) {
+            cost[to] = value;
+            prev[to] = unknown ? ~from : from;
+        }
+    }
+
+    /**
+     * ตัดก่อนตำแหน่ง i ได้หรือไม่ (ภายในช่วงอักษรไทย)
+     */
+    private static boolean canBreakBefore(CharSequence text, int i) {
+        char c = text.charAt(i);
+        return !LineBreaker.isThaiCombining(c) && !isThaiFollowing(c)
+            && !LineBreaker.isThaiLeadingVowel(text.charAt(i - 1));
+    }
+
+    /**
+     * อักษรที่ต้องตามหลังตัวก่อนหน้า: ฯ ะ า ำ ๅ ๆ
+     */
+    private static boolean isThaiFollowing(char c) {
+        return c == '\u0E2F' || c == '\u0E30' || c == '\u0E32' || c == '\u0E33' || c == '\u0E45' || c == '\u0E46';
+    }
+
+    /**
+     * อักษรไทย สระ และวรรณยุกต์ (ไม่รวมตัวเลขไทยและ ฿)
+     */
+    private static boolean isThai(char c) {
+        return c >= '\u0E01' && c <= '\u0E4E' && c != '\u0E3F';
+    }
+
+    /**
+     * Buffer สำหรับผลลัพธ์และ DP table (ไม่ thread-safe ใช้ต่อ thread/ต่อ LineBreaker)
+     */
+    public static final class Buffer {
+
+        private long[] cost = new long[64];
+        private int[] prev = new int[64];
+        private boolean[] breakable = new boolean[64];
+        private int[] breaks = new int[16];
+        private int count;
+
+        public int breakAt(int k) {
+            return breaks[k];
+        }
+
+        private void add(int position) {
+            if (count == breaks.length) {
+                breaks = Arrays.copyOf(breaks, count * 2);
+            }
+            breaks[count++] = position;
+        }
+
+        private void reverse(int from, int to) {
+            for (int i = from, j = to - 1; i < j; i++, j--) {
+                int tmp = breaks[i];
+                breaks[i] = breaks[j];
+                breaks[j] = tmp;
+            }
+        }
+
+        private void ensureCapacity(int size) {
+            if (cost.length < size) {
+                int capacity = Math.max(size, cost.length * 2);
+                cost = new long[capacity];
+                prev = new int[capacity];
+                breakable = new boolean[capacity];
+            }
+        }
+    }
+}
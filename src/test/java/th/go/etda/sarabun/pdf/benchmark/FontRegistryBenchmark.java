@@ -0,0 +1,96 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+
+/**
+ * เปรียบเทียบต้นทุน font ต่อ request: parse จาก classpath ทุกครั้ง (แบบเดิม) กับ bind จาก FontRegistry
+ *
+ * แต่ละ invocation = สร้าง document ใหม่ + font ปกติ/ตัวหนา + วาดหนึ่งบรรทัด + save (รวม subset)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FontRegistryBenchmark {
+
+    private static final String TEXT = "บันทึกข้อความ ส่วนราชการ สำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์";
+
+    private FontRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        registry = new FontRegistry();
+        registry.preload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public void parsePerRequest() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDFont regular = loadFromClasspath(document, FontRegistry.FONT_REGULAR);
+            PDFont bold = loadFromClasspath(document, FontRegistry.FONT_BOLD);
+            render(document, regular, bold);
+        }
+    }
+
+    @Benchmark
+    public void registryBind() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDFont regular = registry.bind(document, FontRegistry.FONT_REGULAR);
+            PDFont bold = registry.bind(document, FontRegistry.FONT_BOLD);
+            render(document, regular, bold);
+        }
+    }
+
+    private static PDFont loadFromClasspath(PDDocument document, String path) throws IOException {
+        try (InputStream is = FontRegistryBenchmark.class.getClassLoader().getResourceAsStream(path)) {
+            return PDType0Font.load(document, is);
+        }
+    }
+
+    private static void render(PDDocument document, PDFont regular, PDFont bold) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
+            stream.beginText();
+            stream.setFont(bold, 24);
+            stream.newLineAtOffset(70, 700);
+            stream.showText(TEXT);
+            stream.setFont(regular, 16);
+            stream.newLineAtOffset(0, -30);
+            stream.showText(TEXT);
+            stream.endText();
+        }
+        document.save(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,160 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import th.go.etda.sarabun.pdf.service.HtmlTextCache;
+import th.go.etda.sarabun.pdf.util.HtmlUtils;
+import th.go.etda.sarabun.pdf.util.StyledText;
+
+/**
+ * เวลาแปลง HTML จาก editor เป็น plain text (ขนาด body 20-50 KB)
+ *
+ * - legacy: เดิน DOM + marker [INDENT] แล้ว replaceAll 4 รอบ (สำเนาของ HtmlUtils เดิม)
+ * - singlePass: HtmlUtils.htmlToPlainText ปัจจุบัน (normalize ระหว่างเดิน DOM)
+ * - streaming: HtmlUtils.appendPlainText (StreamParser ไม่เก็บ DOM ทั้งก้อน) - ดูหน่วยความจำด้วย -prof gc
+ * - cacheHit: HtmlTextCache.get เมื่อ HTML อยู่ใน cache แล้ว (เวลาคำนวณ key SHA-256 + lookup)
+ *
+ * legacy กับ singlePass parse ด้วย Jsoup เหมือนกัน ผลต่างจึงมาจากขั้น post-processing
+ * setup ตรวจว่าผลลัพธ์ของทุกแบบเหมือนกัน
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlConversionBenchmark {
+
+    private static final String PARAGRAPH = "<p>     ระเบียบสำนักนายกรัฐมนตรี ว่าด้วยงานสารบรรณ (ฉบับที่ ๒) พ.ศ. ๒๕๔๘ โดยที่เป็นการ<br>"
+        + "สมควรแก้ไขเพิ่มเติมระเบียบ<strong>สำนักนายกรัฐมนตรี</strong> ว่าด้วยงานสารบรรณ พ.ศ.๒๕๒๖&nbsp;เพื่อให้เหมาะสมกับ<br>"
+        + "สภาวการณ์ในปัจจุบัน   ที่มีการปฏิบัติงานสารบรรณด้วยระบบสารบรรณอิเล็กทรอนิกส์ </p>\n"
+        + "<ul><li>ความคุ้มค่า</li><li>การลดขั้นตอนการปฏิบัติงาน</li></ul>\n";
+
+    @Param({"20000", "50000"})
+    public int length;
+
+    private String html;
+    private HtmlTextCache cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(PARAGRAPH);
+        }
+        html = sb.toString();
+
+        String expected = legacyHtmlToPlainText(html);
+        if (!expected.equals(HtmlUtils.htmlToPlainText(html))) {
+            throw new IllegalStateException("single-pass output differs from legacy output");
+        }
+        if (!expected.equals(streaming().toString())) {
+            throw new IllegalStateException("streaming output differs from legacy output");
+        }
+
+        cache = new HtmlTextCache(DataSize.ofMegabytes(16), HtmlTextCache.DEFAULT_MAX_ENTRIES);
+        cache.get(html, HtmlUtils::htmlToStyledText);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyHtmlToPlainText(html);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return HtmlUtils.htmlToPlainText(html);
+    }
+
+    @Benchmark
+    public StringBuilder streaming() {
+        StringBuilder out = new StringBuilder(html.length());
+        HtmlUtils.appendPlainText(html, out);
+        return out;
+    }
+
+    @Benchmark
+    public StyledText cacheHit() {
+        return cache.get(html, HtmlUtils::htmlToStyledText);
+    }
+
+    private static String legacyHtmlToPlainText(String html) {
+        Document doc = Jsoup.parse(html);
+        doc.select("script, style, comment").remove();
+
+        StringBuilder text = new StringBuilder();
+        legacyExtractText(doc.body(), text);
+
+        return text.toString()
+            .replaceAll("&nbsp;", " ")
+            .replaceAll("\\s+\n", "\n")
+            .replaceAll("\n{3,}", "\n\n")
+            .replaceAll("\\[INDENT\\]", "    ")
+            .trim();
+    }
+
+    private static void legacyExtractText(Element element, StringBuilder text) {
+        for (Node node : element.childNodes()) {
+            if (node instanceof TextNode textNode) {
+                String nodeText = textNode.text();
+                if (!nodeText.trim().isEmpty()) {
+                    text.append(nodeText);
+                }
+            } else if (node instanceof Element child) {
+                switch (child.tagName().toLowerCase()) {
+                    case "br":
+                        text.append("\n");
+                        break;
+                    case "p":
+                    case "div":
+                        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                            text.append("\n");
+                        }
+                        text.append("[INDENT]");
+                        legacyExtractText(child, text);
+                        text.append("\n");
+                        break;
+                    case "li":
+                        text.append("• ");
+                        legacyExtractText(child, text);
+                        text.append("\n");
+                        break;
+                    case "h1":
+                    case "h2":
+                    case "h3":
+                    case "h4":
+                    case "h5":
+                    case "h6":
+                        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                            text.append("\n");
+                        }
+                        legacyExtractText(child, text);
+                        text.append("\n");
+                        break;
+                    default:
+                        legacyExtractText(child, text);
+                        break;
+                }
+            }
+        }
+    }
+}
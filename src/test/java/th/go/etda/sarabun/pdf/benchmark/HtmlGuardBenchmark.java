@@ -0,0 +1,84 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import th.go.etda.sarabun.pdf.util.HtmlUtils;
+
+/**
+ * เปรียบเทียบการตรวจ HTML กับ input ที่จงใจทำให้ช้า: regex เดิมของ isHtml กับ HtmlScanner
+ *
+ * - openNoClose: "<a" ซ้ำๆ โดยไม่มี '>' เลย (regex backtrack ทุกตำแหน่ง - O(n^2))
+ * - plain: ข้อความไทยไม่มี tag (regex เดิม scan ทั้งข้อความ)
+ * - deepNesting: "<b>" ซ้อนกันไม่ปิด (checkLimits หยุดทันทีที่เกิน max depth)
+ * - openComment: "<!--" ที่ไม่มี "-->" ตามด้วย tag จำนวนมาก
+ *
+ * ดู scaling ได้จากค่า length: legacyIsHtml กับ openNoClose โตเป็นกำลังสอง ส่วน isHtml และ checkLimits โตเชิงเส้น
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlGuardBenchmark {
+
+    private static final int MAX_LENGTH = 1_000_000;
+    private static final int MAX_DEPTH = 256;
+
+    @Param({"1000", "4000", "16000"})
+    public int length;
+
+    @Param({"openNoClose", "plain", "deepNesting", "openComment"})
+    public String input;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String unit = switch (input) {
+            case "openNoClose" -> "<a ";
+            case "plain" -> "ระเบียบสำนักนายกรัฐมนตรีว่าด้วยงานสารบรรณ ";
+            case "deepNesting" -> "<b>";
+            case "openComment" -> "<p>ข้อความ</p>";
+            default -> throw new IllegalArgumentException(input);
+        };
+        StringBuilder sb = new StringBuilder(input.equals("openComment") ? "<p>x</p><!--" : "");
+        while (sb.length() < length) {
+            sb.append(unit);
+        }
+        text = sb.substring(0, length);
+    }
+
+    @Benchmark
+    public boolean legacyIsHtml() {
+        return text.matches("(?s).*<[a-zA-Z][^>]*>.*");
+    }
+
+    @Benchmark
+    public boolean isHtml() {
+        return HtmlUtils.isHtml(text);
+    }
+
+    @Benchmark
+    public boolean checkLimits() {
+        try {
+            HtmlUtils.checkLimits(text, MAX_LENGTH, MAX_DEPTH);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
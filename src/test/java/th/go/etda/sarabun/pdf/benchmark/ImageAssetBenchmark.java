@@ -0,0 +1,86 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import th.go.etda.sarabun.pdf.service.ImageAssetCache;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+
+/**
+ * เปรียบเทียบการสร้าง image XObject ต่อ document
+ *
+ * - decodePerRequest: decode PNG ใหม่ทุกครั้ง (แบบเดิม)
+ * - cachedCopy: copy จาก ImageAssetCache
+ * - signatureCache: SignatureImageCache (อ่านไฟล์ + SHA-256 + copy เมื่อ hit)
+ *
+ * รันพร้อม -prof gc เพื่อดู allocation ต่อครั้ง
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageAssetBenchmark {
+
+    @Param({
+        ImageAssetCache.LOGO_ETDA,
+        ImageAssetCache.LOGO_MDES,
+        ImageAssetCache.LOGO_THAI_GOV,
+        ImageAssetCache.STAMP_ETDA,
+        ImageAssetCache.STAMP_MDES
+    })
+    public String image;
+
+    private ImageAssetCache cache;
+    private SignatureImageCache signatureCache;
+    private byte[] pngBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cache = new ImageAssetCache();
+        cache.preload();
+        signatureCache = new SignatureImageCache(SignatureImageCache.DEFAULT_MAX_ENTRIES);
+        try (InputStream is = new ClassPathResource(image).getInputStream()) {
+            pngBytes = is.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public PDImageXObject decodePerRequest() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            return PDImageXObject.createFromByteArray(document, pngBytes, image);
+        }
+    }
+
+    @Benchmark
+    public PDImageXObject cachedCopy() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            return cache.create(document, image);
+        }
+    }
+
+    @Benchmark
+    public PDImageXObject signatureCache() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            return signatureCache.create(document, image);
+        }
+    }
+}
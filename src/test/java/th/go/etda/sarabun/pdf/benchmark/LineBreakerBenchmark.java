@@ -0,0 +1,205 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.util.GlyphWidthTable;
+import th.go.etda.sarabun.pdf.util.LineBreaker;
+import th.go.etda.sarabun.pdf.util.StyledText;
+
+/**
+ * เปรียบเทียบการตัดบรรทัดเนื้อหาหนังสือยาวๆ: แบบเดิม (วัด testLine ใหม่ทุกคำ/ทุกตัวอักษร) กับ LineBreaker
+ *
+ * - spaced*: เนื้อหาไทยที่มีช่องว่างระหว่างวลี (เทียบกับ splitTextToLines เดิม)
+ * - unbroken*: ข้อความไทยยาวที่ไม่มีช่องว่างเลย (เทียบกับ splitTextToFitWidth เดิม)
+ * - spacedStyled: ข้อความเดียวกับ spaced แต่สลับตัวหนา/ตัวเอียง/ขีดเส้นใต้ทุกวลี (เทียบกับ spacedLineBreaker)
+ *
+ * ดู scaling ได้จากค่า length: แบบเดิมโตเร็วกว่าเชิงเส้น ส่วน LineBreaker โตเชิงเส้น
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineBreakerBenchmark {
+
+    private static final float FONT_SIZE = 16f;
+    private static final float MAX_WIDTH = 455f;
+    private static final String PHRASE = "ระเบียบสำนักนายกรัฐมนตรีว่าด้วยงานสารบรรณ ";
+
+    @Param({"1000", "4000", "16000"})
+    public int length;
+
+    private FontRegistry registry;
+    private PDDocument document;
+    private PDFont font;
+    private String spaced;
+    private String unbroken;
+    private StyledText styled;
+    private PDFont[] styleFonts;
+    private GlyphWidthTable[] styleWidths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        registry = new FontRegistry();
+        registry.preload();
+        document = new PDDocument();
+        font = registry.bind(document, FontRegistry.FONT_REGULAR);
+
+        StringBuilder sb = new StringBuilder("     ");
+        while (sb.length() < length) {
+            sb.append(PHRASE);
+        }
+        spaced = sb.substring(0, length);
+        unbroken = spaced.replace(" ", "");
+
+        String[] paths = {
+            FontRegistry.FONT_REGULAR, FontRegistry.FONT_BOLD, FontRegistry.FONT_ITALIC, FontRegistry.FONT_BOLD_ITALIC
+        };
+        styleFonts = new PDFont[paths.length];
+        styleWidths = new GlyphWidthTable[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            styleFonts[i] = i == 0 ? font : registry.bind(document, paths[i]);
+            styleWidths[i] = registry.widthsOf(styleFonts[i]);
+        }
+
+        // วลีที่ i มี style = i % 8 (รวมช่วงตัวธรรมดาและขีดเส้นใต้ที่ใช้ font ธรรมดา)
+        StyledText.Builder styledBuilder = new StyledText.Builder(length).append(spaced);
+        int phrase = 0;
+        for (int start = 0; start < length; start += PHRASE.length(), phrase++) {
+            styledBuilder.style(start, Math.min(length, start + PHRASE.length()), phrase % 8);
+        }
+        styled = styledBuilder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        document.close();
+        registry.close();
+    }
+
+    @Benchmark
+    public int spacedLegacy() throws IOException {
+        return legacySplitTextToLines(spaced, font, FONT_SIZE, MAX_WIDTH).size();
+    }
+
+    @Benchmark
+    public int spacedLineBreaker() throws IOException {
+        LineBreaker breaker = new LineBreaker(registry.widthsOf(font), font, FONT_SIZE);
+        return breaker.breakText(spaced, 0, spaced.length(), MAX_WIDTH, MAX_WIDTH, true);
+    }
+
+    @Benchmark
+    public int spacedStyled() throws IOException {
+        LineBreaker breaker = new LineBreaker(null, null, FONT_SIZE);
+        breaker.reset(styled, styleWidths, styleFonts, FONT_SIZE);
+        return breaker.breakText(styled.text(), 0, length, MAX_WIDTH, MAX_WIDTH, true);
+    }
+
+    @Benchmark
+    public int unbrokenLegacy() throws IOException {
+        return legacySplitTextToFitWidth(unbroken, font, FONT_SIZE, MAX_WIDTH).size();
+    }
+
+    @Benchmark
+    public int unbrokenLineBreaker() throws IOException {
+        LineBreaker breaker = new LineBreaker(registry.widthsOf(font), font, FONT_SIZE);
+        return breaker.breakText(unbroken, 0, unbroken.length(), MAX_WIDTH, MAX_WIDTH, false);
+    }
+
+    // ===== อัลกอริทึมเดิมจาก PdfService (เก็บไว้เพื่อเปรียบเทียบ) =====
+
+    private static List<String> legacySplitTextToLines(String text, PDFont font, float fontSize, float maxWidth)
+            throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : text.split("\n")) {
+            if (paragraph.trim().isEmpty()) {
+                lines.add("");
+                continue;
+            }
+            int leadingSpaces = 0;
+            while (leadingSpaces < paragraph.length() && paragraph.charAt(leadingSpaces) == ' ') {
+                leadingSpaces++;
+            }
+            String indent = paragraph.substring(0, leadingSpaces);
+            StringBuilder currentLine = new StringBuilder();
+            boolean isFirstLine = true;
+            for (String word : paragraph.substring(leadingSpaces).split(" ")) {
+                if (word.isEmpty()) continue;
+                String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
+                if (isFirstLine && !indent.isEmpty()) {
+                    testLine = indent + testLine;
+                }
+                float width = font.getStringWidth(testLine) / 1000 * fontSize;
+                if (width > maxWidth && currentLine.length() > 0) {
+                    lines.add(isFirstLine && !indent.isEmpty() ? indent + currentLine : currentLine.toString());
+                    currentLine = new StringBuilder(word);
+                    isFirstLine = false;
+                } else {
+                    currentLine = new StringBuilder(testLine);
+                    if (isFirstLine && !indent.isEmpty()) {
+                        currentLine = new StringBuilder(testLine.substring(indent.length()));
+                    }
+                }
+            }
+            if (currentLine.length() > 0) {
+                lines.add(isFirstLine && !indent.isEmpty() ? indent + currentLine : currentLine.toString());
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> legacySplitTextToFitWidth(String text, PDFont font, float fontSize, float maxWidth)
+            throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder currentLine = new StringBuilder();
+        String[] words = text.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            String separator = (i == 0 || currentLine.length() == 0) ? "" : " ";
+            String testLine = currentLine.toString() + separator + word;
+            if (font.getStringWidth(testLine) / 1000 * fontSize > maxWidth) {
+                if (currentLine.length() > 0) {
+                    lines.add(currentLine.toString());
+                }
+                currentLine = new StringBuilder();
+                for (int j = 0; j < word.length(); j++) {
+                    char c = word.charAt(j);
+                    String testChar = currentLine.toString() + c;
+                    if (font.getStringWidth(testChar) / 1000 * fontSize > maxWidth && currentLine.length() > 0) {
+                        lines.add(currentLine.toString());
+                        currentLine = new StringBuilder(String.valueOf(c));
+                    } else {
+                        currentLine.append(c);
+                    }
+                }
+            } else {
+                currentLine = new StringBuilder(testLine);
+            }
+        }
+        if (currentLine.length() > 0) {
+            lines.add(currentLine.toString());
+        }
+        return lines;
+    }
+}
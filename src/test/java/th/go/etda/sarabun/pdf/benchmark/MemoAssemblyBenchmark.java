@@ -0,0 +1,138 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.service.GeneratePdfService;
+import th.go.etda.sarabun.pdf.service.HtmlTextCache;
+import th.go.etda.sarabun.pdf.service.ImageAssetCache;
+import th.go.etda.sarabun.pdf.service.MemoRenderPool;
+import th.go.etda.sarabun.pdf.service.PdfMerger;
+import th.go.etda.sarabun.pdf.service.PdfOutputProfile;
+import th.go.etda.sarabun.pdf.service.PdfService;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+import th.go.etda.sarabun.pdf.service.ThaiDictionary;
+
+/**
+ * เปรียบเทียบการประกอบบันทึกข้อความหลัก + รอง (subDetailLearner) ต่อ request
+ *
+ * - singleDocument=false: สร้างแยกฉบับแล้ว mergePdfFiles (แบบเดิม)
+ * - singleDocument=true: ทุกฉบับใน PDDocument เดียว ใช้ font ร่วมกัน
+ * - renderWorkers: จำนวน worker ต่อ request ของ MemoRenderPool (มีผลเฉพาะ singleDocument=false)
+ *
+ * ขนาด PDF ที่ได้ของแต่ละแบบพิมพ์ไว้ตอน setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MemoAssemblyBenchmark {
+
+    @Param({"5", "50"})
+    public int learners;
+
+    @Param({"false", "true"})
+    public boolean singleDocument;
+
+    @Param({"1", "4"})
+    public int renderWorkers;
+
+    private FontRegistry registry;
+    private MemoRenderPool renderPool;
+    private GeneratePdfService generatePdfService;
+    private GeneratePdfRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("th.go.etda.sarabun.pdf"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        registry = new FontRegistry();
+        registry.preload();
+        ThaiDictionary dictionary = new ThaiDictionary(ThaiDictionary.DEFAULT_LOCATION);
+        dictionary.load();
+        ImageAssetCache imageAssets = new ImageAssetCache();
+        imageAssets.preload();
+        PdfOutputProfile outputProfile = new PdfOutputProfile(PdfOutputProfile.COMPRESSION_OBJECT_STREAMS,
+            CompressParameters.DEFAULT_OBJECT_STREAM_SIZE, -1);
+        PdfService pdfService = new PdfService(registry, dictionary, imageAssets,
+            new SignatureImageCache(SignatureImageCache.DEFAULT_MAX_ENTRIES), outputProfile);
+        renderPool = new MemoRenderPool(0, MemoRenderPool.DEFAULT_QUEUE_CAPACITY, renderWorkers, false);
+        PdfMerger merger = new PdfMerger(renderPool, outputProfile, PdfMerger.DEFAULT_MAX_MAIN_MEMORY,
+                                         System.getProperty("java.io.tmpdir"));
+        generatePdfService = new GeneratePdfService(pdfService, renderPool, merger,
+            new HtmlTextCache(DataSize.ofMegabytes(16), HtmlTextCache.DEFAULT_MAX_ENTRIES));
+        ReflectionTestUtils.setField(generatePdfService, "singleDocumentAssembly", singleDocument);
+
+        request = new GeneratePdfRequest();
+        request.setBookNameId("90F72F0E-528D-4992-907A-F2C6B37AD9A5");
+        request.setBookTitle("ขอความอนุเคราะห์ถือปฏิบัติตามระเบียบว่าด้วยงานสารบรรณ");
+        request.setBookNo("ดศ ๑/๒๕๖๙");
+        request.setDateThai("1 มกราคม 2569");
+        request.setDivisionName("กองพัฒนาระบบและเทคโนโลยีสารสนเทศ");
+        request.setRecipients("ผู้อำนวยการสำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์");
+
+        GeneratePdfRequest.BookContent content = new GeneratePdfRequest.BookContent();
+        content.setBookContent("ตามที่ สำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์ ได้จัดทำระเบียบว่าด้วยงานสารบรรณ"
+            + " จึงขอให้ทุกส่วนงานถือปฏิบัติตามรายละเอียดที่แนบมาพร้อมนี้");
+        request.setBookContent(List.of(content));
+
+        GeneratePdfRequest.BookRelate signer = new GeneratePdfRequest.BookRelate();
+        signer.setPrefixName("นาย");
+        signer.setFirstname("ทดสอบ");
+        signer.setLastname("ระบบ");
+        signer.setPositionName("ผู้อำนวยการ");
+        signer.setEmail("test@etda.or.th");
+        request.setBookSigned(List.of(signer));
+
+        List<GeneratePdfRequest.BookSubDetail.SubDetailLearner> subLearners = new ArrayList<>();
+        for (int i = 0; i < learners; i++) {
+            GeneratePdfRequest.BookSubDetail.SubDetailLearner learner =
+                new GeneratePdfRequest.BookSubDetail.SubDetailLearner();
+            learner.setDetail("ผู้ทราบลำดับที่ " + (i + 1));
+            subLearners.add(learner);
+        }
+        GeneratePdfRequest.BookSubDetail subDetail = new GeneratePdfRequest.BookSubDetail();
+        subDetail.setSubDetailLearner(subLearners);
+        request.setSubDetail(subDetail);
+
+        System.out.println("PDF size (learners=" + learners + ", singleDocument=" + singleDocument
+            + ", renderWorkers=" + renderWorkers + "): "
+            + generatePdfService.generatePdfBytes(request).length + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        renderPool.close();
+        registry.close();
+    }
+
+    @Benchmark
+    public byte[] assemble() throws Exception {
+        return generatePdfService.generatePdfBytes(request);
+    }
+}
@@ -0,0 +1,91 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.service.ImageAssetCache;
+import th.go.etda.sarabun.pdf.service.PdfOutputProfile;
+import th.go.etda.sarabun.pdf.service.PdfService;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+import th.go.etda.sarabun.pdf.service.ThaiDictionary;
+
+/**
+ * สร้างบันทึกข้อความทั้งฉบับ (layout + save + Base64) เพื่อดู allocation ต่อ memo
+ *
+ * รันพร้อม -prof gc แล้วดู gc.alloc.rate.norm (bytes/op)
+ * ส่วนต่างระหว่างจำนวน paragraphs บอก allocation ต่อย่อหน้าของขั้น layout
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemoLayoutBenchmark {
+
+    private static final String PARAGRAPH = "     ตามที่ สำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์ ได้จัดทำระเบียบสำนักนายกรัฐมนตรี"
+        + " ว่าด้วยงานสารบรรณ (ฉบับที่ ๔) พ.ศ. ๒๕๖๔ เพื่อใช้เป็นแนวทางในการปฏิบัติงานสารบรรณอิเล็กทรอนิกส์"
+        + " ของหน่วยงาน จึงขอให้ทุกส่วนงานถือปฏิบัติตามรายละเอียดที่แนบมาพร้อมนี้ (เอกสารแนบ ๑)";
+
+    @Param({"10", "100"})
+    public int paragraphs;
+
+    private FontRegistry registry;
+    private PdfService pdfService;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("th.go.etda.sarabun.pdf"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        registry = new FontRegistry();
+        registry.preload();
+        ThaiDictionary dictionary = new ThaiDictionary(ThaiDictionary.DEFAULT_LOCATION);
+        dictionary.load();
+        ImageAssetCache imageAssets = new ImageAssetCache();
+        imageAssets.preload();
+        PdfOutputProfile outputProfile = new PdfOutputProfile(PdfOutputProfile.COMPRESSION_OBJECT_STREAMS,
+            CompressParameters.DEFAULT_OBJECT_STREAM_SIZE, -1);
+        pdfService = new PdfService(registry, dictionary, imageAssets,
+            new SignatureImageCache(SignatureImageCache.DEFAULT_MAX_ENTRIES), outputProfile);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            sb.append(PARAGRAPH).append('\n');
+        }
+        content = sb.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public String memo() throws Exception {
+        return pdfService.generateOfficialMemoPdf(
+            "กองพัฒนาระบบและเทคโนโลยีสารสนเทศ", "1 มกราคม 2569", "ดศ ๑/๒๕๖๙",
+            "ขอความอนุเคราะห์ถือปฏิบัติตามระเบียบว่าด้วยงานสารบรรณ",
+            "ผู้อำนวยการสำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์", content,
+            null, null, List.of("นายทดสอบ ระบบ\nผู้อำนวยการ"), null);
+    }
+}
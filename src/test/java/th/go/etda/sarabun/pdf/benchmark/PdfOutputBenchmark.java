@@ -0,0 +1,101 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.service.ImageAssetCache;
+import th.go.etda.sarabun.pdf.service.PdfOutputProfile;
+import th.go.etda.sarabun.pdf.service.PdfService;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+import th.go.etda.sarabun.pdf.service.ThaiDictionary;
+
+/**
+ * เปรียบเทียบเวลา/ขนาดของบันทึกข้อความยาว (300 ย่อหน้า) ตาม PdfOutputProfile
+ *
+ * - compression=none: xref table แบบเดิม
+ * - compression=object-streams: object stream + xref stream (PDF 1.5)
+ * - deflateLevel: ระดับ Flate (-1 = ค่าเริ่มต้นของ PDFBox) ตั้งเป็น system property จึงแยก fork ต่อค่า
+ *
+ * ขนาด PDF และขนาดหลัง Base64 ของแต่ละแบบพิมพ์ไว้ตอน setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PdfOutputBenchmark {
+
+    private static final String PARAGRAPH = "     ตามที่ สำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์ ได้จัดทำระเบียบสำนักนายกรัฐมนตรี"
+        + " ว่าด้วยงานสารบรรณ (ฉบับที่ ๔) พ.ศ. ๒๕๖๔ เพื่อใช้เป็นแนวทางในการปฏิบัติงานสารบรรณอิเล็กทรอนิกส์"
+        + " ของหน่วยงาน จึงขอให้ทุกส่วนงานถือปฏิบัติตามรายละเอียดที่แนบมาพร้อมนี้ (เอกสารแนบ ๑)";
+
+    @Param({PdfOutputProfile.COMPRESSION_NONE, PdfOutputProfile.COMPRESSION_OBJECT_STREAMS})
+    public String compression;
+
+    @Param({"-1", "9"})
+    public int deflateLevel;
+
+    private FontRegistry registry;
+    private PdfService pdfService;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("th.go.etda.sarabun.pdf"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        registry = new FontRegistry();
+        registry.preload();
+        ThaiDictionary dictionary = new ThaiDictionary(ThaiDictionary.DEFAULT_LOCATION);
+        dictionary.load();
+        ImageAssetCache imageAssets = new ImageAssetCache();
+        imageAssets.preload();
+        PdfOutputProfile outputProfile = new PdfOutputProfile(compression,
+            CompressParameters.DEFAULT_OBJECT_STREAM_SIZE, deflateLevel);
+        pdfService = new PdfService(registry, dictionary, imageAssets,
+            new SignatureImageCache(SignatureImageCache.DEFAULT_MAX_ENTRIES), outputProfile);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append(PARAGRAPH).append('\n');
+        }
+        content = sb.toString();
+
+        int size = memo().length;
+        System.out.println("PDF size (compression=" + compression + ", deflateLevel=" + deflateLevel + "): "
+            + size + " bytes, Base64 " + ((size + 2) / 3 * 4) + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        registry.close();
+    }
+
+    @Benchmark
+    public byte[] memo() throws Exception {
+        return pdfService.generateOfficialMemoPdfBytes(
+            "กองพัฒนาระบบและเทคโนโลยีสารสนเทศ", "1 มกราคม 2569", "ดศ ๑/๒๕๖๙",
+            "ขอความอนุเคราะห์ถือปฏิบัติตามระเบียบว่าด้วยงานสารบรรณ",
+            "ผู้อำนวยการสำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์", content,
+            null, null, List.of("นายทดสอบ ระบบ\nผู้อำนวยการ"), null);
+    }
+}
@@ -0,0 +1,214 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.service.GeneratePdfService;
+import th.go.etda.sarabun.pdf.service.HtmlTextCache;
+import th.go.etda.sarabun.pdf.service.ImageAssetCache;
+import th.go.etda.sarabun.pdf.service.MemoRenderPool;
+import th.go.etda.sarabun.pdf.service.PdfMerger;
+import th.go.etda.sarabun.pdf.service.PdfOutputProfile;
+import th.go.etda.sarabun.pdf.service.PdfService;
+import th.go.etda.sarabun.pdf.service.SignatureImageCache;
+import th.go.etda.sarabun.pdf.service.ThaiDictionary;
+
+/**
+ * Load test ของโหมด offload (pdf.render-pool.offload) เมื่อ request ทำงานบน virtual thread
+ *
+ * ไม่ใช่ JMH เพราะ JMH ไม่รัน benchmark บน virtual thread - รันด้วย main บน Java 21 ขึ้นไป:
+ * java -cp "target/test-classes:target/classes:$(cat target/cp.txt)" \
+ *     th.go.etda.sarabun.pdf.benchmark.RenderOffloadLoadTest [วินาทีต่อรอบ] [render clients] [light clients]
+ *
+ * แต่ละรอบ (offload=false แล้ว true) มี client สองแบบบน virtual thread:
+ * - render: เรียก generatePdfBytes ต่อเนื่อง (บันทึกข้อความหลัก + รอง 5 ฉบับ พร้อมลายเซ็น)
+ * - light: รอ I/O 10 ms แล้วทำงานสั้นๆ (แทน request ที่แค่อ่าน JSON หรือเขียนให้ client ที่ช้า)
+ *   วัดจำนวนรอบที่ทำได้ (light/s - ถ้าไม่ถูกขวาง 50 client ได้ราว 5,000/s)
+ *   และเวลาที่ตื่นช้ากว่ากำหนด (carrier ถูกยึดโดยงาน render หรือไม่)
+ */
+public final class RenderOffloadLoadTest {
+
+    private static final long LIGHT_WAIT_MILLIS = 10;
+
+    private RenderOffloadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int renderClients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int lightClients = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("th.go.etda.sarabun.pdf"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        System.out.printf("java %s, %d CPU, %d s per run, %d render clients, %d light clients%n",
+            System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+            seconds, renderClients, lightClients);
+        System.out.printf("%-8s %8s %10s %10s %9s %12s %12s %12s%n",
+            "offload", "pdf/s", "pdf p50", "pdf p99", "light/s", "light p50", "light p99", "light max");
+
+        FontRegistry registry = new FontRegistry();
+        registry.preload();
+        try {
+            for (boolean offload : new boolean[] {false, true}) {
+                run(registry, offload, seconds, renderClients, lightClients);
+            }
+        } finally {
+            registry.close();
+        }
+    }
+
+    private static void run(FontRegistry registry, boolean offload, int seconds,
+                            int renderClients, int lightClients) throws Exception {
+        MemoRenderPool renderPool = new MemoRenderPool(0, MemoRenderPool.DEFAULT_QUEUE_CAPACITY,
+                                                       MemoRenderPool.DEFAULT_MAX_PER_REQUEST, offload);
+        GeneratePdfService service = createService(registry, renderPool);
+        GeneratePdfRequest request = createRequest(5);
+        // warm up (JIT, font subset และ image cache) ก่อนเริ่มวัด
+        for (int i = 0; i < 20; i++) {
+            service.generatePdfBytes(request);
+        }
+
+        ConcurrentLinkedQueue<Long> renderNanos = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> lightLateNanos = new ConcurrentLinkedQueue<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        List<Runnable> clients = new ArrayList<>();
+        for (int i = 0; i < renderClients; i++) {
+            clients.add(() -> {
+                while (running.get()) {
+                    long started = System.nanoTime();
+                    try {
+                        service.generatePdfBytes(request);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    renderNanos.add(System.nanoTime() - started);
+                }
+            });
+        }
+        for (int i = 0; i < lightClients; i++) {
+            clients.add(() -> {
+                while (running.get()) {
+                    long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LIGHT_WAIT_MILLIS);
+                    try {
+                        Thread.sleep(LIGHT_WAIT_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    lightLateNanos.add(Math.max(0, System.nanoTime() - due));
+                }
+            });
+        }
+        clients.forEach(virtualThreads::execute);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        virtualThreads.shutdown();
+        virtualThreads.awaitTermination(1, TimeUnit.MINUTES);
+        renderPool.close();
+
+        long[] render = sorted(renderNanos);
+        long[] light = sorted(lightLateNanos);
+        System.out.printf("%-8s %8.1f %7.0f ms %7.0f ms %9.0f %9.2f ms %9.2f ms %9.2f ms%n",
+            offload, render.length / (double) seconds,
+            millis(percentile(render, 0.50)), millis(percentile(render, 0.99)),
+            light.length / (double) seconds,
+            millis(percentile(light, 0.50)), millis(percentile(light, 0.99)), millis(percentile(light, 1.0)));
+    }
+
+    private static GeneratePdfService createService(FontRegistry registry, MemoRenderPool renderPool) throws Exception {
+        ThaiDictionary dictionary = new ThaiDictionary(ThaiDictionary.DEFAULT_LOCATION);
+        dictionary.load();
+        ImageAssetCache imageAssets = new ImageAssetCache();
+        imageAssets.preload();
+        PdfOutputProfile outputProfile = new PdfOutputProfile(PdfOutputProfile.COMPRESSION_OBJECT_STREAMS,
+            CompressParameters.DEFAULT_OBJECT_STREAM_SIZE, -1);
+        PdfService pdfService = new PdfService(registry, dictionary, imageAssets,
+            new SignatureImageCache(SignatureImageCache.DEFAULT_MAX_ENTRIES), outputProfile);
+        PdfMerger merger = new PdfMerger(renderPool, outputProfile, PdfMerger.DEFAULT_MAX_MAIN_MEMORY,
+                                         System.getProperty("java.io.tmpdir"));
+        GeneratePdfService service = new GeneratePdfService(pdfService, renderPool, merger,
+            new HtmlTextCache(DataSize.ofMegabytes(16), HtmlTextCache.DEFAULT_MAX_ENTRIES));
+        ReflectionTestUtils.setField(service, "singleDocumentAssembly", true);
+        return service;
+    }
+
+    private static GeneratePdfRequest createRequest(int learners) {
+        GeneratePdfRequest request = new GeneratePdfRequest();
+        request.setBookNameId("90F72F0E-528D-4992-907A-F2C6B37AD9A5");
+        request.setBookTitle("ขอความอนุเคราะห์ถือปฏิบัติตามระเบียบว่าด้วยงานสารบรรณ");
+        request.setBookNo("ดศ ๑/๒๕๖๙");
+        request.setDateThai("1 มกราคม 2569");
+        request.setDivisionName("กองพัฒนาระบบและเทคโนโลยีสารสนเทศ");
+        request.setRecipients("ผู้อำนวยการสำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์");
+
+        GeneratePdfRequest.BookContent content = new GeneratePdfRequest.BookContent();
+        content.setBookContent("ตามที่ สำนักงานพัฒนาธุรกรรมทางอิเล็กทรอนิกส์ ได้จัดทำระเบียบว่าด้วยงานสารบรรณ"
+            + " จึงขอให้ทุกส่วนงานถือปฏิบัติตามรายละเอียดที่แนบมาพร้อมนี้");
+        request.setBookContent(List.of(content));
+
+        GeneratePdfRequest.BookRelate signer = new GeneratePdfRequest.BookRelate();
+        signer.setPrefixName("นาย");
+        signer.setFirstname("ทดสอบ");
+        signer.setLastname("ระบบ");
+        signer.setPositionName("ผู้อำนวยการ");
+        signer.setEmail("test@etda.or.th");
+        request.setBookSigned(List.of(signer));
+
+        List<GeneratePdfRequest.BookSubDetail.SubDetailLearner> subLearners = new ArrayList<>();
+        for (int i = 0; i < learners; i++) {
+            GeneratePdfRequest.BookSubDetail.SubDetailLearner learner =
+                new GeneratePdfRequest.BookSubDetail.SubDetailLearner();
+            learner.setDetail("ผู้ทราบลำดับที่ " + (i + 1));
+            subLearners.add(learner);
+        }
+        GeneratePdfRequest.BookSubDetail subDetail = new GeneratePdfRequest.BookSubDetail();
+        subDetail.setSubDetailLearner(subLearners);
+        request.setSubDetail(subDetail);
+        return request;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() ผ่าน reflection (source ยัง compile ด้วย Java 17)
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("ต้องรันบน Java 21 ขึ้นไป (virtual thread)", e);
+        }
+    }
+
+    private static long[] sorted(ConcurrentLinkedQueue<Long> values) {
+        long[] array = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
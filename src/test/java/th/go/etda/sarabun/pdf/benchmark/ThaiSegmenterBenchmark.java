@@ -0,0 +1,104 @@
+package th.go.etda.sarabun.pdf.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import th.go.etda.sarabun.pdf.service.FontRegistry;
+import th.go.etda.sarabun.pdf.service.ThaiDictionary;
+import th.go.etda.sarabun.pdf.util.LineBreaker;
+import th.go.etda.sarabun.pdf.util.ThaiWordSegmenter;
+
+/**
+ * Throughput ของการตัดบรรทัดข้อความไทยที่ไม่มีช่องว่าง (ops/ms = จำนวนครั้งที่ตัดทั้งข้อความได้ต่อ ms)
+ *
+ * - characterFallback: LineBreaker ไม่มีพจนานุกรม (ตัดที่ขอบตัวอักษร แบบปัจจุบัน)
+ * - dictionary: LineBreaker + ThaiWordSegmenter (ตัดที่ขอบคำ)
+ * - segmentOnly: เฉพาะขั้นตัดคำ (DoubleArrayTrie + DP) ไม่รวมการวัดความกว้าง
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThaiSegmenterBenchmark {
+
+    private static final float FONT_SIZE = 16f;
+    private static final float MAX_WIDTH = 455f;
+    private static final String PHRASE =
+        "ระเบียบสำนักนายกรัฐมนตรีว่าด้วยงานสารบรรณ"
+        + "จึงเรียนมาเพื่อโปรดพิจารณาอนุมัติ"
+        + "ตามรายละเอียดเอกสารแนบท้ายประกาศฉบับนี้"
+        + "ทั้งนี้ให้ถือปฏิบัติตั้งแต่วันที่ลงนามเป็นต้นไป";
+
+    @Param({"1000", "4000", "16000"})
+    public int length;
+
+    private FontRegistry registry;
+    private PDDocument document;
+    private PDFont font;
+    private ThaiWordSegmenter segmenter;
+    private LineBreaker characterBreaker;
+    private LineBreaker dictionaryBreaker;
+    private ThaiWordSegmenter.Buffer buffer;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        registry = new FontRegistry();
+        registry.preload();
+        document = new PDDocument();
+        font = registry.bind(document, FontRegistry.FONT_REGULAR);
+
+        ThaiDictionary dictionary = new ThaiDictionary(ThaiDictionary.DEFAULT_LOCATION);
+        dictionary.load();
+        segmenter = dictionary.segmenter();
+
+        characterBreaker = new LineBreaker(registry.widthsOf(font), font, FONT_SIZE);
+        dictionaryBreaker = new LineBreaker(registry.widthsOf(font), font, FONT_SIZE, segmenter);
+        buffer = new ThaiWordSegmenter.Buffer();
+
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(PHRASE);
+        }
+        text = sb.substring(0, length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        document.close();
+        registry.close();
+    }
+
+    @Benchmark
+    public int characterFallback() throws IOException {
+        return characterBreaker.breakText(text, 0, text.length(), MAX_WIDTH, MAX_WIDTH, false);
+    }
+
+    @Benchmark
+    public int dictionary() throws IOException {
+        return dictionaryBreaker.breakText(text, 0, text.length(), MAX_WIDTH, MAX_WIDTH, false);
+    }
+
+    @Benchmark
+    public int segmentOnly() {
+        return segmenter.segment(text, 0, text.length(), buffer);
+    }
+}
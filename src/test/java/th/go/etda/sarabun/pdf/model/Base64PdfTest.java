@@ -0,0 +1,50 @@
+package th.go.etda.sarabun.pdf.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON ของ Base64Pdf ต้องเหมือน Base64.encodeToString ทุก byte ไม่ว่าขนาด PDF จะตรงขอบช่วง encode หรือไม่
+ */
+class Base64PdfTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void serializesSameAsEncodeToString() throws Exception {
+        Random random = new Random(42);
+        for (int size : new int[] {0, 1, 2, 3, 6143, 6144, 6145, 12288, 20001}) {
+            byte[] pdf = new byte[size];
+            random.nextBytes(pdf);
+
+            assertEquals("\"" + Base64.getEncoder().encodeToString(pdf) + "\"", json(pdf, false), "size " + size);
+        }
+    }
+
+    @Test
+    void addsDataUriPrefixWhenSigned() throws Exception {
+        byte[] pdf = {1, 2, 3, 4};
+
+        assertEquals("\"" + Base64Pdf.DATA_URI_PREFIX + "AQIDBA==\"", json(pdf, true));
+        assertEquals(8, Base64Pdf.encode(PdfResult.builder().pdfBytes(pdf).build()).length());
+    }
+
+    @Test
+    void writesValueInsideObject() throws Exception {
+        BatchPdfResult result = BatchPdfResult.builder()
+            .data(Base64Pdf.encode(PdfResult.builder().pdfBytes(new byte[] {1, 2, 3}).build()))
+            .build();
+
+        assertEquals("AQID", mapper.readTree(mapper.writeValueAsString(result)).get("data").asText());
+    }
+
+    private String json(byte[] pdf, boolean signed) throws Exception {
+        return mapper.writeValueAsString(Base64Pdf.encode(PdfResult.builder().pdfBytes(pdf).signed(signed).build()));
+    }
+}
@@ -0,0 +1,69 @@
+package th.go.etda.sarabun.pdf.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import th.go.etda.sarabun.pdf.model.PdfResult;
+
+/**
+ * statusCode ของแต่ละบรรทัดใน NDJSON: 400 สำหรับ request ที่ผิด, 500 สำหรับข้อผิดพลาดภายใน
+ */
+class BatchPdfServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeneratePdfService generatePdfService = mock(GeneratePdfService.class);
+    private final MemoRenderPool renderPool = new MemoRenderPool(2, MemoRenderPool.DEFAULT_QUEUE_CAPACITY, 2, false);
+    private final BatchPdfService service = new BatchPdfService(generatePdfService, renderPool, objectMapper);
+
+    @AfterEach
+    void tearDown() {
+        renderPool.close();
+    }
+
+    @Test
+    void reportsBadInputAs400AndInternalErrorsAs500() throws Exception {
+        when(generatePdfService.generatePdf(argThat(r -> r != null && "ok".equals(r.getBookNo()))))
+            .thenReturn(PdfResult.builder().pdfBytes(new byte[] {1, 2, 3}).build());
+        when(generatePdfService.generatePdf(argThat(r -> r != null && "html".equals(r.getBookNo()))))
+            .thenThrow(new IllegalArgumentException("เนื้อหา HTML ซ้อน tag ลึกเกิน 256 ชั้น"));
+        when(generatePdfService.generatePdf(argThat(r -> r != null && "render".equals(r.getBookNo()))))
+            .thenThrow(new Exception("ไม่สามารถสร้าง PDF ได้: No glyph"));
+
+        String input = "{\"bookNo\": \"ok\"}\n{\"bookNo\": \"html\"}\n{\"bookNo\": \"render\"}\n{\"bookNo\": \n";
+        Map<String, Integer> statusByBookNo = new HashMap<>();
+        for (JsonNode line : render(input)) {
+            statusByBookNo.put(line.path("bookNo").asText("parse"), line.get("statusCode").asInt());
+        }
+
+        assertEquals(Map.of("ok", 200, "html", 400, "render", 500, "parse", 400), statusByBookNo);
+    }
+
+    private List<JsonNode> render(String ndjson) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.renderNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), output);
+        return output.toString(StandardCharsets.UTF_8).lines()
+            .map(line -> {
+                try {
+                    return objectMapper.readTree(line);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .toList();
+    }
+}
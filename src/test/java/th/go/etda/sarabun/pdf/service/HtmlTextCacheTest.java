@@ -0,0 +1,57 @@
+package th.go.etda.sarabun.pdf.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import th.go.etda.sarabun.pdf.util.StyledText;
+
+/**
+ * key ของ HtmlTextCache: HTML เดียวกันได้ผลจาก cache, HTML ต่างกันแม้ยาวเท่ากันต้องแปลงใหม่
+ */
+class HtmlTextCacheTest {
+
+    private final AtomicInteger conversions = new AtomicInteger();
+    private final Function<String, StyledText> converter = html -> {
+        conversions.incrementAndGet();
+        return StyledText.plain(html);
+    };
+
+    @Test
+    void returnsCachedTextForSameHtml() {
+        HtmlTextCache cache = new HtmlTextCache(DataSize.ofMegabytes(1), HtmlTextCache.DEFAULT_MAX_ENTRIES);
+
+        StyledText first = cache.get("<p>เรื่อง ทดสอบ</p>", converter);
+        StyledText second = cache.get(new String("<p>เรื่อง ทดสอบ</p>"), converter);
+
+        assertSame(first, second);
+        assertEquals(1, conversions.get());
+    }
+
+    @Test
+    void convertsDifferentHtmlOfSameLength() {
+        HtmlTextCache cache = new HtmlTextCache(DataSize.ofMegabytes(1), HtmlTextCache.DEFAULT_MAX_ENTRIES);
+
+        // ต่างกันเฉพาะลำดับ char และ byte สูง/ต่ำของ char
+        assertEquals("<p>ab</p>", cache.get("<p>ab</p>", converter).toString());
+        assertEquals("<p>ba</p>", cache.get("<p>ba</p>", converter).toString());
+        assertEquals("<p>Ā</p>", cache.get("<p>Ā</p>", converter).toString());
+        assertEquals("<p>\u0001</p>", cache.get("<p>\u0001</p>", converter).toString());
+        assertEquals(4, conversions.get());
+    }
+
+    @Test
+    void convertsEveryTimeWhenDisabled() {
+        HtmlTextCache cache = new HtmlTextCache(DataSize.ofBytes(0), HtmlTextCache.DEFAULT_MAX_ENTRIES);
+
+        cache.get("<p>x</p>", converter);
+        cache.get("<p>x</p>", converter);
+
+        assertEquals(2, conversions.get());
+    }
+}
@@ -0,0 +1,131 @@
+package th.go.etda.sarabun.pdf.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import th.go.etda.sarabun.pdf.model.GeneratePdfRequest;
+import th.go.etda.sarabun.pdf.model.PdfJobStatus;
+
+/**
+ * ขีดจำกัดของงานที่เก็บใน PdfJobService: จำนวนงาน ขนาดรวมของผลลัพธ์ และการลบตามรอบ
+ */
+class PdfJobServiceTest {
+
+    private static final Duration LONG = Duration.ofHours(1);
+
+    private final GeneratePdfService generatePdfService = mock(GeneratePdfService.class);
+    private PdfJobService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void evictsOldestFinishedJobWhenStoreIsFull() throws Exception {
+        when(generatePdfService.generatePdfBytes(any())).thenReturn(new byte[10]);
+        service = create(2, DataSize.ofMegabytes(1), LONG, LONG);
+
+        String first = submitAndWait();
+        String second = submitAndWait();
+        String third = submitAndWait();
+
+        assertNull(service.getStatus(first));
+        assertNotNull(service.getResult(second));
+        assertNotNull(service.getResult(third));
+    }
+
+    @Test
+    void rejectsWhenStoreIsFullOfUnfinishedJobs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(generatePdfService.generatePdfBytes(any())).thenAnswer(invocation -> {
+            release.await();
+            return new byte[10];
+        });
+        service = create(2, DataSize.ofMegabytes(1), LONG, LONG);
+        try {
+            service.submit(new GeneratePdfRequest());
+            service.submit(new GeneratePdfRequest());
+
+            assertThrows(RejectedExecutionException.class, () -> service.submit(new GeneratePdfRequest()));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void evictsOldestResultsWhenOverTotalSize() throws Exception {
+        when(generatePdfService.generatePdfBytes(any())).thenReturn(new byte[400]);
+        service = create(100, DataSize.ofBytes(1000), LONG, LONG);
+
+        String first = submitAndWait();
+        String second = submitAndWait();
+        String third = submitAndWait();
+
+        assertNull(service.getStatus(first));
+        assertEquals(400, service.getResult(second).length);
+        assertEquals(400, service.getResult(third).length);
+    }
+
+    @Test
+    void failsJobWhoseResultIsLargerThanTotalSize() throws Exception {
+        when(generatePdfService.generatePdfBytes(any())).thenReturn(new byte[2000]);
+        service = create(100, DataSize.ofBytes(1000), LONG, LONG);
+
+        String jobId = submitAndWait();
+
+        assertEquals(PdfJobStatus.State.FAILED, service.getStatus(jobId).getState());
+        assertNull(service.getResult(jobId));
+    }
+
+    @Test
+    void purgesExpiredResultsWithoutNewSubmissions() throws Exception {
+        byte[] pdf = {1, 2, 3};
+        when(generatePdfService.generatePdfBytes(any())).thenReturn(pdf);
+        service = create(100, DataSize.ofMegabytes(1), Duration.ofMillis(50), Duration.ofMillis(20));
+
+        String jobId = submitAndWait();
+        assertArrayEquals(pdf, service.getResult(jobId));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getStatus(jobId) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(service.getStatus(jobId));
+    }
+
+    private PdfJobService create(int maxStored, DataSize maxResultSize, Duration resultTtl, Duration purgeInterval) {
+        return new PdfJobService(generatePdfService, 1, PdfJobService.DEFAULT_QUEUE_CAPACITY, resultTtl,
+                                 Duration.ofSeconds(5), maxStored, maxResultSize, purgeInterval);
+    }
+
+    private String submitAndWait() throws InterruptedException {
+        String jobId = service.submit(new GeneratePdfRequest()).getJobId();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            PdfJobStatus status = service.getStatus(jobId);
+            if (status.getState() == PdfJobStatus.State.DONE || status.getState() == PdfJobStatus.State.FAILED) {
+                return jobId;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("job " + jobId + " did not finish");
+    }
+}
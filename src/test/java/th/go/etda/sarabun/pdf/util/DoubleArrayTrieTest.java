@@ -0,0 +1,86 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * การสร้างและค้นคำของ DoubleArrayTrie
+ */
+class DoubleArrayTrieTest {
+
+    @Test
+    void containsWordsButNotTheirPrefixes() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(List.of("การบ้าน", "การ", "ประชุม"));
+
+        assertTrue(contains(trie, "การ"));
+        assertTrue(contains(trie, "การบ้าน"));
+        assertTrue(contains(trie, "ประชุม"));
+        assertFalse(contains(trie, "กา"));
+        assertFalse(contains(trie, "การบ"));
+        assertFalse(contains(trie, "การบ้านใหม่"));
+        assertFalse(contains(trie, "ประ"));
+    }
+
+    @Test
+    void walksStateByState() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(List.of("ตา", "ตาก"));
+
+        int state = trie.next(trie.root(), 'ต');
+        assertFalse(trie.isWord(state));
+        state = trie.next(state, 'า');
+        assertTrue(trie.isWord(state));
+        state = trie.next(state, 'ก');
+        assertTrue(trie.isWord(state));
+        assertEquals(-1, trie.next(state, 'ก'));
+    }
+
+    @Test
+    void ignoresDuplicatesEmptyAndNonThaiWords() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(List.of("ข", "ก", "ข", "", "abc", "กa"));
+
+        assertEquals(2, trie.wordCount());
+        assertTrue(contains(trie, "ก"));
+        assertTrue(contains(trie, "ข"));
+        assertFalse(contains(trie, "abc"));
+        assertFalse(contains(trie, "กa"));
+    }
+
+    @Test
+    void containsEveryWordOfBundledDictionary() throws IOException {
+        List<String> words = new ArrayList<>();
+        try (InputStream in = DoubleArrayTrieTest.class.getResourceAsStream("/dict/thai-words.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    words.add(line);
+                }
+            }
+        }
+        DoubleArrayTrie trie = DoubleArrayTrie.build(words);
+
+        assertEquals(words.stream().distinct().count(), trie.wordCount());
+        for (String word : words) {
+            assertTrue(contains(trie, word), word);
+            // ตัดตัวอักษรสุดท้ายออกแล้วต้องไม่เป็นคำ เว้นแต่อยู่ในพจนานุกรมเอง
+            String prefix = word.substring(0, word.length() - 1);
+            assertEquals(words.contains(prefix), !prefix.isEmpty() && contains(trie, prefix), prefix);
+        }
+    }
+
+    private static boolean contains(DoubleArrayTrie trie, String word) {
+        return trie.contains(word, 0, word.length());
+    }
+}
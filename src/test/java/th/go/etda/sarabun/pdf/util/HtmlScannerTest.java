@@ -0,0 +1,101 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * การตรวจ tag และความลึกของ tag โดย HtmlScanner (ก่อนส่ง HTML ให้ jsoup)
+ */
+class HtmlScannerTest {
+
+    private static final int LIMIT = 256;
+
+    @Test
+    void detectsTagLikeLegacyRegex() {
+        assertTrue(HtmlScanner.containsTag("ข้อความ<b>ตัวหนา"));
+        assertTrue(HtmlScanner.containsTag("<p" + " ".repeat(10) + ">"));
+        assertFalse(HtmlScanner.containsTag("a < b > c"));
+        assertFalse(HtmlScanner.containsTag("<1>"));
+        assertFalse(HtmlScanner.containsTag("<a<a<a<a"));
+        assertFalse(HtmlScanner.containsTag(""));
+    }
+
+    @Test
+    void countsNestedElements() {
+        assertEquals(0, depth("ข้อความธรรมดา"));
+        assertEquals(3, depth("<div><b><i>x</i></b></div>"));
+        assertEquals(1, depth("<b></b>".repeat(100)));
+    }
+
+    @Test
+    void ignoresElementsWithOptionalCloseTags() {
+        assertEquals(0, depth("<p>a<p>b<p>c"));
+        assertEquals(1, depth("<ul><li>a<li>b<li>c</ul>"));
+        assertEquals(1, depth("<table><tr><td>x<td>y<tr><td>z</table>"));
+    }
+
+    @Test
+    void ignoresVoidElementsButCountsSelfClosingOthers() {
+        assertEquals(1, depth("<div><br><img src=\"a.png\"><hr/><BR></div>"));
+        // parser ไม่สน '/' ของ tag ที่ไม่ใช่ void - <div/> ยังเปิดอยู่
+        assertEquals(2, depth("<div/><div/>"));
+    }
+
+    @Test
+    void skipsRawTextContent() {
+        assertEquals(1, depth("<script><div><div><div></script><b>x</b>"));
+        assertEquals(0, depth("<STYLE>p > b { }</style>"));
+        assertEquals(1, depth("<textarea></textareax><div></textarea><b>"));
+        // raw text ที่ไม่ปิด: ส่วนที่เหลือทั้งหมดเป็นเนื้อหา
+        assertEquals(0, depth("<title><div><div>"));
+    }
+
+    @Test
+    void skipsCommentsAndDeclarations() {
+        assertEquals(1, depth("<!-- <div><div> --><b>x</b>"));
+        assertEquals(0, depth("<!--<div><div>"));
+        assertEquals(1, depth("<!DOCTYPE html><?xml version=\"1.0\"?><b>"));
+    }
+
+    @Test
+    void closeTagClosesNearestOpenElementWithSameName() {
+        // </div> ปิด b ที่อยู่ข้างในด้วย
+        assertEquals(2, depth("<div><b></div><i>"));
+        assertEquals(2, depth("<div><b></div><i></i><i></i>"));
+        assertEquals(3, depth("<DIV><b><Div></div></DIV><i><b><u>"));
+    }
+
+    @Test
+    void ignoresUnmatchedCloseTags() {
+        assertEquals(2, depth("<div></span><b>"));
+        assertEquals(3, depth("</b></b></b><div><b><i>"));
+    }
+
+    @Test
+    void ignoresGreaterThanInsideQuotedAttributeValues() {
+        assertEquals(2, depth("<div title=\"a>b\"><b>x</b></div>"));
+        assertEquals(2, depth("<div title='a>b'><b>x</b></div>"));
+        // quote ที่ไม่ได้อยู่หลัง '=' ไม่ใช่ค่า attribute
+        assertEquals(2, depth("<div a\"b><b>\"</b>"));
+    }
+
+    @Test
+    void stopsAtLimitPlusOne() {
+        assertEquals(10, HtmlScanner.nestingDepth("<b>".repeat(10), 10));
+        assertEquals(11, HtmlScanner.nestingDepth("<b>".repeat(11), 10));
+        assertEquals(11, HtmlScanner.nestingDepth("<b>".repeat(100_000), 10));
+    }
+
+    @Test
+    void stopsAtUnterminatedTag() {
+        assertEquals(1, depth("<div><b"));
+        assertEquals(1, depth("<div><b title=\"x>"));
+    }
+
+    private static int depth(String html) {
+        return HtmlScanner.nestingDepth(html, LIMIT);
+    }
+}
@@ -0,0 +1,150 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * กฎการตัดบรรทัดของ LineBreaker: indent, บรรทัดว่าง, ช่องว่างหลายตัว, สระ/วรรณยุกต์ไทย และขอบคำจากพจนานุกรม
+ *
+ * วัดด้วย THSarabunNew จริง ความกว้างบรรทัดในแต่ละเคสคำนวณจากข้อความที่คาดว่าจะพอดีบรรทัด
+ */
+class LineBreakerTest {
+
+    private static final float FONT_SIZE = 16;
+    private static final float EPSILON = 0.01f;
+
+    private static PDDocument document;
+    private static PDType0Font font;
+    private static GlyphWidthTable widths;
+
+    @BeforeAll
+    static void loadFont() throws IOException {
+        document = new PDDocument();
+        try (InputStream in = LineBreakerTest.class.getResourceAsStream("/fonts/THSarabunNew.ttf")) {
+            font = PDType0Font.load(document, in);
+        }
+        widths = GlyphWidthTable.build(font);
+    }
+
+    @AfterAll
+    static void closeDocument() throws IOException {
+        document.close();
+    }
+
+    @Test
+    void keepsIndentOnFirstLineOfParagraphOnly() throws IOException {
+        String text = "    aaa bbb ccc ddd";
+        float width = points("    aaa bbb") + EPSILON;
+
+        assertEquals(List.of("    aaa bbb", "ccc ddd"), lines(text, width, true));
+        assertEquals("aaa bbb ccc", lines(text, points("aaa bbb ccc") + EPSILON, false).get(0));
+    }
+
+    @Test
+    void indentCountsTowardsFirstLineWidth() throws IOException {
+        String text = "        aaa b";
+        float width = points("        aaa") + EPSILON;
+
+        assertEquals(List.of("        aaa", "b"), lines(text, width, true));
+        assertEquals(List.of("aaa b"), lines(text, width, false));
+    }
+
+    @Test
+    void keepsBlankLinesAndDropsTrailingNewlines() throws IOException {
+        List<String> lines = lines("aaa\n\n   \nbbb\n\n", 500, true);
+
+        assertEquals(List.of("aaa", "", "", "bbb"), lines);
+    }
+
+    @Test
+    void keepsRunsOfSpacesWithinLine() throws IOException {
+        // title + "  " + content ที่ขึ้นต้นด้วย indent (GeneratePdfService รวม BookContent แบบนี้)
+        String text = "สรุปผลการดำเนินงาน          1. โครงการพัฒนาระบบ";
+
+        assertEquals(List.of(text), lines(text, points(text) + EPSILON, true));
+    }
+
+    @Test
+    void dropsSpaceRunAtLineBreak() throws IOException {
+        String text = "aaa     bbb";
+
+        assertEquals(List.of("aaa", "bbb"), lines(text, points("aaa  ") + EPSILON, true));
+    }
+
+    @Test
+    void keepsThaiMarksWithBaseAndLeadingVowelWithConsonant() throws IOException {
+        String text = "เที่ยวเที่ยวเที่ยวเที่ยวเที่ยว";
+        List<String> lines = lines(text, points("เที่ย") + EPSILON, true);
+
+        assertTrue(lines.size() > 1);
+        assertEquals(text, String.join("", lines));
+        for (String line : lines) {
+            assertFalse(line.isEmpty());
+            assertFalse(LineBreaker.isThaiCombining(line.charAt(0)), line);
+            assertFalse(LineBreaker.isThaiLeadingVowel(line.charAt(line.length() - 1)), line);
+        }
+    }
+
+    @Test
+    void breaksThaiAtDictionaryBoundaries() throws IOException {
+        String text = "การประชุมผู้บริหาร";
+        float width = points("การประชุมผู้บ") + EPSILON;
+        ThaiWordSegmenter segmenter = new ThaiWordSegmenter(
+            DoubleArrayTrie.build(List.of("การ", "ประชุม", "ผู้", "บริหาร")));
+
+        assertEquals(List.of("การประชุมผู้", "บริหาร"), lines(new LineBreaker(widths, font, FONT_SIZE, segmenter),
+                                                               text, width, width, true));
+        // ไม่มีพจนานุกรม: ตัดที่ขอบตัวอักษร
+        assertEquals(List.of("การประชุมผู้บ", "ริหาร"), lines(text, width, true));
+    }
+
+    @Test
+    void segmentsOnlyWordsThatDoNotFit() throws IOException {
+        String text = "การประชุม ผู้บริหาร";
+        ThaiWordSegmenter segmenter = new ThaiWordSegmenter(
+            DoubleArrayTrie.build(List.of("การ", "ประชุม", "ผู้", "บริหาร")));
+        float width = points(text) + EPSILON;
+
+        assertEquals(List.of(text), lines(new LineBreaker(widths, font, FONT_SIZE, segmenter),
+                                          text, width, width, true));
+    }
+
+    @Test
+    void usesOtherLineWidthAfterFirstLine() throws IOException {
+        String text = "aaa bbb ccc";
+
+        assertEquals(List.of("aaa", "bbb ccc"),
+                     lines(new LineBreaker(widths, font, FONT_SIZE), text,
+                           points("aaa") + EPSILON, points("bbb ccc") + EPSILON, true));
+    }
+
+    private static float points(String text) {
+        return widths.measure(text, 0, text.length()) / 1000 * FONT_SIZE;
+    }
+
+    private static List<String> lines(String text, float width, boolean keepIndent) throws IOException {
+        return lines(new LineBreaker(widths, font, FONT_SIZE), text, width, width, keepIndent);
+    }
+
+    private static List<String> lines(LineBreaker breaker, String text, float firstLineWidth, float otherLineWidth,
+                                      boolean keepIndent) throws IOException {
+        int count = breaker.breakText(text, 0, text.length(), firstLineWidth, otherLineWidth, keepIndent);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(text.substring(breaker.start(i), breaker.end(i)));
+        }
+        return lines;
+    }
+}
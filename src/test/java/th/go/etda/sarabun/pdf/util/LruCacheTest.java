@@ -0,0 +1,117 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * การไล่ entry ของ LruCache ตามจำนวน entry และน้ำหนักรวม
+ */
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverEntryCount() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.putIfAbsent("a", "A");
+        cache.putIfAbsent("b", "B");
+        cache.get("a");
+        cache.putIfAbsent("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUntilWithinWeight() {
+        LruCache<String, String> cache = new LruCache<>(100, 10, (key, value) -> value.length());
+        cache.putIfAbsent("a", "aaaa");
+        cache.putIfAbsent("b", "bbbb");
+        cache.get("a");
+        // 4 + 4 + 6 = 14 > 10: ไล่ b (ใช้ล่าสุดนานที่สุด) เหลือ 10
+        cache.putIfAbsent("c", "cccccc");
+
+        assertEquals(10, cache.weight());
+        assertEquals("aaaa", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("cccccc", cache.get("c"));
+
+        // 10 + 9 = 19: ต้องไล่ทั้ง a และ c
+        cache.putIfAbsent("d", "ddddddddd");
+        assertEquals(1, cache.size());
+        assertEquals(9, cache.weight());
+        assertEquals(3, cache.evictionCount());
+    }
+
+    @Test
+    void entryCountCapKeepsWeightInSync() {
+        LruCache<String, String> cache = new LruCache<>(2, 100, (key, value) -> value.length());
+        cache.putIfAbsent("a", "aa");
+        cache.putIfAbsent("b", "bbb");
+        cache.putIfAbsent("c", "cccc");
+
+        assertEquals(2, cache.size());
+        assertEquals(7, cache.weight());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void doesNotStoreValueHeavierThanMaxWeight() {
+        LruCache<String, String> cache = new LruCache<>(100, 5, (key, value) -> value.length());
+        cache.putIfAbsent("a", "aaa");
+
+        assertEquals("toolarge", cache.putIfAbsent("b", "toolarge"));
+        assertNull(cache.get("b"));
+        assertEquals("aaa", cache.get("a"));
+        assertEquals(3, cache.weight());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingValue() {
+        LruCache<String, String> cache = new LruCache<>(10, 100, (key, value) -> value.length());
+        String first = new String("x");
+        cache.putIfAbsent("k", first);
+
+        assertSame(first, cache.putIfAbsent("k", "yyyy"));
+        assertEquals(1, cache.weight());
+        assertEquals(1, cache.putCount());
+    }
+
+    @Test
+    void loadsOnMissAndDoesNotStoreNull() throws IOException {
+        LruCache<String, String> cache = new LruCache<>(10);
+
+        assertNull(cache.get("a", key -> null));
+        assertEquals(0, cache.size());
+        assertEquals("A", cache.get("a", key -> "A"));
+        assertEquals("A", cache.get("a", key -> {
+            throw new IOException("ต้องไม่ถูกเรียกเมื่อ hit");
+        }));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void clearResetsWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, 100, (key, value) -> value.length());
+        cache.putIfAbsent("a", "aaa");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(0));
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(1, -1, null));
+    }
+}
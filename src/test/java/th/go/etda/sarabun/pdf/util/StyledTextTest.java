@@ -0,0 +1,159 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * run list ของ StyledText: การรวม run, การตัด whitespace ข้าม style, การต่อข้อความ และ run จาก HTML ของ editor
+ *
+ * run เขียนเป็น "start-end:style" เพื่อให้อ่านผลง่าย
+ */
+class StyledTextTest {
+
+    private static final int BOLD = StyledText.BOLD;
+    private static final int ITALIC = StyledText.ITALIC;
+    private static final int BOLD_ITALIC = StyledText.BOLD | StyledText.ITALIC;
+
+    @Test
+    void mergesAdjacentRunsWithSameStyle() {
+        StyledText text = new StyledText.Builder()
+            .append("abcdef")
+            .style(0, 2, BOLD)
+            .style(2, 4, BOLD)
+            .build();
+
+        assertEquals(List.of("0-4:1"), runs(text));
+    }
+
+    @Test
+    void keepsRunsSeparateWhenStyleOrPositionDiffers() {
+        StyledText text = new StyledText.Builder()
+            .append("abcdefgh")
+            .style(0, 2, BOLD)
+            .style(2, 4, BOLD_ITALIC)
+            .style(5, 6, BOLD_ITALIC)
+            .build();
+
+        assertEquals(List.of("0-2:1", "2-4:3", "5-6:3"), runs(text));
+    }
+
+    @Test
+    void ignoresPlainAndEmptyRanges() {
+        StyledText text = new StyledText.Builder()
+            .append("abc")
+            .style(0, 1, 0)
+            .style(2, 2, BOLD)
+            .build();
+
+        assertTrue(text.isPlain());
+        assertEquals("abc", text.text());
+    }
+
+    @Test
+    void trimsWhitespaceAcrossStyles() {
+        // " " ธรรมดา + "  ตัวหนา " หนา + "เอียง  " เอียง + "\n" ธรรมดา
+        StyledText text = new StyledText.Builder()
+            .append("   ตัวหนา เอียง  \n")
+            .style(1, 10, BOLD)
+            .style(10, 17, ITALIC)
+            .build();
+
+        StyledText trimmed = text.trim();
+
+        assertEquals("ตัวหนา เอียง", trimmed.text());
+        assertEquals(List.of("0-7:1", "7-12:2"), runs(trimmed));
+    }
+
+    @Test
+    void trimDropsRunsThatAreOnlyWhitespace() {
+        StyledText text = new StyledText.Builder()
+            .append("  abc  ")
+            .style(0, 2, BOLD)
+            .style(5, 7, ITALIC)
+            .build();
+
+        StyledText trimmed = text.trim();
+
+        assertEquals("abc", trimmed.text());
+        assertTrue(trimmed.isPlain());
+    }
+
+    @Test
+    void trimReturnsSameInstanceWhenNothingToTrim() {
+        StyledText text = new StyledText.Builder().append("abc").style(0, 3, BOLD).build();
+
+        assertSame(text, text.trim());
+    }
+
+    @Test
+    void appendShiftsRunsAndMergesAcrossBoundary() {
+        StyledText first = new StyledText.Builder().append("ab").style(1, 2, BOLD).build();
+        StyledText second = new StyledText.Builder().append("cd").style(0, 1, BOLD).build();
+
+        StyledText joined = new StyledText.Builder().append(first).append(second).build();
+
+        assertEquals("abcd", joined.text());
+        assertEquals(List.of("1-3:1"), runs(joined));
+    }
+
+    @Test
+    void appendRangeClipsRuns() {
+        StyledText source = new StyledText.Builder()
+            .append("abcdef")
+            .style(0, 3, BOLD)
+            .style(3, 6, ITALIC)
+            .build();
+
+        StyledText slice = new StyledText.Builder().append("x").append(source, 2, 4).build();
+
+        assertEquals("xcd", slice.text());
+        assertEquals(List.of("1-2:1", "2-3:2"), runs(slice));
+    }
+
+    @Test
+    void findsRunFromAnyHint() {
+        StyledText text = new StyledText.Builder()
+            .append("abcdefgh")
+            .style(1, 3, BOLD)
+            .style(5, 7, ITALIC)
+            .build();
+
+        for (int hint = 0; hint <= text.runCount(); hint++) {
+            assertEquals(0, text.findRun(0, hint));
+            assertEquals(0, text.findRun(2, hint));
+            assertEquals(1, text.findRun(3, hint));
+            assertEquals(1, text.findRun(6, hint));
+            assertEquals(2, text.findRun(7, hint));
+        }
+    }
+
+    @Test
+    void mergesRunsFromAdjacentEditorTags() {
+        StyledText text = HtmlUtils.htmlToStyledText("<p><b>ab</b><strong>cd</strong><i>x</i></p>");
+
+        assertEquals("abcdx", text.text());
+        assertEquals(List.of("0-4:1", "4-5:2"), runs(text));
+    }
+
+    @Test
+    void combinesNestedEditorTags() {
+        StyledText text = HtmlUtils.htmlToStyledText("<p>  <b><i>หนา</i></b>  <u>a</u><b>b</b></p>");
+
+        assertEquals("หนาab", text.text());
+        assertEquals(List.of("0-3:3", "3-4:4", "4-5:1"), runs(text));
+    }
+
+    private static List<String> runs(StyledText text) {
+        List<String> runs = new ArrayList<>();
+        for (int run = 0; run < text.runCount(); run++) {
+            runs.add(text.runStart(run) + "-" + text.runEnd(run) + ":" + text.runStyle(run));
+        }
+        return runs;
+    }
+}
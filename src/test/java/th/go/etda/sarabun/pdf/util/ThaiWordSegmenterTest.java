@@ -0,0 +1,73 @@
+package th.go.etda.sarabun.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * จุดตัดคำของ ThaiWordSegmenter (ผลเป็นตำแหน่งใน text ไม่รวม start แต่รวม end เสมอ)
+ */
+class ThaiWordSegmenterTest {
+
+    private final ThaiWordSegmenter segmenter = new ThaiWordSegmenter(
+        DoubleArrayTrie.build(List.of("การ", "ประชุม", "ผู้", "บริหาร", "ก", "ตาก", "ตา", "กลม")));
+
+    @Test
+    void breaksAtDictionaryWords() {
+        assertArrayEquals(new int[] {3, 9, 12, 18}, breaks("การประชุมผู้บริหาร"));
+    }
+
+    @Test
+    void prefersPathWithoutUnknownCharacters() {
+        // ตาก|ลม เหลือ "ลม" ที่ไม่รู้จัก จึงเลือก ตา|กลม
+        assertArrayEquals(new int[] {2, 5}, breaks("ตากลม"));
+    }
+
+    @Test
+    void prefersFewerWords() {
+        // ตา|ก และ ตาก รู้จักทุกตัวอักษรทั้งคู่ เลือกแบบที่มีคำน้อยกว่า
+        assertArrayEquals(new int[] {3}, breaks("ตาก"));
+    }
+
+    @Test
+    void keepsUnknownRunAsOneUnit() {
+        assertArrayEquals(new int[] {3, 7, 13}, breaks("การฟหฟหประชุม"));
+    }
+
+    @Test
+    void doesNotBreakBeforeMarksOrAfterLeadingVowel() {
+        // "ก" อยู่ในพจนานุกรม แต่ตัดก่อนสระบน/วรรณยุกต์ หรือหลังสระหน้าไม่ได้
+        assertArrayEquals(new int[] {3}, breaks("กี่"));
+        assertArrayEquals(new int[] {2}, breaks("เก"));
+    }
+
+    @Test
+    void doesNotBreakBetweenThaiAndOtherCharacters() {
+        assertArrayEquals(new int[] {4}, breaks("พ.ศ."));
+        assertArrayEquals(new int[] {5}, breaks("(การ)"));
+    }
+
+    @Test
+    void segmentsSubrange() {
+        String text = " การประชุม ";
+        ThaiWordSegmenter.Buffer buffer = new ThaiWordSegmenter.Buffer();
+        int count = segmenter.segment(text, 1, 10, buffer);
+
+        assertArrayEquals(new int[] {4, 10}, toArray(buffer, count));
+    }
+
+    private int[] breaks(String text) {
+        ThaiWordSegmenter.Buffer buffer = new ThaiWordSegmenter.Buffer();
+        return toArray(buffer, segmenter.segment(text, 0, text.length(), buffer));
+    }
+
+    private static int[] toArray(ThaiWordSegmenter.Buffer buffer, int count) {
+        int[] breaks = new int[count];
+        for (int k = 0; k < count; k++) {
+            breaks[k] = buffer.breakAt(k);
+        }
+        return breaks;
+    }
+}